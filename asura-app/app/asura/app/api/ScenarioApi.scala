@@ -9,11 +9,14 @@ import asura.core.es.actor.ActivitySaveActor
 import asura.core.es.model.Permissions.Functions
 import asura.core.es.model.{Activity, Scenario}
 import asura.core.es.service._
+import asura.core.load.LoadRunner.LoadRunStatus
+import asura.core.load.{LoadRunOptions, LoadRunner}
 import asura.core.model.QueryScenario
 import asura.core.security.PermissionAuthProvider
 import asura.play.api.BaseApi.OkApiRes
 import javax.inject.{Inject, Singleton}
 import org.pac4j.play.scala.SecurityComponents
+import play.api.mvc.Result
 
 import scala.concurrent.{ExecutionContext, Future}
 
@@ -39,6 +42,37 @@ class ScenarioApi @Inject()(
     }
   }
 
+  def loadRun(group: String, project: String, id: String) = Action(parse.byteString).async { implicit req =>
+    checkPermission(group, Some(project), Functions.PROJECT_COMPONENT_EXEC) { _ =>
+      val options = req.bodyAs(classOf[LoadRunOptions])
+      LoadRunner.start(group, project, id, options).toOkResult
+    }
+  }
+
+  def loadRunStatus(group: String, project: String, runId: String) = Action.async { implicit req =>
+    checkPermission(group, Some(project), Functions.PROJECT_COMPONENT_VIEW) { _ =>
+      toLoadRunResult(group, project, LoadRunner.status(runId))
+    }
+  }
+
+  def stopLoadRun(group: String, project: String, runId: String) = Action.async { implicit req =>
+    checkPermission(group, Some(project), Functions.PROJECT_COMPONENT_EXEC) { _ =>
+      // runs of other projects can not be stopped
+      if (LoadRunner.status(runId).exists(status => status.group == group && status.project == project)) {
+        toLoadRunResult(group, project, LoadRunner.stop(runId))
+      } else {
+        ErrorMessages.error_IdNonExists.toFutureFail
+      }
+    }
+  }
+
+  private def toLoadRunResult(group: String, project: String, status: Option[LoadRunStatus]): Future[Result] = {
+    status.filter(status => status.group == group && status.project == project) match {
+      case Some(status) => Future.successful(status).toOkResult
+      case None => ErrorMessages.error_IdNonExists.toFutureFail
+    }
+  }
+
   def copyById(group: String, project: String, id: String) = Action.async { implicit req =>
     checkPermission(group, Some(project), Functions.PROJECT_COMPONENT_CLONE) { user =>
       ScenarioService.copyById(id, user).toOkResult
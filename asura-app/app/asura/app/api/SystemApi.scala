@@ -1,6 +1,7 @@
 package asura.app.api
 
 import akka.actor.ActorSystem
+import asura.common.metrics.MetricsRegistry
 import asura.core.ErrorMessages
 import asura.core.es.model.Permissions.Functions
 import asura.core.es.service.{IndexService, JobReportDataItemService}
@@ -12,7 +13,7 @@ import javax.inject.{Inject, Singleton}
 import org.pac4j.play.scala.SecurityComponents
 import play.api.Configuration
 
-import scala.concurrent.ExecutionContext
+import scala.concurrent.{ExecutionContext, Future}
 
 @Singleton
 class SystemApi @Inject()(
@@ -91,4 +92,10 @@ class SystemApi @Inject()(
       SystemJobs.resumeSystemJob(SyncOnlineDomainAndRestApiJob.NAME).toOkResult
     }
   }
+
+  def getMetrics() = Action.async { implicit req =>
+    checkPermission(null, None, Functions.SYSTEM_METRICS_VIEW) { _ =>
+      Future.successful(MetricsRegistry.snapshot()).toOkResult
+    }
+  }
 }
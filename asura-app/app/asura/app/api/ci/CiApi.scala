@@ -65,13 +65,13 @@ class CiApi @Inject()(
   }
 
   def runGetScenario(id: String) = Action(parse.byteString).async { implicit req =>
-    ScenarioService.getScenarioById(id).flatMap(scenario => {
+    ScenarioService.getCachedScenarioById(id).flatMap(scenario => {
       runScenario(id, scenario, scenario.imports)
     })
   }
 
   def runPostScenario(id: String) = Action(parse.byteString).async { implicit req =>
-    ScenarioService.getScenarioById(id).flatMap(scenario => {
+    ScenarioService.getCachedScenarioById(id).flatMap(scenario => {
       val body = req.bodyAs(classOf[OverrideImports])
       val imports = if (body != null && body.imports != null) {
         if (scenario.imports != null) {
@@ -99,7 +99,7 @@ class CiApi @Inject()(
     (system.actorOf(ScenarioRunnerActor.props(id)) ? msg)
       .asInstanceOf[Future[ScenarioReportItemData]]
       .map(item => {
-        Map("result" -> item, "context" -> msg.runtimeContext.rawContext)
+        Map("result" -> item, "context" -> msg.runtimeContext.snapshot())
       }).toOkResult
   }
 
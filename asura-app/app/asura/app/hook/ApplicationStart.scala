@@ -9,22 +9,24 @@ import asura.app.notify.MailNotifier
 import asura.app.store.FileSystemBasedEngine
 import asura.cluster.ClusterManager
 import asura.common.util.{HostUtils, LogUtils, StringUtils}
-import asura.core.CoreConfig.{EsOnlineLogConfig, LinkerdConfig, LinkerdConfigServer}
+import asura.core.CoreConfig.{AssertionConfig, AuthTokenConfig, DocumentCacheConfig, EsBulkConfig, EsOnlineLogConfig, ExecutorPoolConfig, ExecutorsConfig, HttpConfig, HttpPoolConfig, LinkerdConfig, LinkerdConfigServer, LoadConfig, ScriptConfig, SqlPoolConfig}
 import asura.core.auth.AuthManager
 import asura.core.ci.CiManager
 import asura.core.concurrent.ExecutionContextManager
-import asura.core.es.EsClient
+import asura.core.es.{DocumentCache, EsClient}
 import asura.core.es.actor.UiTaskListenerActor
 import asura.core.job.JobCenter
 import asura.core.job.actor.SchedulerActor
 import asura.core.notify.JobNotifyManager
+import asura.core.sql.MySqlDataSources
 import asura.core.store.{BlobStoreEngine, BlobStoreEngines}
 import asura.core.{CoreConfig, SecurityConfig}
+import asura.dubbo.{DubboConfig, DubboReferenceCache}
 import asura.namerd.NamerdConfig
 import asura.ui.UiConfig
 import asura.ui.driver.UiDriverProvider
 import asura.ui.model.ChromeDriverInfo
-import com.typesafe.config.{ConfigFactory, ConfigList}
+import com.typesafe.config.{ConfigFactory, ConfigList, ConfigMemorySize, ConfigUtil}
 import javax.inject.{Inject, Singleton}
 import org.slf4j.LoggerFactory
 import play.api.Configuration
@@ -33,6 +35,7 @@ import play.api.libs.mailer.MailerClient
 
 import scala.collection.mutable.ArrayBuffer
 import scala.concurrent.Future
+import scala.concurrent.duration.FiniteDuration
 import scala.jdk.CollectionConverters._
 
 @Singleton
@@ -57,6 +60,9 @@ class ApplicationStart @Inject()(
     system.actorOf(SchedulerActor.props(toProperties(quartzCommon, defaultSchedulerConfig), toProperties(quartzCommon, systemSchedulerConfig)), "JobScheduler")
   }
   private val materializer = Materializer(system)
+  private val esBulkConfig = configuration.getOptional[Configuration]("asura.es.bulk.default")
+    .map(toEsBulkConfig(_, EsBulkConfig()))
+    .getOrElse(EsBulkConfig())
   CoreConfig.init(CoreConfig(
     system = system,
     dispatcher = system.dispatcher,
@@ -69,8 +75,51 @@ class ApplicationStart @Inject()(
     linkerdConfig = toLinkerdConfig(configuration),
     reportBaseUrl = configuration.getOptional[String]("asura.reportBaseUrl").getOrElse(""),
     onlineConfigs = toEsOnlineConfigs(configuration.getOptional[ConfigList]("asura.es.onlineLog")),
-    securityConfig = toSecurityConfig(configuration)
+    securityConfig = toSecurityConfig(configuration),
+    scriptConfig = toScriptConfig(configuration),
+    httpConfig = toHttpConfig(configuration),
+    esBulkConfig = esBulkConfig,
+    esBulkConfigs = toEsBulkConfigs(configuration, esBulkConfig),
+    sqlPoolConfig = toSqlPoolConfig(configuration),
+    executorsConfig = toExecutorsConfig(configuration),
+    assertionConfig = AssertionConfig(
+      failFast = configuration.getOptional[Boolean]("asura.assertion.failFast").getOrElse(false),
+      planCacheSize = configuration.getOptional[Int]("asura.assertion.planCacheSize").getOrElse(AssertionConfig().planCacheSize),
+    ),
+    documentCacheConfig = DocumentCacheConfig(
+      enabled = configuration.getOptional[Boolean]("asura.documents.cache.enabled").getOrElse(true),
+      maxSize = configuration.getOptional[Int]("asura.documents.cache.maxSize").getOrElse(DocumentCacheConfig().maxSize),
+      ttl = configuration.getOptional[FiniteDuration]("asura.documents.cache.ttl").getOrElse(DocumentCacheConfig().ttl),
+    ),
+    authTokenConfig = AuthTokenConfig(
+      ttl = configuration.getOptional[FiniteDuration]("asura.auth.token.ttl").getOrElse(AuthTokenConfig().ttl),
+      refreshAhead = configuration.getOptional[FiniteDuration]("asura.auth.token.refreshAhead").getOrElse(AuthTokenConfig().refreshAhead),
+      cacheSize = configuration.getOptional[Int]("asura.auth.token.cacheSize").getOrElse(AuthTokenConfig().cacheSize),
+    ),
+    loadConfig = LoadConfig(
+      maxUsers = configuration.getOptional[Int]("asura.load.maxUsers").getOrElse(LoadConfig().maxUsers),
+      maxRatePerSecond = configuration.getOptional[Int]("asura.load.maxRatePerSecond").getOrElse(LoadConfig().maxRatePerSecond),
+      maxIterations = configuration.getOptional[Int]("asura.load.maxIterations").getOrElse(LoadConfig().maxIterations),
+      maxDuration = configuration.getOptional[FiniteDuration]("asura.load.maxDuration").getOrElse(LoadConfig().maxDuration),
+      maxRunning = configuration.getOptional[Int]("asura.load.maxRunning").getOrElse(LoadConfig().maxRunning),
+      keepFinished = configuration.getOptional[FiniteDuration]("asura.load.keepFinished").getOrElse(LoadConfig().keepFinished),
+    ),
   ))
+  DubboConfig.referenceCacheSize = configuration.getOptional[Int]("asura.dubbo.reference.cacheSize")
+    .getOrElse(DubboConfig.DEFAULT_DUBBO_REF_CACHE_SIZE)
+  DubboConfig.zkProviderCacheSize = configuration.getOptional[Int]("asura.dubbo.zk.providerCacheSize")
+    .getOrElse(DubboConfig.DEFAULT_ZK_PROVIDER_CACHE_SIZE)
+  DubboConfig.invokeTimeout = configuration.getOptional[FiniteDuration]("asura.dubbo.invoke.timeout")
+    .map(_.toMillis.toInt).getOrElse(DubboConfig.DEFAULT_TIMEOUT)
+  DubboConfig.asyncInvoke = configuration.getOptional[Boolean]("asura.dubbo.invoke.async").getOrElse(true)
+  DubboConfig.maxInFlightPerProvider = configuration.getOptional[Int]("asura.dubbo.invoke.maxInFlightPerProvider")
+    .getOrElse(DubboConfig.DEFAULT_MAX_IN_FLIGHT_PER_PROVIDER)
+  DubboConfig.maxPendingPerProvider = configuration.getOptional[Int]("asura.dubbo.invoke.maxPendingPerProvider")
+    .getOrElse(DubboConfig.DEFAULT_MAX_PENDING_PER_PROVIDER)
+  DubboReferenceCache.init()
+  configuration.getOptional[Seq[String]]("asura.dubbo.reference.warmup")
+    .filter(_.nonEmpty)
+    .foreach(keys => DubboReferenceCache.warmup(keys))
   NamerdConfig.init(
     system = system,
     dispatcher = system.dispatcher,
@@ -106,7 +155,7 @@ class ApplicationStart @Inject()(
       .flatMap(name => BlobStoreEngines.get(name))
     UiConfig.init(UiConfig(
       system,
-      ExecutionContextManager.cachedExecutor,
+      ExecutionContextManager.forSubsystem(ExecutionContextManager.SUBSYSTEM_UI),
       system.actorOf(UiTaskListenerActor.props(imageStoreEngine)),
       enableLocal,
       localChrome = localChrome,
@@ -147,6 +196,9 @@ class ApplicationStart @Inject()(
        """.stripMargin)
       .withFallback(ConfigFactory.load("cluster"))
     ClusterManager.init(clusterConfig)
+    // cached documents updated by other nodes are invalidated
+    ClusterManager.subscribe(DocumentCache.TOPIC, DocumentCache.onMessage)
+    DocumentCache.broadcaster = msg => ClusterManager.publish(DocumentCache.TOPIC, msg)
   }
 
   // add stop hook
@@ -154,6 +206,7 @@ class ApplicationStart @Inject()(
     Future {
       ClusterManager.shutdown()
       EsClient.closeClient()
+      MySqlDataSources.closeAll()
     }(system.dispatcher)
   }
 
@@ -178,6 +231,97 @@ class ApplicationStart @Inject()(
     }
   }
 
+  private def toScriptConfig(configuration: Configuration): ScriptConfig = {
+    val default = ScriptConfig()
+    ScriptConfig(
+      poolSize = configuration.getOptional[Int]("asura.script.pool.size").getOrElse(default.poolSize),
+      warmup = configuration.getOptional[Int]("asura.script.pool.warmup").getOrElse(default.warmup),
+    )
+  }
+
+  private def toHttpConfig(configuration: Configuration): HttpConfig = {
+    val default = HttpConfig()
+    val hosts = configuration.getOptional[Configuration]("asura.http.pool.hosts")
+      .map(hostsConfig => {
+        // keys like `proxy:default` or `api.example.com` should not be treated as paths
+        hostsConfig.underlying.root().keySet().asScala.map(key => {
+          key -> toHttpPoolConfig(Configuration(hostsConfig.underlying.getConfig(ConfigUtil.joinPath(key))))
+        }).toMap
+      })
+      .getOrElse(default.pools)
+    HttpConfig(
+      maxBodySize = configuration.getOptional[ConfigMemorySize]("asura.http.maxBodySize").map(_.toBytes).getOrElse(default.maxBodySize),
+      defaultPool = configuration.getOptional[Configuration]("asura.http.pool.default").map(toHttpPoolConfig).getOrElse(default.defaultPool),
+      pools = hosts,
+    )
+  }
+
+  private def toEsBulkConfig(configuration: Configuration, default: EsBulkConfig): EsBulkConfig = {
+    EsBulkConfig(
+      maxActions = configuration.getOptional[Int]("maxActions").getOrElse(default.maxActions),
+      maxBytes = configuration.getOptional[ConfigMemorySize]("maxBytes").map(_.toBytes).getOrElse(default.maxBytes),
+      flushInterval = configuration.getOptional[FiniteDuration]("flushInterval").getOrElse(default.flushInterval),
+      maxInFlight = configuration.getOptional[Int]("maxInFlight").getOrElse(default.maxInFlight),
+      maxRetries = configuration.getOptional[Int]("maxRetries").getOrElse(default.maxRetries),
+      retryBackoff = configuration.getOptional[FiniteDuration]("retryBackoff").getOrElse(default.retryBackoff),
+      maxBuffered = configuration.getOptional[Int]("maxBuffered").getOrElse(default.maxBuffered),
+    )
+  }
+
+  // values of the named configs fallback to the default one
+  private def toEsBulkConfigs(configuration: Configuration, default: EsBulkConfig): Map[String, EsBulkConfig] = {
+    configuration.getOptional[Configuration]("asura.es.bulk")
+      .map(bulkConfig => {
+        bulkConfig.subKeys.filter(_ != "default").map(name => {
+          name -> toEsBulkConfig(bulkConfig.get[Configuration](name), default)
+        }).toMap
+      })
+      .getOrElse(Map.empty)
+  }
+
+  private def toSqlPoolConfig(configuration: Configuration): SqlPoolConfig = {
+    val default = SqlPoolConfig()
+    SqlPoolConfig(
+      maxPools = configuration.getOptional[Int]("asura.sql.pool.maxPools").getOrElse(default.maxPools),
+      minIdle = configuration.getOptional[Int]("asura.sql.pool.minIdle").getOrElse(default.minIdle),
+      maxActive = configuration.getOptional[Int]("asura.sql.pool.maxActive").getOrElse(default.maxActive),
+      maxWait = configuration.getOptional[FiniteDuration]("asura.sql.pool.maxWait").getOrElse(default.maxWait),
+      idleTimeout = configuration.getOptional[FiniteDuration]("asura.sql.pool.idleTimeout").getOrElse(default.idleTimeout),
+      validationInterval = configuration.getOptional[FiniteDuration]("asura.sql.pool.validationInterval").getOrElse(default.validationInterval),
+      preparedStatementCacheSize = configuration.getOptional[Int]("asura.sql.pool.preparedStatementCacheSize").getOrElse(default.preparedStatementCacheSize),
+    )
+  }
+
+  private def toExecutorsConfig(configuration: Configuration): ExecutorsConfig = {
+    val pools = configuration.getOptional[Configuration]("asura.executors.pools")
+      .map(poolsConfig => {
+        poolsConfig.subKeys.map(name => {
+          val poolConfig = poolsConfig.get[Configuration](name)
+          val default = ExecutionContextManager.DEFAULT_POOLS.getOrElse(name, ExecutorPoolConfig())
+          name -> ExecutorPoolConfig(
+            forkJoin = poolConfig.getOptional[Boolean]("forkJoin").getOrElse(default.forkJoin),
+            threads = poolConfig.getOptional[Int]("threads").getOrElse(default.threads),
+            queueSize = poolConfig.getOptional[Int]("queueSize").getOrElse(default.queueSize),
+            keepAlive = poolConfig.getOptional[FiniteDuration]("keepAlive").getOrElse(default.keepAlive),
+            virtual = poolConfig.getOptional[Boolean]("virtual").getOrElse(default.virtual),
+          )
+        }).toMap
+      })
+      .getOrElse(Map.empty)
+    val subsystems = configuration.getOptional[Map[String, String]]("asura.executors.subsystems").getOrElse(Map.empty)
+    ExecutorsConfig(pools, subsystems)
+  }
+
+  private def toHttpPoolConfig(configuration: Configuration): HttpPoolConfig = {
+    HttpPoolConfig(
+      maxConnections = configuration.getOptional[Int]("maxConnections"),
+      maxOpenRequests = configuration.getOptional[Int]("maxOpenRequests"),
+      pipeliningLimit = configuration.getOptional[Int]("pipeliningLimit"),
+      idleTimeout = configuration.getOptional[FiniteDuration]("idleTimeout"),
+      keepAliveTimeout = configuration.getOptional[FiniteDuration]("keepAliveTimeout"),
+    )
+  }
+
   private def toLinkerdConfig(configuration: Configuration): LinkerdConfig = {
     var enabled = configuration.getOptional[Boolean]("asura.linkerd.enabled").getOrElse(false)
     if (enabled) {
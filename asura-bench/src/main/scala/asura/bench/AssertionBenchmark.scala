@@ -0,0 +1,41 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import asura.core.assertion.engine.{AssertionContext, AssertionPlan, Statistic}
+import org.openjdk.jmh.annotations._
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class AssertionBenchmark {
+
+  var context: java.util.Map[Any, Any] = _
+  var plan: AssertionPlan = _
+
+  @Setup
+  def setup(): Unit = {
+    context = BenchData.context().rawContext
+    plan = AssertionPlan.compile(BenchData.ASSERT)
+  }
+
+  /** compiled on each call */
+  @Benchmark
+  def eval(): Any = {
+    Await.result(AssertionContext.eval(BenchData.ASSERT, context, Statistic()), 10.seconds)
+  }
+
+  /** the cached plan of a document, as the steps do */
+  @Benchmark
+  def evalCachedPlan(): Any = {
+    Await.result(AssertionPlan.get("bench", BenchData.ASSERT).eval(context, Statistic()), 10.seconds)
+  }
+
+  @Benchmark
+  def evalSync(): Any = {
+    plan.evalSync(context, Statistic())
+  }
+}
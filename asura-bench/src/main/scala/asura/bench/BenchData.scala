@@ -0,0 +1,78 @@
+package asura.bench
+
+import java.nio.charset.StandardCharsets
+import java.util
+
+import akka.actor.ActorSystem
+import akka.stream.Materializer
+import asura.core.CoreConfig
+import asura.core.runtime.RuntimeContext
+import asura.core.util.JsonPathUtils
+
+/** data shaped like the steps of real scenarios, shared by the benchmarks */
+object BenchData {
+
+  val ENTITY: String = {
+    val items = (1 to 20).map(i =>
+      s"""{"id":${i},"name":"user-${i}","email":"user-${i}@example.com","age":${20 + i},"tags":["a","b","c"],"active":${i % 2 == 0}}"""
+    )
+    s"""{"code":"0","msg":"ok","data":{"total":${items.size},"page":1,"list":[${items.mkString(",")}]}}"""
+  }
+  val ENTITY_BYTES: Array[Byte] = ENTITY.getBytes(StandardCharsets.UTF_8)
+
+  val TEMPLATE: String =
+    """{
+      |  "token": "{{$._s.token}}",
+      |  "user": "{{$._j.user}}",
+      |  "first": {{$.entity.data.list[0].id}},
+      |  "total": {{$.entity.data.total}},
+      |  "env": "{{$._env.host}}"
+      |}""".stripMargin
+
+  val ASSERT: Map[String, Any] = Map(
+    "$.status" -> Map("$eq" -> 200),
+    "$.entity.code" -> Map("$eq" -> "0", "$in" -> Seq("0", "1")),
+    "$.entity.msg" -> Map("$regex" -> "^ok$"),
+    "$.entity.data.total" -> Map("$gt" -> 10, "$lte" -> 1000),
+    "$.entity.data.list" -> Map("$size" -> 20, "$is-empty" -> false),
+    "$and" -> Seq(
+      Map("$.entity.data.list[0].id" -> Map("$eq" -> 1)),
+      Map("$.entity.data.list[0].name" -> Map("$ne" -> "none")),
+    ),
+    "$or" -> Seq(
+      Map("$.entity.data.page" -> Map("$eq" -> 1)),
+      Map("$.entity.data.page" -> Map("$gt" -> 1)),
+    ),
+    "$.entity.data.list[19]" -> Map("$not" -> Map("$.age" -> Map("$lt" -> 18))),
+  )
+
+  /** a context after an http step, with the scopes of a job */
+  def context(): RuntimeContext = {
+    val context = RuntimeContext()
+    context.putValueToScope("token", "4a1f6c8e-2b7d-4c3e-9f0a-5d6e7f8a9b0c", RuntimeContext.KEY__S)
+    context.putValueToScope("user", "bench", RuntimeContext.KEY__J)
+    context.putValueToScope("host", "127.0.0.1", RuntimeContext.KEY__ENV)
+    context.setCurrentStatus(200)
+    context.setCurrentEntity(JsonPathUtils.parse(ENTITY))
+    context
+  }
+
+  def javaMap(entries: (String, Any)*): util.Map[String, Any] = {
+    val map = new util.HashMap[String, Any]()
+    entries.foreach(kv => map.put(kv._1, kv._2))
+    map
+  }
+
+  /**
+   * The parts of `CoreConfig.init` which the runners need, without elasticsearch. It is shared by
+   * all the benchmarks of a fork and is terminated once by the coordinated shutdown of akka when
+   * the fork exits, so a benchmark should not terminate it.
+   */
+  lazy val system: ActorSystem = {
+    val system = ActorSystem("bench")
+    CoreConfig.system = system
+    CoreConfig.dispatcher = system.dispatcher
+    CoreConfig.materializer = Materializer(system)
+    system
+  }
+}
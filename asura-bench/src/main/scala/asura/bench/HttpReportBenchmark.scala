@@ -0,0 +1,38 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import akka.http.scaladsl.model.{ContentTypes, HttpEntity, HttpResponse}
+import akka.util.ByteString
+import asura.core.assertion.engine.HttpResponseAssert
+import asura.core.http.{HttpResponseBody, HttpResult, RenderedHttpRequest}
+import asura.core.runtime.RuntimeContext
+import org.openjdk.jmh.annotations._
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+@State(Scope.Thread)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class HttpReportBenchmark {
+
+  var context: RuntimeContext = _
+  var response: HttpResponse = _
+  var body: HttpResponseBody = _
+  var request: RenderedHttpRequest = _
+
+  @Setup
+  def setup(): Unit = {
+    context = BenchData.context()
+    val bytes = ByteString(BenchData.ENTITY_BYTES)
+    response = HttpResponse(entity = HttpEntity(ContentTypes.`application/json`, bytes))
+    body = HttpResponseBody(bytes, bytes.length, truncated = false)
+    request = RenderedHttpRequest("GET", "http://127.0.0.1/api/users?page=1")
+  }
+
+  @Benchmark
+  def generateHttpReport(): HttpResult = {
+    Await.result(HttpResponseAssert.generateHttpReport("bench", BenchData.ASSERT, response, body, request, context), 10.seconds)
+  }
+}
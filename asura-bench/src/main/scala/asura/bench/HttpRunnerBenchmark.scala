@@ -0,0 +1,69 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.model.{ContentTypes, HttpEntity}
+import akka.http.scaladsl.server.Directives._
+import akka.http.scaladsl.server.Route
+import asura.core.CoreConfig
+import asura.core.es.model.{HttpStepRequest, KeyValueObject, Request}
+import asura.core.http.{HttpResult, HttpRunner}
+import asura.core.runtime.RuntimeContext
+import org.openjdk.jmh.annotations._
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+/**
+ * A step from rendering the request to the report, against a local stub server so the latency of
+ * a remote server is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+class HttpRunnerBenchmark {
+
+  var binding: Http.ServerBinding = _
+  var step: HttpStepRequest = _
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    implicit val system = BenchData.system
+    implicit val materializer = CoreConfig.materializer
+    val entity = HttpEntity(ContentTypes.`application/json`, BenchData.ENTITY_BYTES)
+    val route: Route = path("api" / "users") {
+      get {
+        complete(entity)
+      }
+    }
+    binding = Await.result(Http().bindAndHandle(route, "127.0.0.1", 0), 10.seconds)
+    val request = Request(
+      protocol = "http",
+      host = "127.0.0.1",
+      rawUrl = null,
+      urlPath = "/api/users",
+      port = binding.localAddress.getPort,
+      method = "GET",
+      path = Nil,
+      query = Seq(KeyValueObject("page", "1")),
+      header = Seq(KeyValueObject("X-Token", "{{$._s.token}}")),
+      cookie = Nil,
+      contentType = null,
+      body = Nil,
+    )
+    step = HttpStepRequest("bench", null, "bench", "bench", request, BenchData.ASSERT)
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    // the system is shared by the benchmarks of the fork, see `BenchData.system`
+    Await.result(binding.unbind(), 10.seconds)
+  }
+
+  @Benchmark
+  def test(): HttpResult = {
+    val context = RuntimeContext().putValueToScope("token", "4a1f6c8e-2b7d-4c3e-9f0a-5d6e7f8a9b0c", RuntimeContext.KEY__S)
+    Await.result(HttpRunner.test("bench", step, context), 10.seconds)
+  }
+}
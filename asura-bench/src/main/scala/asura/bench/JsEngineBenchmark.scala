@@ -0,0 +1,40 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import asura.core.script.JsEngine
+import org.graalvm.polyglot.Source
+import org.openjdk.jmh.annotations._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class JsEngineBenchmark {
+
+  // like the scripts of `$script` asserts and the conditions of steps
+  val SCRIPT = "status >= 200 && status < 300 && token.length == 36 && user.startsWith('b')"
+  var source: Source = _
+  var bindings: java.util.Map[String, Any] = _
+
+  @Setup
+  def setup(): Unit = {
+    JsEngine.init(Runtime.getRuntime.availableProcessors(), 1)
+    source = JsEngine.parse(SCRIPT)
+    bindings = BenchData.javaMap("status" -> 200, "token" -> "4a1f6c8e-2b7d-4c3e-9f0a-5d6e7f8a9b0c", "user" -> "bench")
+  }
+
+  @Benchmark
+  def eval(): Any = {
+    JsEngine.eval(SCRIPT, bindings)
+  }
+
+  @Benchmark
+  def evalSource(): Any = {
+    JsEngine.eval(source, bindings)
+  }
+
+  @Benchmark
+  def evalSimple(): Any = {
+    JsEngine.eval("1 + 2", null)
+  }
+}
@@ -0,0 +1,42 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import asura.core.util.JsonPathUtils
+import com.jayway.jsonpath.JsonPath
+import org.openjdk.jmh.annotations._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class JsonPathBenchmark {
+
+  var doc: Object = _
+  var path: JsonPath = _
+
+  @Setup
+  def setup(): Unit = {
+    doc = JsonPathUtils.parse(BenchData.ENTITY)
+    path = JsonPathUtils.compile("$.data.total")
+  }
+
+  @Benchmark
+  def parse(): Object = {
+    JsonPathUtils.parse(BenchData.ENTITY)
+  }
+
+  @Benchmark
+  def readField(): Object = {
+    JsonPathUtils.read[Object](doc, "$.data.total")
+  }
+
+  @Benchmark
+  def readCompiled(): Object = {
+    JsonPathUtils.read[Object](doc, path)
+  }
+
+  @Benchmark
+  def readFilter(): Object = {
+    JsonPathUtils.read[Object](doc, "$.data.list[?(@.age > 30)].name")
+  }
+}
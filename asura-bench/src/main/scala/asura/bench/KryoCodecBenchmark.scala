@@ -0,0 +1,45 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import asura.common.codec.KryoCodec
+import asura.ui.message.IndigoMessage
+import asura.ui.message.wd.HttpRequest
+import org.openjdk.jmh.annotations._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class KryoCodecBenchmark {
+
+  var message: IndigoMessage = _
+  var bytes: Array[Byte] = _
+
+  @Setup
+  def setup(): Unit = {
+    val req = new HttpRequest()
+    req.method = "POST"
+    req.uri = "/session/4a1f6c8e/element"
+    req.body = BenchData.ENTITY
+    req.data = new java.util.HashMap[String, Object]()
+    req.data.put("using", "css selector")
+    req.data.put("value", "#login > button.primary")
+    message = IndigoMessage.ofRequest(1, req)
+    bytes = KryoCodec.toBytes(message)
+  }
+
+  @Benchmark
+  def toBytes(): Array[Byte] = {
+    KryoCodec.toBytes(message)
+  }
+
+  @Benchmark
+  def fromBytes(): IndigoMessage = {
+    KryoCodec.fromBytes(bytes, classOf[IndigoMessage])
+  }
+
+  @Benchmark
+  def roundTrip(): IndigoMessage = {
+    KryoCodec.fromBytes(KryoCodec.toBytes(message), classOf[IndigoMessage])
+  }
+}
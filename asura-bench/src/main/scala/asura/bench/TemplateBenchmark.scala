@@ -0,0 +1,34 @@
+package asura.bench
+
+import java.util.concurrent.TimeUnit
+
+import asura.core.runtime.RuntimeContext
+import org.openjdk.jmh.annotations._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class TemplateBenchmark {
+
+  var context: RuntimeContext = _
+
+  @Setup
+  def setup(): Unit = {
+    context = BenchData.context()
+  }
+
+  @Benchmark
+  def renderSingleMacro(): Any = {
+    RuntimeContext.renderSingleMacro("{{$._s.token}}", context.rawContext)
+  }
+
+  @Benchmark
+  def renderTemplate(): String = {
+    RuntimeContext.renderTemplate(BenchData.TEMPLATE, context.rawContext)
+  }
+
+  @Benchmark
+  def snapshot(): Any = {
+    context.snapshot()
+  }
+}
@@ -1,7 +1,9 @@
 package asura.cluster
 
 import akka.actor.{ActorRef, ActorSystem}
-import asura.cluster.actor.MemberListenerActor
+import akka.cluster.pubsub.DistributedPubSub
+import akka.cluster.pubsub.DistributedPubSubMediator.Publish
+import asura.cluster.actor.{MemberListenerActor, TopicSubscriberActor}
 import com.typesafe.config.{Config, ConfigFactory}
 
 object ClusterManager {
@@ -26,6 +28,15 @@ object ClusterManager {
     clusterManagerActor = system.actorOf(MemberListenerActor.props())
   }
 
+  /** publish a string message to all the subscribers of the topic in the cluster */
+  def publish(topic: String, msg: String): Unit = {
+    if (enabled) DistributedPubSub(system).mediator ! Publish(topic, msg)
+  }
+
+  def subscribe(topic: String, handler: String => Unit): ActorRef = {
+    system.actorOf(TopicSubscriberActor.props(topic, handler))
+  }
+
   def shutdown(): Unit = {
     if (null != system && !isIndependentSystem) system.terminate()
   }
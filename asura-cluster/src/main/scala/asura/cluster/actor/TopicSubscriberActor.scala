@@ -0,0 +1,34 @@
+package asura.cluster.actor
+
+import akka.actor.Props
+import akka.cluster.pubsub.DistributedPubSub
+import akka.cluster.pubsub.DistributedPubSubMediator.{Subscribe, SubscribeAck, Unsubscribe}
+import asura.common.actor.BaseActor
+import asura.common.util.LogUtils
+
+/** passes the string messages of a topic to the handler, messages published by this node are included */
+class TopicSubscriberActor(topic: String, handler: String => Unit) extends BaseActor {
+
+  val mediator = DistributedPubSub(context.system).mediator
+
+  override def preStart(): Unit = {
+    mediator ! Subscribe(topic, self)
+  }
+
+  override def postStop(): Unit = {
+    mediator ! Unsubscribe(topic, self)
+  }
+
+  override def receive: Receive = {
+    case msg: String =>
+      try handler(msg) catch {
+        case t: Throwable => log.warning(LogUtils.stackTraceToString(t))
+      }
+    case SubscribeAck(_) =>
+      log.debug("subscribed to {}", topic)
+  }
+}
+
+object TopicSubscriberActor {
+  def props(topic: String, handler: String => Unit) = Props(new TopicSubscriberActor(topic, handler))
+}
@@ -0,0 +1,26 @@
+package asura.common.metrics
+
+import com.github.benmanes.caffeine.cache.Cache
+
+case class CacheMetrics(
+                         size: Long,
+                         hits: Long,
+                         misses: Long,
+                         hitRate: Double,
+                         evictions: Long,
+                       )
+
+object CacheMetrics {
+
+  /** the cache should be built with `recordStats()` */
+  def apply(cache: Cache[_, _]): CacheMetrics = {
+    val stats = cache.stats()
+    CacheMetrics(
+      size = cache.estimatedSize(),
+      hits = stats.hitCount(),
+      misses = stats.missCount(),
+      hitRate = stats.hitRate(),
+      evictions = stats.evictionCount(),
+    )
+  }
+}
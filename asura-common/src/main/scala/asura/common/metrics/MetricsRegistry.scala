@@ -0,0 +1,36 @@
+package asura.common.metrics
+
+import java.util
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A tiny registry of named gauges. Components register a function which returns a snapshot
+ * of their current statistics, e.g. pool size or cache hit rate, and the values are only
+ * computed when a snapshot is requested.
+ */
+object MetricsRegistry {
+
+  private val gauges = new ConcurrentHashMap[String, () => Any]()
+
+  def register(name: String, gauge: () => Any): Unit = {
+    gauges.put(name, gauge)
+  }
+
+  def unregister(name: String): Unit = {
+    gauges.remove(name)
+  }
+
+  /** sorted by name */
+  def snapshot(): util.Map[String, Any] = {
+    val result = new util.TreeMap[String, Any]()
+    gauges.forEach((name, gauge) => {
+      val value = try {
+        gauge()
+      } catch {
+        case t: Throwable => t.getMessage
+      }
+      result.put(name, value)
+    })
+    result
+  }
+}
@@ -4,8 +4,15 @@ import akka.actor.ActorSystem
 import akka.stream.Materializer
 import akka.util.Timeout
 import asura.common.util.StringUtils
-import asura.core.CoreConfig.{EsOnlineLogConfig, LinkerdConfig}
-import asura.core.es.{EsClient, EsConfig}
+import asura.core.CoreConfig.{AssertionConfig, AuthTokenConfig, DocumentCacheConfig, EsBulkConfig, EsOnlineLogConfig, ExecutorsConfig, HttpConfig, LinkerdConfig, LoadConfig, ScriptConfig, SqlPoolConfig}
+import asura.core.assertion.engine.AssertionPlan
+import asura.core.auth.AuthTokenCache
+import asura.core.concurrent.ExecutionContextManager
+import asura.core.es.{DocumentCache, EsClient, EsConfig}
+import asura.core.http.HttpResponseBody
+import asura.core.script.JsEngine
+import asura.core.sql.{MySqlDataSources, SqlConfig}
+import asura.dubbo.DubboConfig
 import com.sksamuel.elastic4s.http.ElasticClient
 
 import scala.concurrent.ExecutionContext
@@ -24,6 +31,16 @@ case class CoreConfig(
                        reportBaseUrl: String = StringUtils.EMPTY,
                        onlineConfigs: Seq[EsOnlineLogConfig] = Nil,
                        securityConfig: SecurityConfig = SecurityConfig(),
+                       scriptConfig: ScriptConfig = ScriptConfig(),
+                       httpConfig: HttpConfig = HttpConfig(),
+                       esBulkConfig: EsBulkConfig = EsBulkConfig(),
+                       esBulkConfigs: Map[String, EsBulkConfig] = Map.empty,
+                       sqlPoolConfig: SqlPoolConfig = SqlPoolConfig(),
+                       executorsConfig: ExecutorsConfig = ExecutorsConfig(),
+                       assertionConfig: AssertionConfig = AssertionConfig(),
+                       documentCacheConfig: DocumentCacheConfig = DocumentCacheConfig(),
+                       authTokenConfig: AuthTokenConfig = AuthTokenConfig(),
+                       loadConfig: LoadConfig = LoadConfig(),
                      )
 
 object CoreConfig {
@@ -37,12 +54,34 @@ object CoreConfig {
   var reportBaseUrl: String = StringUtils.EMPTY
   var linkerdConfig: LinkerdConfig = _
   var securityConfig: SecurityConfig = _
+  var httpConfig: HttpConfig = HttpConfig()
+  var esBulkConfig: EsBulkConfig = EsBulkConfig()
+  var esBulkConfigs: Map[String, EsBulkConfig] = Map.empty
+  var sqlPoolConfig: SqlPoolConfig = SqlPoolConfig()
+  var assertionConfig: AssertionConfig = AssertionConfig()
+  var documentCacheConfig: DocumentCacheConfig = DocumentCacheConfig()
+  var authTokenConfig: AuthTokenConfig = AuthTokenConfig()
+  var loadConfig: LoadConfig = LoadConfig()
 
   def init(config: CoreConfig): Unit = {
+    ExecutionContextManager.init(config.executorsConfig)
+    DubboConfig.init(ExecutionContextManager.forSubsystem(ExecutionContextManager.SUBSYSTEM_DUBBO))
     system = config.system
     dispatcher = config.dispatcher
     materializer = config.materializer
     CoreConfig.securityConfig = config.securityConfig
+    CoreConfig.httpConfig = config.httpConfig
+    CoreConfig.esBulkConfig = config.esBulkConfig
+    CoreConfig.esBulkConfigs = config.esBulkConfigs
+    CoreConfig.sqlPoolConfig = config.sqlPoolConfig
+    MySqlDataSources.init()
+    CoreConfig.assertionConfig = config.assertionConfig
+    AssertionPlan.init()
+    CoreConfig.documentCacheConfig = config.documentCacheConfig
+    DocumentCache.init()
+    CoreConfig.authTokenConfig = config.authTokenConfig
+    AuthTokenCache.init()
+    CoreConfig.loadConfig = config.loadConfig
     // RedisClient.init(config.redisServers)
     CoreConfig.linkerdConfig = config.linkerdConfig
     CoreConfig.reportBaseUrl = config.reportBaseUrl
@@ -51,9 +90,13 @@ object CoreConfig {
     }
     EsClient.init(config.esUrl, config.esUsername, config.esPassword)
     EsClient.initOnlineLogClient(config.onlineConfigs)
+    JsEngine.init(config.scriptConfig.poolSize, config.scriptConfig.warmup)
     RunnerActors.init(system)
   }
 
+  /** config of the bulk indexer with the name, or the default one */
+  def getEsBulkConfig(name: String): EsBulkConfig = esBulkConfigs.getOrElse(name, esBulkConfig)
+
   case class EsOnlineLogConfig(
                                 tag: String,
                                 url: String,
@@ -86,4 +129,143 @@ object CoreConfig {
                                   httpNs: String,
                                 )
 
+  case class ScriptConfig(
+                           poolSize: Int = JsEngine.DEFAULT_POOL_SIZE,
+                           warmup: Int = 0,
+                         )
+
+  /**
+   * @param failFast      the rest assertions of a step are not evaluated once one fails, if the
+   *                      scenario stops at the first failed step. The report of the step is partial.
+   * @param planCacheSize max compiled asserts of documents
+   */
+  case class AssertionConfig(
+                              failFast: Boolean = false,
+                              planCacheSize: Int = 2000,
+                            )
+
+  /**
+   * @param maxSize max documents of each cache
+   * @param ttl     documents are reloaded after it even if they are not invalidated
+   */
+  case class DocumentCacheConfig(
+                                  enabled: Boolean = true,
+                                  maxSize: Int = 5000,
+                                  ttl: FiniteDuration = 10.minutes,
+                                )
+
+  /**
+   * @param ttl          max lifetime of a token, a shorter `expiresIn` of the token is used first
+   * @param refreshAhead a token is fetched again in background this long before it expires
+   * @param cacheSize    max tokens of all the environments
+   */
+  case class AuthTokenConfig(
+                              ttl: FiniteDuration = 30.minutes,
+                              refreshAhead: FiniteDuration = 1.minute,
+                              cacheSize: Int = 1000,
+                            )
+
+  /**
+   * Limits of load runs, the options out of them are rejected.
+   *
+   * @param maxDuration  a run is stopped after this time even if its own duration is longer or not set
+   * @param maxRunning   runs at the same time on one node
+   * @param keepFinished reports of finished runs are kept this long
+   */
+  case class LoadConfig(
+                         maxUsers: Int = 1000,
+                         maxRatePerSecond: Int = 1000,
+                         maxIterations: Int = 1000000,
+                         maxDuration: FiniteDuration = 1.hour,
+                         maxRunning: Int = 2,
+                         keepFinished: FiniteDuration = 1.hour,
+                       )
+
+  /**
+   * @param maxBodySize response body larger than this will be truncated, `0` means no limit
+   * @param defaultPool pool config of the hosts which are not in `pools`
+   * @param pools       keys are `host:port`, `host` or `proxy:tag` of linkerd servers
+   */
+  case class HttpConfig(
+                         maxBodySize: Long = HttpResponseBody.DEFAULT_MAX_BODY_SIZE,
+                         defaultPool: HttpPoolConfig = HttpPoolConfig(),
+                         pools: Map[String, HttpPoolConfig] = Map.empty,
+                       )
+
+  /**
+   * `None` means use the value of `akka.http.host-connection-pool`
+   *
+   * @param idleTimeout      the pool will be shutdown after idle for this time
+   * @param keepAliveTimeout a kept alive connection will be closed after idle for this time
+   */
+  case class HttpPoolConfig(
+                             maxConnections: Option[Int] = None,
+                             maxOpenRequests: Option[Int] = None,
+                             pipeliningLimit: Option[Int] = None,
+                             idleTimeout: Option[FiniteDuration] = None,
+                             keepAliveTimeout: Option[FiniteDuration] = None,
+                           )
+
+  /**
+   * @param maxActions    max documents in one bulk request
+   * @param maxBytes      max bytes of the documents in one bulk request
+   * @param flushInterval buffered documents are sent after this time even if the bulk is not full
+   * @param maxInFlight   max bulk requests which are not responded, others wait in the buffer
+   * @param maxRetries    retries of the documents rejected by es, e.g. the write queue is full
+   * @param retryBackoff  wait time before the first retry, it grows with the retries
+   * @param maxBuffered   documents are dropped when the buffer is full
+   */
+  case class EsBulkConfig(
+                           maxActions: Int = 500,
+                           maxBytes: Long = 5L * 1024 * 1024,
+                           flushInterval: FiniteDuration = 2.seconds,
+                           maxInFlight: Int = 2,
+                           maxRetries: Int = 3,
+                           retryBackoff: FiniteDuration = 500.millis,
+                           maxBuffered: Int = 100000,
+                         )
+
+  /**
+   * Pool config of each sql datasource.
+   *
+   * @param maxPools           the least recently used pool is closed when there are more datasources
+   * @param maxWait            max time of waiting for a connection when all connections are in use
+   * @param idleTimeout        idle connections more than `minIdle` are closed after idle for this time
+   * @param validationInterval interval of evicting idle connections, a connection idle longer than this
+   *                           is validated before used
+   * @param preparedStatementCacheSize max cached prepared statements of each connection, `0` means no cache
+   */
+  case class SqlPoolConfig(
+                            maxPools: Int = SqlConfig.DEFAULT_MYSQL_CONNECTOR_CACHE_SIZE,
+                            minIdle: Int = 0,
+                            maxActive: Int = 8,
+                            maxWait: FiniteDuration = 10.seconds,
+                            idleTimeout: FiniteDuration = 5.minutes,
+                            validationInterval: FiniteDuration = 30.seconds,
+                            preparedStatementCacheSize: Int = 50,
+                          )
+
+  /**
+   * @param pools      pools by names, the pools `cpu`, `blocking` and `script` have default configs
+   * @param subsystems pool names of the subsystems, see `ExecutionContextManager.DEFAULT_SUBSYSTEMS`
+   */
+  case class ExecutorsConfig(
+                              pools: Map[String, ExecutorPoolConfig] = Map.empty,
+                              subsystems: Map[String, String] = Map.empty,
+                            )
+
+  /**
+   * @param threads   `0` means the number of processors
+   * @param queueSize tasks run in the caller thread when the queue is full, not used by fork join pools
+   * @param keepAlive idle threads are stopped after this time, not used by fork join pools
+   * @param virtual   a virtual thread for each task if supported by the jvm, other values are not used then
+   */
+  case class ExecutorPoolConfig(
+                                 forkJoin: Boolean = false,
+                                 threads: Int = 0,
+                                 queueSize: Int = 10000,
+                                 keepAlive: FiniteDuration = 60.seconds,
+                                 virtual: Boolean = false,
+                               )
+
 }
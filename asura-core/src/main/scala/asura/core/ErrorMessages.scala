@@ -44,6 +44,7 @@ object ErrorMessages extends CommonErrorMessages {
   val error_InvalidParams = ErrorMessage("Invalid params")("error_InvalidParams")
   val error_EmptyProtocol = ErrorMessage("Empty protocol")("error_EmptyProtocol")
   val error_EmptyHost = ErrorMessage("Empty host")("error_EmptyHost")
+  val error_TooManyLoadRuns = ErrorMessage("Too many load runs at the same time")("error_TooManyLoadRuns")
 
   def error_EsRequestFail(response: Response[_]) = ErrorMessage(response.error.reason)("error_EsRequestFail")
 
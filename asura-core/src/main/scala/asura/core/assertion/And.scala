@@ -1,12 +1,12 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.{AssertResult, AssertionContext, FailAssertResult, Statistic}
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.assertion.engine.{AssertResult, AssertionContext, AssertionPlan, FailAssertResult, Statistic}
+import asura.core.concurrent.ExecutionContextManager.assertionExecutor
 
 import scala.collection.mutable.ArrayBuffer
 import scala.concurrent.Future
 
-case class And() extends Assertion {
+case class And() extends SyncAssertion {
 
   override val name: String = Assertions.AND
 
@@ -14,39 +14,25 @@ case class And() extends Assertion {
     And.apply(actual, expect)
   }
 
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    And.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = AssertionPlan.compileAll(expect)
+
 }
 
 object And {
 
   def apply(actual: Any, expect: Any): Future[AssertResult] = {
-    val result = AssertResult(
-      isSuccessful = true,
-      msg = AssertResult.MSG_PASSED
-    )
     expect match {
       case assertions: Seq[_] =>
         if (assertions.nonEmpty) {
           val assertionResults = assertions.map(assertion => {
             val subStatis = Statistic()
-            val assertionMap = assertion.asInstanceOf[Map[String, Any]]
-            val contextMap = actual.asInstanceOf[Object]
-            AssertionContext.eval(assertionMap, contextMap, subStatis).map((subStatis, _))
-          })
-          Future.sequence(assertionResults).map(subStatisResults => {
-            val subResults = ArrayBuffer[java.util.Map[String, Any]]()
-            result.subResult = subResults
-            subStatisResults.foreach(subStatisResult => {
-              val (subStatis, subResult) = subStatisResult
-              subResults += subResult
-              result.pass(subStatis.passed)
-              result.fail(subStatis.failed)
-              if (!subStatis.isSuccessful) {
-                result.isSuccessful = false
-                result.msg = AssertResult.MSG_FAILED
-              }
-            })
-            result
+            AssertionContext.evalSub(assertion, actual.asInstanceOf[Object], subStatis).map((subStatis, _))
           })
+          Future.sequence(assertionResults).map(combine)
         } else {
           Future.successful(null)
         }
@@ -55,4 +41,40 @@ object And {
     }
   }
 
+  def applySync(actual: Any, expect: Any): AssertResult = {
+    expect match {
+      case assertions: Seq[_] =>
+        if (assertions.nonEmpty) {
+          combine(assertions.map(assertion => {
+            val subStatis = Statistic()
+            (subStatis, AssertionContext.evalSubSync(assertion, actual.asInstanceOf[Object], subStatis))
+          }))
+        } else {
+          null
+        }
+      case _ =>
+        FailAssertResult(1, AssertResult.msgIncomparableTargetType(expect))
+    }
+  }
+
+  private def combine(subStatisResults: Seq[(Statistic, java.util.Map[String, Any])]): AssertResult = {
+    val result = AssertResult(
+      isSuccessful = true,
+      msg = AssertResult.MSG_PASSED
+    )
+    val subResults = ArrayBuffer[java.util.Map[String, Any]]()
+    result.subResult = subResults
+    subStatisResults.foreach(subStatisResult => {
+      val (subStatis, subResult) = subStatisResult
+      subResults += subResult
+      result.pass(subStatis.passed)
+      result.fail(subStatis.failed)
+      if (!subStatis.isSuccessful) {
+        result.isSuccessful = false
+        result.msg = AssertResult.MSG_FAILED
+      }
+    })
+    result
+  }
+
 }
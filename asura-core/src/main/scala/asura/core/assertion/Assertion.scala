@@ -17,4 +17,18 @@ trait Assertion {
    * @return
    */
   def assert(actual: Any, expect: Any): Future[AssertResult]
+
+  /** prepare the expect value once when the assert is compiled, the result is passed to `assert` */
+  def compile(expect: Any): Any = expect
+}
+
+/**
+ * An assertion whose result can be computed without a future. Assertions which are not sync,
+ * e.g. `$script` or assertions of plugins, make the whole assert evaluated asynchronously.
+ */
+trait SyncAssertion extends Assertion {
+
+  override def assert(actual: Any, expect: Any): Future[AssertResult] = Future.successful(assertSync(actual, expect))
+
+  def assertSync(actual: Any, expect: Any): AssertResult
 }
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class Eq() extends Assertion {
+case class Eq() extends SyncAssertion {
 
   override val name: String = Assertions.EQ
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Eq.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Eq.apply(actual, expect)
   }
 }
 
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.AssertResult
 
-import scala.concurrent.Future
-
-case class Gt() extends Assertion {
+case class Gt() extends SyncAssertion {
 
   override val name: String = Assertions.GT
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Gt.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Gt.apply(actual, expect)
   }
 }
 
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.AssertResult
 
-import scala.concurrent.Future
-
-case class Gte() extends Assertion {
+case class Gte() extends SyncAssertion {
 
   override val name: String = Assertions.GTE
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Gte.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Gte.apply(actual, expect)
   }
 
 }
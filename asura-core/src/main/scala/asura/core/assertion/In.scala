@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.AssertResult
 
-import scala.concurrent.Future
-
-case class In() extends Assertion {
+case class In() extends SyncAssertion {
 
   override val name: String = Assertions.IN
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(In.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    In.apply(actual, expect)
   }
 
 }
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class IsEmpty() extends Assertion {
+case class IsEmpty() extends SyncAssertion {
 
   override val name: String = Assertions.IS_EMPTY
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(IsEmpty.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    IsEmpty.apply(actual, expect)
   }
 
 }
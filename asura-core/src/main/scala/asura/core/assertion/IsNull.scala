@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class IsNull() extends Assertion {
+case class IsNull() extends SyncAssertion {
 
   override val name: String = Assertions.IS_NULL
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(IsNull.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    IsNull.apply(actual, expect)
   }
 
 }
@@ -1,16 +1,22 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.AssertResult
+import asura.core.assertion.engine.{AssertResult, AssertionPlan}
 
 import scala.concurrent.Future
 
-case class ListAnd() extends Assertion {
+case class ListAnd() extends SyncAssertion {
 
   override val name: String = Assertions.LIST_AND
 
   override def assert(actual: Any, expect: Any): Future[AssertResult] = {
     ListAnd.apply(actual, expect)
   }
+
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    And.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = AssertionPlan.compileAll(expect)
 }
 
 object ListAnd {
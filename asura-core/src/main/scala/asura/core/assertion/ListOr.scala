@@ -1,10 +1,10 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.AssertResult
+import asura.core.assertion.engine.{AssertResult, AssertionPlan}
 
 import scala.concurrent.Future
 
-case class ListOr() extends Assertion {
+case class ListOr() extends SyncAssertion {
 
   override val name: String = Assertions.LIST_OR
 
@@ -12,6 +12,12 @@ case class ListOr() extends Assertion {
     ListOr.apply(actual, expect)
   }
 
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Or.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = AssertionPlan.compileAll(expect)
+
 }
 
 object ListOr {
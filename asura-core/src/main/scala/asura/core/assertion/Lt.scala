@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.AssertResult
 
-import scala.concurrent.Future
-
-case class Lt() extends Assertion {
+case class Lt() extends SyncAssertion {
 
   override val name: String = Assertions.LT
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Lt.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Lt.apply(actual, expect)
   }
 
 }
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.AssertResult
 
-import scala.concurrent.Future
-
-case class Lte() extends CompareOperator with Assertion {
+case class Lte() extends CompareOperator with SyncAssertion {
 
   override val name: String = Assertions.LTE
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Lte.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Lte.apply(actual, expect)
   }
 }
 
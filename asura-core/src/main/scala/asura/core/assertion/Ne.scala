@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class Ne() extends Assertion {
+case class Ne() extends SyncAssertion {
 
   override val name: String = Assertions.NE
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Ne.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Ne.apply(actual, expect)
   }
 
 }
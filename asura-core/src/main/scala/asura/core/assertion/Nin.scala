@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class Nin() extends Assertion {
+case class Nin() extends SyncAssertion {
 
   override val name: String = Assertions.NIN
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Nin.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Nin.apply(actual, expect)
   }
 
 }
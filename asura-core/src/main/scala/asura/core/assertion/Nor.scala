@@ -1,11 +1,11 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.AssertResult
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.assertion.engine.{AssertResult, AssertionPlan}
+import asura.core.concurrent.ExecutionContextManager.assertionExecutor
 
 import scala.concurrent.Future
 
-case class Nor() extends Assertion {
+case class Nor() extends SyncAssertion {
 
   override val name: String = Assertions.NOR
 
@@ -13,23 +13,37 @@ case class Nor() extends Assertion {
     Nor.apply(actual, expect)
   }
 
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Nor.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = AssertionPlan.compileAll(expect)
+
 }
 
 object Nor {
 
   def apply(actual: Any, expect: Any): Future[AssertResult] = {
-    Or(actual, expect).map(result => {
-      if (result.isSuccessful && AssertResult.MSG_PASSED.equals(result.msg)) {
-        result.isSuccessful = false
-        result.msg = AssertResult.MSG_FAILED
-        result
-      } else if (!result.isSuccessful && AssertResult.MSG_FAILED.equals(result.msg)) {
-        result.isSuccessful = true
-        result.msg = AssertResult.MSG_PASSED
-        result
-      } else {
-        result
-      }
-    })
+    Or(actual, expect).map(invert)
+  }
+
+  def applySync(actual: Any, expect: Any): AssertResult = {
+    invert(Or.applySync(actual, expect))
+  }
+
+  private def invert(result: AssertResult): AssertResult = {
+    if (null == result) {
+      result
+    } else if (result.isSuccessful && AssertResult.MSG_PASSED.equals(result.msg)) {
+      result.isSuccessful = false
+      result.msg = AssertResult.MSG_FAILED
+      result
+    } else if (!result.isSuccessful && AssertResult.MSG_FAILED.equals(result.msg)) {
+      result.isSuccessful = true
+      result.msg = AssertResult.MSG_PASSED
+      result
+    } else {
+      result
+    }
   }
 }
@@ -1,11 +1,11 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.{AssertResult, AssertionContext, FailAssertResult, Statistic}
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.assertion.engine.{AssertResult, AssertionContext, AssertionPlan, FailAssertResult, Statistic}
+import asura.core.concurrent.ExecutionContextManager.assertionExecutor
 
 import scala.concurrent.Future
 
-case class Not() extends Assertion {
+case class Not() extends SyncAssertion {
 
   override val name: String = Assertions.NOT
 
@@ -13,32 +13,56 @@ case class Not() extends Assertion {
     Not.apply(actual, expect)
   }
 
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Not.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = {
+    expect match {
+      case map: Map[_, _] => AssertionPlan.compile(map.asInstanceOf[Map[String, Any]])
+      case _ => expect
+    }
+  }
+
 }
 
 object Not {
 
   def apply(ctx: Any, assert: Any): Future[AssertResult] = {
-    val result = AssertResult()
     assert match {
-      case _: Map[_, _] =>
-        val subAssert = assert.asInstanceOf[Map[String, Any]]
+      case _: Map[_, _] | _: AssertionPlan =>
         val subStatis = Statistic()
-        AssertionContext.eval(subAssert, ctx.asInstanceOf[Object], subStatis).map(subResult => {
-          result.subResult = subResult
-          result.pass(subStatis.passed)
-          result.fail(subStatis.failed)
-          if (subStatis.isSuccessful) {
-            result.isSuccessful = false
-            result.msg = AssertResult.MSG_FAILED
-          } else {
-            result.isSuccessful = true
-            result.msg = AssertResult.MSG_PASSED
-          }
-          result
+        AssertionContext.evalSub(assert, ctx.asInstanceOf[Object], subStatis).map(subResult => {
+          invert(subStatis, subResult)
         })
       case _ =>
         Future.successful(FailAssertResult(1, AssertResult.msgIncomparableTargetType(assert)))
     }
   }
 
+  def applySync(ctx: Any, assert: Any): AssertResult = {
+    assert match {
+      case _: Map[_, _] | _: AssertionPlan =>
+        val subStatis = Statistic()
+        invert(subStatis, AssertionContext.evalSubSync(assert, ctx.asInstanceOf[Object], subStatis))
+      case _ =>
+        FailAssertResult(1, AssertResult.msgIncomparableTargetType(assert))
+    }
+  }
+
+  private def invert(subStatis: Statistic, subResult: java.util.Map[String, Any]): AssertResult = {
+    val result = AssertResult()
+    result.subResult = subResult
+    result.pass(subStatis.passed)
+    result.fail(subStatis.failed)
+    if (subStatis.isSuccessful) {
+      result.isSuccessful = false
+      result.msg = AssertResult.MSG_FAILED
+    } else {
+      result.isSuccessful = true
+      result.msg = AssertResult.MSG_PASSED
+    }
+    result
+  }
+
 }
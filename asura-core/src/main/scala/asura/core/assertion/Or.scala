@@ -1,13 +1,12 @@
 package asura.core.assertion
 
-import asura.core.assertion.engine.{AssertResult, AssertionContext, FailAssertResult, Statistic}
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.assertion.engine.{AssertResult, AssertionContext, AssertionPlan, FailAssertResult, Statistic}
+import asura.core.concurrent.ExecutionContextManager.assertionExecutor
 
-import scala.collection.mutable
 import scala.collection.mutable.ArrayBuffer
 import scala.concurrent.Future
 
-case class Or() extends Assertion {
+case class Or() extends SyncAssertion {
 
   override val name: String = Assertions.OR
 
@@ -15,41 +14,25 @@ case class Or() extends Assertion {
     Or.apply(actual, expect)
   }
 
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Or.applySync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = AssertionPlan.compileAll(expect)
+
 }
 
 object Or {
 
   def apply(actual: Any, except: Any): Future[AssertResult] = {
-    val result = AssertResult(
-      isSuccessful = false,
-      msg = AssertResult.MSG_FAILED
-    )
-    val subResults = ArrayBuffer[mutable.Map[String, Any]]()
-    result.subResult = subResults
     except match {
       case assertions: Seq[_] =>
         if (assertions.nonEmpty) {
           val assertionResults = assertions.map(assertion => {
             val subStatis = Statistic()
-            val assertionMap = assertion.asInstanceOf[Map[String, Any]]
-            val contextMap = actual.asInstanceOf[Object]
-            AssertionContext.eval(assertionMap, contextMap, subStatis).map((subStatis, _))
-          })
-          Future.sequence(assertionResults).map(subStatisResults => {
-            val subResults = ArrayBuffer[java.util.Map[String, Any]]()
-            result.subResult = subResults
-            subStatisResults.foreach(subStatisResult => {
-              val (subStatis, subResult) = subStatisResult
-              subResults += subResult
-              result.pass(subStatis.passed)
-              result.fail(subStatis.failed)
-              if (subStatis.isSuccessful) {
-                result.isSuccessful = true
-                result.msg = AssertResult.MSG_PASSED
-              }
-            })
-            result
+            AssertionContext.evalSub(assertion, actual.asInstanceOf[Object], subStatis).map((subStatis, _))
           })
+          Future.sequence(assertionResults).map(combine)
         } else {
           Future.successful(null)
         }
@@ -58,4 +41,40 @@ object Or {
     }
   }
 
+  def applySync(actual: Any, except: Any): AssertResult = {
+    except match {
+      case assertions: Seq[_] =>
+        if (assertions.nonEmpty) {
+          combine(assertions.map(assertion => {
+            val subStatis = Statistic()
+            (subStatis, AssertionContext.evalSubSync(assertion, actual.asInstanceOf[Object], subStatis))
+          }))
+        } else {
+          null
+        }
+      case _ =>
+        FailAssertResult(1, AssertResult.msgIncomparableTargetType(except))
+    }
+  }
+
+  private def combine(subStatisResults: Seq[(Statistic, java.util.Map[String, Any])]): AssertResult = {
+    val result = AssertResult(
+      isSuccessful = false,
+      msg = AssertResult.MSG_FAILED
+    )
+    val subResults = ArrayBuffer[java.util.Map[String, Any]]()
+    result.subResult = subResults
+    subStatisResults.foreach(subStatisResult => {
+      val (subStatis, subResult) = subStatisResult
+      subResults += subResult
+      result.pass(subStatis.passed)
+      result.fail(subStatis.failed)
+      if (subStatis.isSuccessful) {
+        result.isSuccessful = true
+        result.msg = AssertResult.MSG_PASSED
+      }
+    })
+    result
+  }
+
 }
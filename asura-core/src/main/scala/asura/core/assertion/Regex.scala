@@ -1,15 +1,25 @@
 package asura.core.assertion
 
+import java.util.regex.Pattern
+
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
+import scala.util.Try
 
-case class Regex() extends Assertion {
+case class Regex() extends SyncAssertion {
 
   override val name: String = Assertions.REGEX
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Regex.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Regex.apply(actual, expect)
+  }
+
+  /** an invalid pattern is kept and fails when it is evaluated */
+  override def compile(expect: Any): Any = {
+    expect match {
+      case regex: String => Try(Pattern.compile(regex)).getOrElse(regex)
+      case _ => expect
+    }
   }
 
 }
@@ -18,9 +28,12 @@ object Regex {
 
   def apply(src: Any, target: Any): AssertResult = {
     if (null != src && target != null) {
-      if (src.isInstanceOf[String] && target.isInstanceOf[String]) {
-        val first = target.asInstanceOf[String].r.findFirstIn(src.asInstanceOf[String])
-        if (first.nonEmpty) {
+      if (src.isInstanceOf[String] && (target.isInstanceOf[String] || target.isInstanceOf[Pattern])) {
+        val pattern = target match {
+          case compiled: Pattern => compiled
+          case _ => Pattern.compile(target.asInstanceOf[String])
+        }
+        if (pattern.matcher(src.asInstanceOf[String]).find()) {
           PassAssertResult(1)
         } else {
           FailAssertResult(1)
@@ -5,38 +5,47 @@ import java.util
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 import asura.core.runtime.RuntimeContext
 import asura.core.script.JsEngine
+import org.graalvm.polyglot.Source
 
-import scala.concurrent.Future
+import scala.concurrent.{ExecutionContext, Future}
 
 case class Script() extends Assertion {
 
   override val name: String = Assertions.SCRIPT
 
   override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Script.apply(actual, expect))
+    Script.evalAsync(actual, expect)
+  }
+
+  override def compile(expect: Any): Any = {
+    expect match {
+      case script: String => JsEngine.parse(script)
+      case _ => expect
+    }
   }
 
 }
 
 object Script {
 
-  def apply(src: Any, target: Any): AssertResult = {
-    if (target.isInstanceOf[String]) {
-      try {
-        val bindings = new util.HashMap[String, Any]()
-        bindings.put(RuntimeContext.SELF_VARIABLE, src)
-        val scriptResult = JsEngine.eval(target.toString, bindings).asInstanceOf[Boolean]
-        if (scriptResult) {
-          PassAssertResult(1)
-        } else {
-          FailAssertResult(1)
-        }
-      } catch {
-        case t: Throwable =>
-          FailAssertResult(1, t.getMessage)
+  /** the script is evaluated on the pool of the `script` subsystem */
+  def evalAsync(src: Any, target: Any): Future[AssertResult] = {
+    if (target.isInstanceOf[String] || target.isInstanceOf[Source]) {
+      val bindings = new util.HashMap[String, Any]()
+      bindings.put(RuntimeContext.SELF_VARIABLE, src)
+      val source = target match {
+        case parsed: Source => parsed
+        case _ => JsEngine.parse(target.toString)
       }
+      JsEngine.evalAsync(source, bindings)
+        .map(scriptResult => {
+          if (scriptResult.asInstanceOf[Boolean]) PassAssertResult(1) else FailAssertResult(1)
+        })(ExecutionContext.parasitic)
+        .recover {
+          case t: Throwable => FailAssertResult(1, t.getMessage)
+        }(ExecutionContext.parasitic)
     } else {
-      FailAssertResult(1, AssertResult.msgIncomparableTargetType(target))
+      Future.successful(FailAssertResult(1, AssertResult.msgIncomparableTargetType(target)))
     }
   }
 
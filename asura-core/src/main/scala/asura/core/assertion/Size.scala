@@ -4,14 +4,12 @@ import java.util
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class Size() extends Assertion {
+case class Size() extends SyncAssertion {
 
   override val name: String = Assertions.SIZE
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Size.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Size.apply(actual, expect)
   }
 
 }
@@ -2,14 +2,12 @@ package asura.core.assertion
 
 import asura.core.assertion.engine.{AssertResult, FailAssertResult, PassAssertResult}
 
-import scala.concurrent.Future
-
-case class Type() extends Assertion {
+case class Type() extends SyncAssertion {
 
   override val name: String = Assertions.TYPE
 
-  override def assert(actual: Any, expect: Any): Future[AssertResult] = {
-    Future.successful(Type.apply(actual, expect))
+  override def assertSync(actual: Any, expect: Any): AssertResult = {
+    Type.apply(actual, expect)
   }
 
 }
@@ -0,0 +1,285 @@
+package asura.core.assertion.engine
+
+import java.util
+
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import asura.common.util.{LogUtils, StringUtils}
+import asura.core.CoreConfig
+import asura.core.assertion.engine.AssertionPlan.PlanEntry
+import asura.core.assertion.{Assertion, Assertions, SyncAssertion}
+import asura.core.concurrent.ExecutionContextManager.assertionExecutor
+import asura.core.util.JsonPathUtils
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.jayway.jsonpath.{JsonPath, PathNotFoundException}
+
+import scala.collection.mutable.ArrayBuffer
+import scala.concurrent.Future
+import scala.jdk.CollectionConverters._
+import scala.util.Try
+
+/**
+ * An assert compiled once: the assertions are resolved, the json paths are compiled and the
+ * expect values are prepared by `Assertion.compile`, e.g. patterns of `$regex` and sources of
+ * `$script`. A plan is immutable and can be evaluated by many threads.
+ *
+ * A plan without async assertions, which is the most common one, is evaluated in the caller
+ * thread without any future. Otherwise the sync entries are evaluated first and the others are
+ * evaluated in parallel, each with its own statistic which is merged at the end, so the statistic
+ * and the result are never changed by more than one thread.
+ *
+ * @param source the raw assert
+ */
+final class AssertionPlan(val source: Map[String, Any], entries: Array[PlanEntry]) {
+
+  val sync: Boolean = entries.forall(_.sync)
+
+  def eval(context: Object, statis: Statistic): Future[util.Map[String, Any]] = {
+    if (null == context || sync) {
+      Future.fromTry(Try(evalSync(context, statis)))
+    } else {
+      evalAsync(context, statis)
+    }
+  }
+
+  /** the plan should be sync */
+  def evalSync(context: Object, statis: Statistic): util.Map[String, Any] = {
+    val result = new util.LinkedHashMap[String, Any]()
+    if (null != context) {
+      var i = 0
+      while (i < entries.length && !AssertionPlan.stopped(statis)) {
+        entries(i).evalSync(context, statis, result)
+        i += 1
+      }
+    }
+    result
+  }
+
+  private def evalAsync(context: Object, statis: Statistic): Future[util.Map[String, Any]] = {
+    val results = new Array[util.Map[String, Any]](entries.length)
+    val subStatis = new Array[Statistic](entries.length)
+    val asyncIndexes = ArrayBuffer[Int]()
+    var i = 0
+    while (i < entries.length) {
+      if (entries(i).sync) {
+        if (!AssertionPlan.stopped(statis)) {
+          results(i) = new util.LinkedHashMap[String, Any](2)
+          entries(i).evalSync(context, statis, results(i))
+        }
+      } else {
+        asyncIndexes += i
+      }
+      i += 1
+    }
+    val futures = if (AssertionPlan.stopped(statis)) {
+      Nil
+    } else {
+      asyncIndexes.map(idx => {
+        val entryStatis = Statistic()
+        entryStatis.failFast = statis.failFast
+        subStatis(idx) = entryStatis
+        entries(idx).evalAsync(context, entryStatis).map(entryResult => results(idx) = entryResult)
+      }).toSeq
+    }
+    Future.sequence(futures).map(_ => {
+      // merged in the order of the keys
+      val result = new util.LinkedHashMap[String, Any]()
+      for (idx <- entries.indices) {
+        if (null != subStatis(idx)) statis.merge(subStatis(idx))
+        if (null != results(idx)) result.putAll(results(idx))
+      }
+      result
+    })
+  }
+}
+
+object AssertionPlan {
+
+  val EMPTY = new AssertionPlan(Map.empty, Array.empty)
+
+  // keys are document ids, the size is set by `init`
+  private val plans: Cache[String, AssertionPlan] = Caffeine.newBuilder()
+    .maximumSize(CoreConfig.assertionConfig.planCacheSize).recordStats().build()
+
+  MetricsRegistry.register("assertion.plans", () => cacheMetrics())
+
+  def init(): Unit = {
+    plans.policy().eviction().ifPresent(_.setMaximum(CoreConfig.assertionConfig.planCacheSize))
+  }
+
+  /**
+   * The plan of the assert of a document. The cached plan is only used when its source is the
+   * same instance as the assert, which holds while the document stays in its `DocumentCache`.
+   * An updated document or an unsaved edit is compiled again.
+   */
+  def get(docId: String, assert: Map[String, Any]): AssertionPlan = {
+    if (null == assert) {
+      EMPTY
+    } else if (StringUtils.isEmpty(docId)) {
+      compile(assert)
+    } else {
+      val cached = plans.getIfPresent(docId)
+      if (null != cached && (cached.source eq assert)) {
+        cached
+      } else {
+        val plan = compile(assert)
+        plans.put(docId, plan)
+        plan
+      }
+    }
+  }
+
+  def compile(assert: Map[String, Any]): AssertionPlan = {
+    if (null == assert || assert.isEmpty) {
+      EMPTY
+    } else {
+      val entries = assert.iterator.map(kv => compileEntry(kv._1, kv._2)).toArray
+      new AssertionPlan(assert, entries)
+    }
+  }
+
+  /** compile the maps in a seq, e.g. the expect value of `$and` */
+  def compileAll(expect: Any): Any = {
+    expect match {
+      case seq: Seq[_] =>
+        seq.map {
+          case map: Map[_, _] => compile(map.asInstanceOf[Map[String, Any]])
+          case item => item
+        }
+      case _ => expect
+    }
+  }
+
+  /** called when the documents are invalidated in their `DocumentCache` */
+  def invalidate(docIds: Seq[String]): Unit = {
+    if (null != docIds) plans.invalidateAll(docIds.asJava)
+  }
+
+  def cacheMetrics(): CacheMetrics = CacheMetrics(plans)
+
+  private def compileEntry(k: String, v: Any): PlanEntry = {
+    if (null == v) {
+      InvalidEntry(k, s"null assert: $k", count = true)
+    } else if (k.startsWith("$.") || k.startsWith("$[")) {
+      PathEntry(k, Try(JsonPathUtils.compile(k)), Try(compile(v.asInstanceOf[Map[String, Any]])))
+    } else if (k.startsWith("$")) {
+      val assertion = Assertions.get(k)
+      if (assertion.nonEmpty) {
+        OperatorEntry(k, assertion.get, assertion.get.compile(v))
+      } else {
+        InvalidEntry(k, AssertResult.MSG_UNSUPPORTED_ASSERTION, count = false)
+      }
+    } else {
+      InvalidEntry(k, AssertResult.MSG_UNRECOGNIZED_KEY, count = true)
+    }
+  }
+
+  private def stopped(statis: Statistic): Boolean = statis.failFast && !statis.isSuccessful
+
+  private def isSyncExpect(expect: Any): Boolean = {
+    expect match {
+      case plan: AssertionPlan => plan.sync
+      case seq: Seq[_] => seq.forall(isSyncExpect)
+      case _ => true
+    }
+  }
+
+  sealed trait PlanEntry {
+
+    val key: String
+
+    def sync: Boolean
+
+    def evalSync(context: Object, statis: Statistic, result: util.Map[String, Any]): Unit
+
+    def evalAsync(context: Object, statis: Statistic): Future[util.Map[String, Any]] = {
+      val result = new util.LinkedHashMap[String, Any](2)
+      evalSync(context, statis, result)
+      Future.successful(result)
+    }
+  }
+
+  /** @param count if the failure is counted */
+  case class InvalidEntry(key: String, msg: String, count: Boolean) extends PlanEntry {
+
+    override def sync: Boolean = true
+
+    override def evalSync(context: Object, statis: Statistic, result: util.Map[String, Any]): Unit = {
+      if (count) statis.failOnce()
+      result.put(key, FailAssertResult(1, msg))
+    }
+  }
+
+  /** errors of the compilation are thrown when the entry is evaluated */
+  case class PathEntry(key: String, path: Try[JsonPath], plan: Try[AssertionPlan]) extends PlanEntry {
+
+    override val sync: Boolean = plan.map(_.sync).getOrElse(true)
+
+    override def evalSync(context: Object, statis: Statistic, result: util.Map[String, Any]): Unit = {
+      try {
+        val subContext = JsonPathUtils.read[Object](context, path.get)
+        result.put(key, plan.get.evalSync(subContext, statis))
+      } catch {
+        case t: Throwable => handleError(t, statis, result)
+      }
+    }
+
+    override def evalAsync(context: Object, statis: Statistic): Future[util.Map[String, Any]] = {
+      val result = new util.LinkedHashMap[String, Any](2)
+      try {
+        val subContext = JsonPathUtils.read[Object](context, path.get)
+        plan.get.eval(subContext, statis).map { subAssert =>
+          result.put(key, subAssert)
+          result
+        }.recover {
+          case t: Throwable =>
+            handleError(t, statis, result)
+            result
+        }
+      } catch {
+        case t: Throwable =>
+          handleError(t, statis, result)
+          Future.successful(result)
+      }
+    }
+
+    private def handleError(t: Throwable, statis: Statistic, result: util.Map[String, Any]): Unit = {
+      statis.failOnce()
+      statis.isSuccessful = false
+      t match {
+        case _: PathNotFoundException =>
+          result.put(key, FailAssertResult(1, AssertResult.pathNotFound(key)))
+        case _: ClassNotFoundException =>
+          result.put(key, FailAssertResult(1, AssertResult.MSG_UNSUPPORTED_ASSERT_FORMAT))
+        case _ =>
+          AssertionContext.logger.warn(LogUtils.stackTraceToString(t))
+          result.put(key, FailAssertResult(1, t.getMessage))
+      }
+    }
+  }
+
+  /** @param expect compiled by the assertion */
+  case class OperatorEntry(key: String, assertion: Assertion, expect: Any) extends PlanEntry {
+
+    override val sync: Boolean = assertion.isInstanceOf[SyncAssertion] && isSyncExpect(expect)
+
+    override def evalSync(context: Object, statis: Statistic, result: util.Map[String, Any]): Unit = {
+      record(assertion.asInstanceOf[SyncAssertion].assertSync(context, expect), statis, result)
+    }
+
+    override def evalAsync(context: Object, statis: Statistic): Future[util.Map[String, Any]] = {
+      Future.fromTry(Try(assertion.assert(context, expect))).flatten.map(assertionResult => {
+        val result = new util.LinkedHashMap[String, Any](2)
+        record(assertionResult, statis, result)
+        result
+      })
+    }
+
+    private def record(assertionResult: AssertResult, statis: Statistic, result: util.Map[String, Any]): Unit = {
+      if (null != assertionResult) {
+        statis.countAndSetState(assertionResult)
+        result.put(key, assertionResult.toReport)
+      }
+    }
+  }
+
+}
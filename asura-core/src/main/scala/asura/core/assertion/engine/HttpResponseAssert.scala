@@ -3,7 +3,7 @@ package asura.core.assertion.engine
 import java.util.Collections
 
 import akka.http.scaladsl.model.HttpResponse
-import asura.core.http.{HeaderUtils, HttpResult, RenderedHttpRequest, RenderedHttpResponse}
+import asura.core.http._
 import asura.core.runtime.RuntimeContext
 import asura.core.util.JsonPathUtils
 
@@ -15,12 +15,15 @@ object HttpResponseAssert {
   val KEY_HEADERS = "headers"
   val KEY_ENTITY = "entity"
 
-  /** use java type system because of json path library */
+  /**
+   * use java type system because of json path library.
+   * the json entity is parsed from the bytes directly, the body string is decoded once for the report
+   */
   def generateHttpReport(
                           docId: String,
                           assert: Map[String, Any],
                           response: HttpResponse,
-                          entity: String,
+                          body: HttpResponseBody,
                           renderedRequest: RenderedHttpRequest,
                           runtimeContext: RuntimeContext
                         ): Future[HttpResult] = {
@@ -34,12 +37,17 @@ object HttpResponseAssert {
       }
     })
     runtimeContext.setCurrentHeaders(headers)
-    if (isJson) {
-      val entityDoc = JsonPathUtils.parse(entity)
+    val mediaType = response.entity.contentType.mediaType
+    val entity = body.asString(mediaType)
+    if (body.truncated) {
+      // a truncated json is invalid
+      runtimeContext.setCurrentEntity(entity)
+    } else if (isJson) {
+      val entityDoc = JsonPathUtils.parse(body.bytes.iterator.asInputStream)
       runtimeContext.setCurrentEntity(entityDoc)
     } else {
       try {
-        val entityDoc = JsonPathUtils.parse(entity)
+        val entityDoc = JsonPathUtils.parse(body.bytes.iterator.asInputStream)
         runtimeContext.setCurrentEntity(entityDoc)
       } catch {
         case _: Throwable =>
@@ -50,11 +58,9 @@ object HttpResponseAssert {
       response.status.intValue(),
       response.status.reason(),
       headers,
-      {
-        val mediaType = response.entity.getContentType().mediaType
-        s"${mediaType.mainType}/${mediaType.subType}"
-      },
-      entity
+      s"${mediaType.mainType}/${mediaType.subType}",
+      entity,
+      body.truncated,
     )
     HttpResult.eval(docId, assert, runtimeContext, renderedRequest, caseResponse)
   }
@@ -1,5 +1,7 @@
 package asura.core.assertion.engine
 
+import com.fasterxml.jackson.annotation.JsonIgnore
+
 /**
   * this class is not thread safe.
   * passed and failed count are actually checked count may not the same with the assert count
@@ -9,6 +11,8 @@ case class Statistic(
                       var failed: Int = 0,
                     ) {
   var isSuccessful = true
+  // stop evaluating the rest of the assert once it is failed, the counts are partial then
+  @JsonIgnore var failFast = false
 
   def total = passed + failed
 
@@ -28,6 +32,15 @@ case class Statistic(
     failed = failed + 1
   }
 
+  /** add the counts and state of an assert which was evaluated separately */
+  def merge(other: Statistic): Unit = {
+    if (!other.isSuccessful) {
+      isSuccessful = false
+    }
+    pass(other.passed)
+    fail(other.failed)
+  }
+
   def countAndSetState(assertResult: AssertResult): Unit = {
     if (!assertResult.isSuccessful) {
       isSuccessful = false
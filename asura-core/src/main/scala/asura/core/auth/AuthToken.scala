@@ -0,0 +1,12 @@
+package asura.core.auth
+
+import scala.concurrent.duration.FiniteDuration
+
+/**
+ * @param expiresIn the token is fetched again after it, the configured ttl is used if it is empty
+ *                  or longer than the ttl
+ */
+case class AuthToken(
+                      value: String,
+                      expiresIn: Option[FiniteDuration] = None,
+                    )
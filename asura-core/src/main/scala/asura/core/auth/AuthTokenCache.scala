@@ -0,0 +1,133 @@
+package asura.core.auth
+
+import java.util.concurrent.atomic.{AtomicBoolean, LongAdder}
+
+import asura.common.metrics.MetricsRegistry
+import asura.common.util.{JsonUtils, LogUtils}
+import asura.core.CoreConfig
+import asura.core.concurrent.ExecutionContextManager.sysGlobal
+import asura.core.es.model.Authorization
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.typesafe.scalalogging.Logger
+
+import scala.concurrent.{Future, Promise}
+import scala.util.{Failure, Success}
+
+/**
+ * Tokens of [[TokenAuthorization]], keyed by the environment and the content of the auth. Requests
+ * during a fetch share it, a failed fetch is not cached. The fetch is started out of the map lock,
+ * so a slow operator only delays the requests of its own token. The token is fetched again in background
+ * `refreshAhead` before it expires and the old one is used until the new one arrives, so requests
+ * of a long job are not blocked by the refresh.
+ */
+object AuthTokenCache {
+
+  val logger = Logger("AuthTokenCache")
+
+  // the size is set by `init`
+  private val tokens: Cache[String, TokenEntry] = Caffeine.newBuilder()
+    .maximumSize(CoreConfig.authTokenConfig.cacheSize)
+    .build[String, TokenEntry]()
+  private val hits = new LongAdder()
+  private val fetches = new LongAdder()
+  private val refreshes = new LongAdder()
+  private val failures = new LongAdder()
+
+  MetricsRegistry.register("auth.tokens", () => stats())
+
+  def init(): Unit = {
+    tokens.policy().eviction().ifPresent(_.setMaximum(CoreConfig.authTokenConfig.cacheSize))
+  }
+
+  def get(envId: String, auth: Authorization, operator: TokenAuthorization): Future[AuthToken] = {
+    val key = s"${envId}|${auth.`type`}|${JsonUtils.stringify(auth.data)}"
+    val now = System.currentTimeMillis()
+    val promise = Promise[AuthToken]()
+    val pending = new TokenEntry(now, promise.future)
+    val entry = tokens.asMap().compute(key, (_, prev) => {
+      if (null != prev && !prev.isExpired(now)) prev else pending
+    })
+    if (entry eq pending) {
+      fetches.increment()
+      pending.token.failed.foreach(_ => tokens.asMap().remove(key, pending))
+      promise.completeWith(fetchToken(auth, operator))
+    } else {
+      hits.increment()
+      if (entry.shouldRefresh(now) && entry.refreshing.compareAndSet(false, true)) {
+        refreshes.increment()
+        refresh(key, entry, auth, operator)
+      }
+    }
+    entry.token
+  }
+
+  /** drop the tokens of an environment on this node, called when the environment is invalidated */
+  def invalidateEnv(envId: String): Unit = {
+    tokens.asMap().keySet().removeIf(_.startsWith(s"${envId}|"))
+  }
+
+  def invalidateAll(): Unit = tokens.invalidateAll()
+
+  def stats(): AuthTokenStats = {
+    AuthTokenStats(
+      size = tokens.estimatedSize(),
+      hits = hits.sum(),
+      fetches = fetches.sum(),
+      refreshes = refreshes.sum(),
+      failures = failures.sum(),
+    )
+  }
+
+  private def refresh(key: String, prev: TokenEntry, auth: Authorization, operator: TokenAuthorization): Unit = {
+    val fetchedAt = System.currentTimeMillis()
+    fetchToken(auth, operator).onComplete {
+      case Success(token) =>
+        tokens.asMap().replace(key, prev, new TokenEntry(fetchedAt, Future.successful(token)))
+      case Failure(t) =>
+        logger.warn(s"refresh token of ${auth.`type`} failed: ${t.getMessage}")
+        prev.refreshing.set(false)
+    }
+  }
+
+  private def fetchToken(auth: Authorization, operator: TokenAuthorization): Future[AuthToken] = {
+    val future = try operator.fetchToken(auth) catch {
+      case t: Throwable => Future.failed(t)
+    }
+    future.failed.foreach(t => {
+      failures.increment()
+      logger.debug(LogUtils.stackTraceToString(t))
+    })
+    future
+  }
+
+  private class TokenEntry(fetchedAt: Long, val token: Future[AuthToken]) {
+
+    val refreshing = new AtomicBoolean(false)
+
+    // a pending fetch never expires, it is removed if it fails
+    def isExpired(now: Long): Boolean = token.value match {
+      case Some(Success(value)) => now >= fetchedAt + ttlMillis(value)
+      case Some(Failure(_)) => true
+      case None => false
+    }
+
+    def shouldRefresh(now: Long): Boolean = token.value match {
+      case Some(Success(value)) => now >= fetchedAt + ttlMillis(value) - CoreConfig.authTokenConfig.refreshAhead.toMillis
+      case _ => false
+    }
+
+    private def ttlMillis(value: AuthToken): Long = {
+      val ttl = CoreConfig.authTokenConfig.ttl.toMillis
+      value.expiresIn.map(expiresIn => Math.min(expiresIn.toMillis, ttl)).getOrElse(ttl)
+    }
+  }
+
+  case class AuthTokenStats(
+                             size: Long,
+                             hits: Long,
+                             fetches: Long,
+                             refreshes: Long,
+                             failures: Long,
+                           )
+
+}
@@ -0,0 +1,27 @@
+package asura.core.auth
+
+import akka.http.scaladsl.model.HttpRequest
+import asura.common.util.StringUtils
+import asura.core.concurrent.ExecutionContextManager.sysGlobal
+import asura.core.es.model.Authorization
+
+import scala.concurrent.Future
+
+/**
+ * Authorizations which fetch a token and add it to the requests, e.g. by a login api. The tokens
+ * are cached by [[AuthTokenCache]], so a long job does not fetch one for each request.
+ */
+trait TokenAuthorization extends AuthorizeAndValidate {
+
+  def fetchToken(auth: Authorization): Future[AuthToken]
+
+  def applyToken(request: HttpRequest, auth: Authorization, token: AuthToken): HttpRequest
+
+  override def authorize(request: HttpRequest, auth: Authorization): Future[HttpRequest] = {
+    authorize(StringUtils.EMPTY, request, auth)
+  }
+
+  def authorize(envId: String, request: HttpRequest, auth: Authorization): Future[HttpRequest] = {
+    AuthTokenCache.get(envId, auth, this).map(token => applyToken(request, auth, token))
+  }
+}
@@ -1,11 +1,119 @@
 package asura.core.concurrent
 
-import java.util.concurrent.Executors
+import java.util.concurrent.ConcurrentHashMap
 
-import scala.concurrent.ExecutionContext
+import asura.common.metrics.MetricsRegistry
+import asura.core.CoreConfig.{ExecutorPoolConfig, ExecutorsConfig}
+import com.typesafe.scalalogging.Logger
 
+import scala.concurrent.ExecutionContextExecutor
+
+/**
+ * Named and bounded pools shared by the subsystems. A subsystem is mapped to a pool by
+ * `asura.executors.subsystems`, so blocking work can be moved away from the pool which runs
+ * future callbacks. The pools are created when first used, `init` should be called before, the
+ * pools and subsystems used before it keep the default config and are logged by it.
+ */
 object ExecutionContextManager {
 
-  implicit val sysGlobal = ExecutionContext.global
-  implicit val cachedExecutor = ExecutionContext.fromExecutor(Executors.newCachedThreadPool())
+  val logger = Logger("ExecutionContextManager")
+
+  // short non-blocking work, e.g. future callbacks
+  val POOL_CPU = "cpu"
+  // blocking io, e.g. redis and jdbc
+  val POOL_BLOCKING = "blocking"
+  // evaluation of scripts
+  val POOL_SCRIPT = "script"
+  // a virtual thread for each task, or a larger thread pool if virtual threads are not supported
+  val POOL_VIRTUAL = "virtual"
+
+  val SUBSYSTEM_GLOBAL = "global"
+  val SUBSYSTEM_CACHED = "cached"
+  val SUBSYSTEM_ASSERTION = "assertion"
+  val SUBSYSTEM_REDIS = "redis"
+  val SUBSYSTEM_SCHEDULER = "scheduler"
+  val SUBSYSTEM_UI = "ui"
+  val SUBSYSTEM_SQL = "sql"
+  val SUBSYSTEM_DUBBO = "dubbo"
+  val SUBSYSTEM_SCRIPT = "script"
+
+  val DEFAULT_POOLS: Map[String, ExecutorPoolConfig] = Map(
+    POOL_CPU -> ExecutorPoolConfig(forkJoin = true),
+    POOL_BLOCKING -> ExecutorPoolConfig(threads = 64),
+    POOL_SCRIPT -> ExecutorPoolConfig(),
+    POOL_VIRTUAL -> ExecutorPoolConfig(threads = 256, virtual = true),
+  )
+  val DEFAULT_SUBSYSTEMS: Map[String, String] = Map(
+    SUBSYSTEM_GLOBAL -> POOL_CPU,
+    SUBSYSTEM_CACHED -> POOL_BLOCKING,
+    SUBSYSTEM_ASSERTION -> POOL_SCRIPT,
+    SUBSYSTEM_REDIS -> POOL_BLOCKING,
+    SUBSYSTEM_SCHEDULER -> POOL_BLOCKING,
+    SUBSYSTEM_UI -> POOL_BLOCKING,
+    SUBSYSTEM_SQL -> POOL_BLOCKING,
+    SUBSYSTEM_DUBBO -> POOL_BLOCKING,
+    SUBSYSTEM_SCRIPT -> POOL_SCRIPT,
+  )
+
+  @volatile private var config = ExecutorsConfig()
+  private val pools = new ConcurrentHashMap[String, ExecutorPool]()
+  // pool names of the subsystems which are used
+  private val subsystemPools = new ConcurrentHashMap[String, String]()
+
+  MetricsRegistry.register("executors", () => stats())
+
+  implicit val sysGlobal: ExecutionContextExecutor = forSubsystem(SUBSYSTEM_GLOBAL)
+  implicit val cachedExecutor: ExecutionContextExecutor = forSubsystem(SUBSYSTEM_CACHED)
+  implicit val assertionExecutor: ExecutionContextExecutor = forSubsystem(SUBSYSTEM_ASSERTION)
+  implicit val redisExecutor: ExecutionContextExecutor = forSubsystem(SUBSYSTEM_REDIS)
+  implicit val schedulerExecutor: ExecutionContextExecutor = forSubsystem(SUBSYSTEM_SCHEDULER)
+
+  def init(config: ExecutorsConfig): Unit = {
+    this.config = config
+    subsystemPools.forEach((subsystem, name) => {
+      if (name != poolNameOf(subsystem)) {
+        logger.warn(s"subsystem ${subsystem} is used before init, it keeps the pool ${name} instead of ${poolNameOf(subsystem)}")
+      }
+    })
+    pools.forEach((name, pool) => {
+      if (pool.config != poolConfigOf(name)) {
+        logger.warn(s"pool ${name} is used before init, it keeps ${pool.config} instead of ${poolConfigOf(name)}")
+      }
+    })
+  }
+
+  /** the pool is looked up when the first task is executed */
+  def forSubsystem(subsystem: String): ExecutionContextExecutor = new SubsystemExecutionContext(subsystem)
+
+  def poolOf(subsystem: String): ExecutorPool = {
+    pool(subsystemPools.computeIfAbsent(subsystem, poolNameOf))
+  }
+
+  def pool(name: String): ExecutorPool = {
+    pools.computeIfAbsent(name, key => new ExecutorPool(key, poolConfigOf(key)))
+  }
+
+  def stats(): java.util.Map[String, ExecutorStats] = {
+    val map = new java.util.TreeMap[String, ExecutorStats]()
+    pools.forEach((name, pool) => map.put(name, pool.stats()))
+    map
+  }
+
+  private def poolNameOf(subsystem: String): String = {
+    config.subsystems.getOrElse(subsystem, DEFAULT_SUBSYSTEMS.getOrElse(subsystem, POOL_BLOCKING))
+  }
+
+  private def poolConfigOf(name: String): ExecutorPoolConfig = {
+    config.pools.getOrElse(name, DEFAULT_POOLS.getOrElse(name, ExecutorPoolConfig()))
+  }
+
+  private class SubsystemExecutionContext(subsystem: String) extends ExecutionContextExecutor {
+
+    private lazy val pool = poolOf(subsystem)
+
+    override def execute(runnable: Runnable): Unit = pool.execute(runnable)
+
+    override def reportFailure(cause: Throwable): Unit = pool.reportFailure(cause)
+  }
+
 }
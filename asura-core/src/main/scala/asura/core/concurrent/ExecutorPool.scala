@@ -0,0 +1,134 @@
+package asura.core.concurrent
+
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory
+import java.util.concurrent._
+import java.util.concurrent.atomic.{AtomicInteger, LongAdder}
+
+import asura.common.util.LogUtils
+import asura.core.CoreConfig.ExecutorPoolConfig
+import com.typesafe.scalalogging.Logger
+
+import scala.concurrent.ExecutionContextExecutor
+import scala.util.Try
+
+/**
+ * A named and bounded pool which counts the running, queued and rejected tasks. When the queue
+ * is full the task runs in the caller thread, which slows down the producer instead of failing.
+ */
+class ExecutorPool(val name: String, val config: ExecutorPoolConfig) extends ExecutionContextExecutor {
+
+  val threads: Int = if (config.threads > 0) config.threads else Runtime.getRuntime.availableProcessors()
+  private val active = new AtomicInteger()
+  private val submitted = new LongAdder()
+  private val rejected = new LongAdder()
+  private val failed = new LongAdder()
+
+  val executor: ExecutorService = {
+    val virtual = if (config.virtual) ExecutorPool.newVirtualThreadExecutor() else None
+    if (config.virtual && virtual.isEmpty) {
+      ExecutorPool.logger.warn(s"virtual threads are not supported by this jvm, pool ${name} uses platform threads")
+    }
+    virtual.getOrElse {
+      if (config.forkJoin) {
+        new ForkJoinPool(threads, new NamedForkJoinThreadFactory(), null, true)
+      } else {
+        val pool = new ThreadPoolExecutor(
+          threads, threads, config.keepAlive.toMillis, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue[Runnable](config.queueSize),
+          new NamedThreadFactory(),
+          (runnable: Runnable, pool: ThreadPoolExecutor) => {
+            rejected.increment()
+            if (!pool.isShutdown) runnable.run()
+          }
+        )
+        pool.allowCoreThreadTimeOut(true)
+        pool
+      }
+    }
+  }
+
+  val isVirtual: Boolean = !executor.isInstanceOf[ForkJoinPool] && !executor.isInstanceOf[ThreadPoolExecutor]
+
+  override def execute(runnable: Runnable): Unit = {
+    submitted.increment()
+    executor.execute(() => {
+      active.incrementAndGet()
+      try runnable.run() finally active.decrementAndGet()
+    })
+  }
+
+  override def reportFailure(cause: Throwable): Unit = {
+    failed.increment()
+    ExecutorPool.logger.error(s"task of pool ${name} failed: ${LogUtils.stackTraceToString(cause)}")
+  }
+
+  def shutdown(): Unit = executor.shutdown()
+
+  def stats(): ExecutorStats = {
+    val (poolSize, queued) = executor match {
+      case pool: ThreadPoolExecutor => (pool.getPoolSize, pool.getQueue.size().toLong)
+      case pool: ForkJoinPool => (pool.getPoolSize, pool.getQueuedSubmissionCount + pool.getQueuedTaskCount)
+      case _ => (active.get(), 0L)
+    }
+    ExecutorStats(
+      maxThreads = if (isVirtual) 0 else threads,
+      virtual = isVirtual,
+      poolSize = poolSize,
+      active = active.get(),
+      queued = queued,
+      submitted = submitted.sum(),
+      rejected = rejected.sum(),
+      failed = failed.sum(),
+    )
+  }
+
+  private class NamedThreadFactory extends ThreadFactory {
+
+    private val count = new AtomicInteger()
+
+    override def newThread(runnable: Runnable): Thread = {
+      val thread = new Thread(runnable, s"asura-${name}-${count.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  }
+
+  private class NamedForkJoinThreadFactory extends ForkJoinWorkerThreadFactory {
+
+    private val count = new AtomicInteger()
+
+    override def newThread(pool: ForkJoinPool): ForkJoinWorkerThread = {
+      val thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool)
+      thread.setName(s"asura-${name}-${count.incrementAndGet()}")
+      thread.setDaemon(true)
+      thread
+    }
+  }
+
+}
+
+object ExecutorPool {
+
+  val logger = Logger("ExecutorPool")
+
+  /** a new virtual thread for each task, `None` if the jvm does not support virtual threads */
+  def newVirtualThreadExecutor(): Option[ExecutorService] = {
+    Try(classOf[Executors].getMethod("newVirtualThreadPerTaskExecutor").invoke(null).asInstanceOf[ExecutorService]).toOption
+  }
+}
+
+/**
+ * @param maxThreads `0` for virtual threads
+ * @param poolSize   current threads, or running tasks of virtual threads
+ * @param rejected   tasks run by the caller because the queue was full
+ */
+case class ExecutorStats(
+                          maxThreads: Int,
+                          virtual: Boolean,
+                          poolSize: Int,
+                          active: Int,
+                          queued: Long,
+                          submitted: Long,
+                          rejected: Long,
+                          failed: Long,
+                        )
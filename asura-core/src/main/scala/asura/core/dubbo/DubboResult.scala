@@ -3,7 +3,7 @@ package asura.core.dubbo
 import java.util
 
 import asura.common.util.StringUtils
-import asura.core.assertion.engine.{AssertionContext, Statistic}
+import asura.core.assertion.engine.{AssertionPlan, Statistic}
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.dubbo.RenderedDubboModel.{RenderedDubboRequest, RenderedDubboResponse}
 import asura.core.es.model.JobReportData.JobReportStepItemMetrics
@@ -49,11 +49,12 @@ object DubboResult {
                 response: RenderedDubboResponse,
               ): Future[DubboResult] = {
     val statistic = Statistic()
-    AssertionContext.eval(assert, context.rawContext, statistic).map(assertResult => {
+    statistic.failFast = context.assertFailFast
+    AssertionPlan.get(docId, assert).eval(context.rawContext, statistic).map(assertResult => {
       DubboResult(
         docId = docId,
         assert = assert,
-        context = context.rawContext,
+        context = context.snapshot(),
         request = request,
         response = response,
         statis = statistic,
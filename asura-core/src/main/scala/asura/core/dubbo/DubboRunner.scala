@@ -10,7 +10,7 @@ import asura.core.es.model.DubboRequest
 import asura.core.es.model.DubboRequest.{DubboRequestBody, LoadBalanceAlgorithms}
 import asura.core.runtime.{ContextOptions, RuntimeContext, RuntimeMetrics}
 import asura.core.{CoreConfig, RunnerActors}
-import asura.dubbo.GenericRequest
+import asura.dubbo.{DubboReferenceCache, GenericRequest}
 import asura.dubbo.actor.GenericServiceInvokerActor.GetProvidersMessage
 import asura.dubbo.model.DubboProvider
 import com.typesafe.scalalogging.Logger
@@ -40,7 +40,8 @@ object DubboRunner {
       renderRequest(request.request, context)
         .flatMap(genericRequest => {
           metrics.performRequestStart()
-          (dubboInvoker ? genericRequest).flatMap(responseObj => {
+          // invoked directly instead of by the actor, the waiting time is bounded by the dubbo timeout
+          DubboReferenceCache.invoke(genericRequest).flatMap(responseObj => {
             context.setCurrentEntity(responseObj.asInstanceOf[Object])
             metrics.evalAssertionBegin()
             context.setCurrentMetrics(metrics)
@@ -58,6 +59,7 @@ object DubboRunner {
         .map(result => {
           metrics.evalAssertionEnd()
           metrics.theEnd()
+          context.recordLatency(docId, metrics)
           result.metrics = metrics.toReportStepItemMetrics()
           result
         })
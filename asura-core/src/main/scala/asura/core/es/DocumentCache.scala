@@ -0,0 +1,132 @@
+package asura.core.es
+
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import java.util.concurrent.atomic.AtomicLong
+
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import asura.common.util.{JsonUtils, LogUtils}
+import asura.core.CoreConfig
+import asura.core.concurrent.ExecutionContextManager.sysGlobal
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.typesafe.scalalogging.Logger
+
+import scala.concurrent.Future
+import scala.jdk.CollectionConverters._
+
+/**
+ * Parsed documents which are read by every run, e.g. scenarios and steps. The documents must be
+ * invalidated after they are updated or deleted, `ttl` only bounds the staleness of documents
+ * which are changed by other ways. A load which overlaps an invalidation is not cached, so a
+ * stale document read before the invalidation can not be put after it.
+ *
+ * @param onInvalidate called with the ids invalidated on this node, e.g. to drop data derived
+ *                     from the documents
+ */
+class DocumentCache[T <: AnyRef](val name: String, onInvalidate: Seq[String] => Unit = _ => ()) {
+
+  // the config is applied again by `init`, the cache may be created before the config is set
+  private val cache: Cache[String, T] = Caffeine.newBuilder()
+    .maximumSize(CoreConfig.documentCacheConfig.maxSize)
+    .expireAfterWrite(CoreConfig.documentCacheConfig.ttl.toMillis, TimeUnit.MILLISECONDS)
+    .recordStats()
+    .build[String, T]()
+  // changed by every invalidation
+  private val version = new AtomicLong()
+
+  DocumentCache.caches.put(name, this)
+
+  /**
+   * @param load loads the missing documents, the result is returned as it is if it fails
+   */
+  def getAll(ids: Seq[String])(load: Seq[String] => Future[Map[String, T]]): Future[Map[String, T]] = {
+    if (!CoreConfig.documentCacheConfig.enabled || null == ids || ids.isEmpty) {
+      load(ids)
+    } else {
+      val cached = cache.getAllPresent(ids.asJava).asScala.toMap
+      val missing = ids.filterNot(cached.contains).distinct
+      if (missing.isEmpty) {
+        Future.successful(cached)
+      } else {
+        val loadVersion = version.get()
+        load(missing).map(loaded => {
+          if (loadVersion == version.get()) {
+            cache.putAll(loaded.asJava)
+          }
+          if (cached.isEmpty) loaded else cached ++ loaded
+        })
+      }
+    }
+  }
+
+  /** invalidate the documents of this node and broadcast to the other nodes */
+  def invalidate(ids: Seq[String]): Unit = {
+    invalidateLocal(ids)
+    DocumentCache.broadcast(name, ids)
+  }
+
+  def invalidateLocal(ids: Seq[String]): Unit = {
+    version.incrementAndGet()
+    if (null != ids) {
+      cache.invalidateAll(ids.asJava)
+      onInvalidate(ids)
+    }
+  }
+
+  def invalidateAll(): Unit = {
+    version.incrementAndGet()
+    cache.invalidateAll()
+  }
+
+  def init(): Unit = {
+    val policy = cache.policy()
+    policy.eviction().ifPresent(_.setMaximum(CoreConfig.documentCacheConfig.maxSize))
+    policy.expireAfterWrite().ifPresent(_.setExpiresAfter(CoreConfig.documentCacheConfig.ttl.toMillis, TimeUnit.MILLISECONDS))
+  }
+
+  def cacheMetrics(): CacheMetrics = CacheMetrics(cache)
+}
+
+object DocumentCache {
+
+  val logger = Logger("DocumentCache")
+  // invalidation messages are also received by the publisher, invalidating twice is harmless
+  val TOPIC = "asura.documents.invalidation"
+  private val caches = new ConcurrentHashMap[String, DocumentCache[_]]()
+
+  // sends the invalidated ids to the other nodes, set when the cluster is enabled
+  @volatile var broadcaster: String => Unit = null
+
+  MetricsRegistry.register("documents", () => stats())
+
+  /** apply the config to the caches created before it is set */
+  def init(): Unit = caches.forEach((_, cache) => cache.init())
+
+  /** invalidate by a message of another node */
+  def onMessage(msg: String): Unit = {
+    try {
+      val invalidation = JsonUtils.parse(msg, classOf[Invalidation])
+      val cache = caches.get(invalidation.cache)
+      if (null != cache) cache.invalidateLocal(invalidation.ids)
+    } catch {
+      case t: Throwable => logger.warn(s"invalid message: ${msg}, ${LogUtils.stackTraceToString(t)}")
+    }
+  }
+
+  def stats(): java.util.Map[String, CacheMetrics] = {
+    val map = new java.util.TreeMap[String, CacheMetrics]()
+    caches.forEach((name, cache) => map.put(name, cache.cacheMetrics()))
+    map
+  }
+
+  private def broadcast(name: String, ids: Seq[String]): Unit = {
+    val current = broadcaster
+    if (null != current && null != ids && ids.nonEmpty) {
+      try current(JsonUtils.stringify(Invalidation(name, ids))) catch {
+        case t: Throwable => logger.warn(s"broadcast invalidation of ${name} failed: ${t.getMessage}")
+      }
+    }
+  }
+
+  case class Invalidation(cache: String, ids: Seq[String])
+
+}
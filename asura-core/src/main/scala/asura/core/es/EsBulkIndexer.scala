@@ -0,0 +1,207 @@
+package asura.core.es
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+import akka.actor.Cancellable
+import akka.pattern.after
+import asura.common.actor.BaseActor
+import asura.common.metrics.MetricsRegistry
+import asura.core.CoreConfig
+import asura.core.CoreConfig.EsBulkConfig
+import asura.core.actor.messages.Flush
+import asura.core.es.EsBulkIndexer.{BulkCounters, BulkItem, BulkOver}
+import asura.core.util.JacksonSupport
+import com.sksamuel.elastic4s.http.ElasticDsl._
+import com.typesafe.scalalogging.Logger
+
+import scala.collection.mutable.ArrayBuffer
+import scala.concurrent.{ExecutionContext, Future}
+
+/**
+ * Buffer documents in an actor and save them by bulk requests. A bulk is sent when it is full by
+ * count or bytes, or by a single periodic timer. At most `maxInFlight` bulks are sent at the same
+ * time, others wait in the buffer, and the documents rejected by es are retried.
+ *
+ * The actor should handle messages by `bulkReceive` and call `startBulk` and `stopBulk`
+ * in `preStart` and `postStop`.
+ */
+trait EsBulkIndexer extends BaseActor {
+
+  /** name of the config and metrics, config is `asura.es.bulk.{name}` */
+  def bulkName: String
+
+  lazy val bulkConfig: EsBulkConfig = CoreConfig.getEsBulkConfig(bulkName)
+  private lazy val counters = EsBulkIndexer.counters(bulkName)
+  private val bulkBuffer = ArrayBuffer[BulkItem]()
+  private var bufferBytes = 0L
+  private var inFlight = 0
+  private var flushTimer: Cancellable = null
+
+  /** the document is serialized now, so the bytes are known before sent */
+  def addToBulk(index: String, id: String, doc: AnyRef): Unit = {
+    counters.queued.increment()
+    if (bulkBuffer.length >= bulkConfig.maxBuffered) {
+      counters.failed.increment()
+      log.warning(s"${bulkName} buffer is full, document is dropped")
+    } else {
+      val item = BulkItem(index, id, JacksonSupport.mapper.writeValueAsString(doc))
+      bulkBuffer += item
+      bufferBytes += item.source.length
+      if (isBulkFull) insert(false)
+    }
+  }
+
+  def bulkReceive: Receive = {
+    case Flush =>
+      insert(true)
+    case BulkOver =>
+      inFlight -= 1
+      insert(false)
+  }
+
+  def startBulk(): Unit = {
+    flushTimer = context.system.scheduler.scheduleWithFixedDelay(bulkConfig.flushInterval, bulkConfig.flushInterval)(() => {
+      self ! Flush
+    })(context.dispatcher)
+  }
+
+  def stopBulk(): Unit = {
+    if (null != flushTimer) flushTimer.cancel()
+    // send all the remaining documents, the in flight limit is ignored
+    while (bulkBuffer.nonEmpty) {
+      EsBulkIndexer.bulkIndex(nextBulk(), bulkConfig, counters, 0)(context.dispatcher)
+    }
+  }
+
+  private def isBulkFull: Boolean = {
+    bulkBuffer.length >= bulkConfig.maxActions || bufferBytes >= bulkConfig.maxBytes
+  }
+
+  /** @param partial whether a bulk which is not full should be sent */
+  private def insert(partial: Boolean): Unit = {
+    while (inFlight < bulkConfig.maxInFlight && bulkBuffer.nonEmpty && (partial || isBulkFull)) {
+      inFlight += 1
+      EsBulkIndexer.bulkIndex(nextBulk(), bulkConfig, counters, 0)(context.dispatcher)
+        .onComplete(_ => self ! BulkOver)(context.dispatcher)
+    }
+  }
+
+  private def nextBulk(): Seq[BulkItem] = {
+    var count = 0
+    var bytes = 0L
+    while (count < bulkBuffer.length && count < bulkConfig.maxActions &&
+      (count == 0 || bytes + bulkBuffer(count).source.length <= bulkConfig.maxBytes)) {
+      bytes += bulkBuffer(count).source.length
+      count += 1
+    }
+    val items = bulkBuffer.take(count).toIndexedSeq
+    bulkBuffer.remove(0, count)
+    bufferBytes -= bytes
+    items
+  }
+}
+
+object EsBulkIndexer {
+
+  val logger = Logger("EsBulkIndexer")
+  // status of the documents which can be retried
+  val RETRY_STATUS = Set(429, 503)
+
+  val NAME_REPORT_DATA_ITEM = "reportDataItem"
+  val NAME_ACTIVITY = "activity"
+  val NAME_TRIGGER_EVENT = "triggerEvent"
+  val NAME_UI_LOG = "uiLog"
+
+  private val allCounters = new ConcurrentHashMap[String, BulkCounters]()
+
+  MetricsRegistry.register("es.bulk", () => stats())
+
+  def counters(name: String): BulkCounters = allCounters.computeIfAbsent(name, _ => new BulkCounters())
+
+  /** the returned future will not fail, the failed documents are logged and counted */
+  def bulkIndex(
+                 items: Seq[BulkItem],
+                 config: EsBulkConfig,
+                 counters: BulkCounters,
+                 retries: Int,
+               )(implicit ec: ExecutionContext): Future[Unit] = {
+    EsClient.esClient.execute {
+      bulk(items.map(item => {
+        val request = indexInto(item.index / EsConfig.DefaultType).source(item.source)
+        if (null != item.id) request.id(item.id) else request
+      }))
+    }.transformWith(tried => {
+      val retryItems = if (tried.isSuccess && tried.get.isSuccess) {
+        val rejected = ArrayBuffer[BulkItem]()
+        var failedCount = 0
+        tried.get.result.failures.foreach(failure => {
+          if (RETRY_STATUS.contains(failure.status) && retries < config.maxRetries) {
+            rejected += items(failure.itemId)
+          } else {
+            failedCount += 1
+            logger.warn(s"document ${failure.index}/${failure.id} is not saved: ${failure.error.map(_.reason).orNull}")
+          }
+        })
+        counters.failed.add(failedCount)
+        counters.flushed.add(items.length - rejected.length - failedCount)
+        rejected.toSeq
+      } else {
+        val msg = if (tried.isFailure) tried.failed.get.getMessage else tried.get.error.reason
+        if (retries < config.maxRetries) {
+          items
+        } else {
+          counters.failed.add(items.length)
+          logger.warn(s"${items.length} documents are not saved: ${msg}")
+          Nil
+        }
+      }
+      if (retryItems.nonEmpty) {
+        counters.retried.add(retryItems.length)
+        after(config.retryBackoff * (retries + 1), CoreConfig.system.scheduler) {
+          bulkIndex(retryItems, config, counters, retries + 1)
+        }
+      } else {
+        Future.successful(())
+      }
+    })
+  }
+
+  def stats(): java.util.Map[String, BulkStats] = {
+    val map = new java.util.TreeMap[String, BulkStats]()
+    allCounters.forEach((name, counters) => map.put(name, counters.stats()))
+    map
+  }
+
+  /** @param id null if es should generate one */
+  case class BulkItem(index: String, id: String, source: String)
+
+  case object BulkOver
+
+  // documents of all the actors with the same name
+  class BulkCounters {
+
+    val queued = new LongAdder()
+    val flushed = new LongAdder()
+    val retried = new LongAdder()
+    val failed = new LongAdder()
+
+    def stats(): BulkStats = {
+      val flushedCount = flushed.sum()
+      val failedCount = failed.sum()
+      BulkStats(
+        queued = queued.sum() - flushedCount - failedCount,
+        flushed = flushedCount,
+        retried = retried.sum(),
+        failed = failedCount,
+      )
+    }
+  }
+
+  /**
+   * @param queued  documents in buffers or in flight
+   * @param retried documents sent again
+   */
+  case class BulkStats(queued: Long, flushed: Long, retried: Long, failed: Long)
+
+}
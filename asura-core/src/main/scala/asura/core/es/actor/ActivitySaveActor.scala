@@ -1,49 +1,29 @@
 package asura.core.es.actor
 
 import akka.actor.{Props, Status}
-import asura.common.actor.BaseActor
 import asura.common.util.LogUtils
-import asura.core.actor.messages.Flush
+import asura.core.es.EsBulkIndexer
 import asura.core.es.model.Activity
-import asura.core.es.service.ActivityService
 
-import scala.collection.mutable.ArrayBuffer
-import scala.concurrent.duration._
+class ActivitySaveActor extends EsBulkIndexer {
 
-class ActivitySaveActor extends BaseActor {
+  override def bulkName: String = EsBulkIndexer.NAME_ACTIVITY
 
-  val activities = ArrayBuffer[Activity]()
-
-  override def receive: Receive = {
+  override def receive: Receive = bulkReceive orElse {
     case m: Activity =>
-      activities += m
-      if (activities.length >= 20) {
-        insert()
-      }
-      context.system.scheduler.scheduleOnce(2 seconds) {
-        self ! Flush
-      }(context.system.dispatcher)
-    case Flush =>
-      insert()
+      addToBulk(Activity.Index, null, m)
     case Status.Failure(t) =>
       log.warning(LogUtils.stackTraceToString(t))
   }
 
   override def preStart(): Unit = {
+    startBulk()
   }
 
   override def postStop(): Unit = {
-    insert()
+    stopBulk()
     log.debug(s"${self.path} is stopped")
   }
-
-  private def insert(): Unit = {
-    if (activities.length > 0) {
-      log.debug(s"${activities.length} activities is saving...")
-      ActivityService.index(activities.toSeq)
-      activities.clear()
-    }
-  }
 }
 
 object ActivitySaveActor {
@@ -1,49 +1,29 @@
 package asura.core.es.actor
 
 import akka.actor.{Props, Status}
-import asura.common.actor.BaseActor
 import asura.common.util.LogUtils
-import asura.core.actor.messages.Flush
+import asura.core.es.EsBulkIndexer
 import asura.core.es.model.TriggerEventLog
-import asura.core.es.service.TriggerEventLogService
 
-import scala.collection.mutable.ArrayBuffer
-import scala.concurrent.duration._
+class TriggerEventsSaveActor extends EsBulkIndexer {
 
-class TriggerEventsSaveActor extends BaseActor {
+  override def bulkName: String = EsBulkIndexer.NAME_TRIGGER_EVENT
 
-  val logs = ArrayBuffer[TriggerEventLog]()
-
-  override def receive: Receive = {
+  override def receive: Receive = bulkReceive orElse {
     case m: TriggerEventLog =>
-      logs += m
-      if (logs.length >= 20) {
-        insert()
-      }
-      context.system.scheduler.scheduleOnce(2 seconds) {
-        self ! Flush
-      }(context.system.dispatcher)
-    case Flush =>
-      insert()
+      addToBulk(TriggerEventLog.Index, null, m)
     case Status.Failure(t) =>
       log.warning(LogUtils.stackTraceToString(t))
   }
 
   override def preStart(): Unit = {
+    startBulk()
   }
 
   override def postStop(): Unit = {
-    insert()
+    stopBulk()
     log.debug(s"${self.path} is stopped")
   }
-
-  private def insert(): Unit = {
-    if (logs.length > 0) {
-      log.debug(s"${logs.length} trigger events is saving...")
-      TriggerEventLogService.index(logs)
-      logs.clear()
-    }
-  }
 }
 
 object TriggerEventsSaveActor {
@@ -5,32 +5,26 @@ import java.util.Collections
 
 import akka.actor.{Props, Status}
 import akka.pattern.pipe
-import asura.common.actor.BaseActor
 import asura.common.util.{DateUtils, LogUtils}
-import asura.core.actor.messages.Flush
+import asura.core.es.EsBulkIndexer
 import asura.core.es.actor.UiTaskListenerActor.WrappedLog
 import asura.core.es.model.FormDataItem.BlobMetaData
 import asura.core.es.model.{LogEntry, UiTaskReport}
-import asura.core.es.service.{LogEntryService, UiTaskReportService}
+import asura.core.es.service.UiTaskReportService
 import asura.core.store.BlobStoreEngine
 import asura.ui.actor.ChromeDriverHolderActor._
 import asura.ui.driver.{DevToolsProtocol, DriverCommandLog}
 import asura.ui.model.BytesObject
 
-import scala.collection.mutable.ArrayBuffer
-import scala.concurrent.duration._
 import scala.concurrent.{ExecutionContext, Future}
 
-/**
- * @param bufferSize
- * @param flushInterval in ms
- */
-class UiTaskListenerActor(imageStore: Option[BlobStoreEngine], bufferSize: Int, flushInterval: Int) extends BaseActor {
+class UiTaskListenerActor(imageStore: Option[BlobStoreEngine]) extends EsBulkIndexer {
 
   implicit val ec = context.dispatcher
-  val buffer = ArrayBuffer[WrappedLog]()
 
-  override def receive: Receive = {
+  override def bulkName: String = EsBulkIndexer.NAME_UI_LOG
+
+  override def receive: Receive = bulkReceive orElse {
 
     case TaskListenerCreateMessage(command) => // create a report and return the reportId
       val now = DateUtils.nowDateTime
@@ -57,12 +51,7 @@ class UiTaskListenerActor(imageStore: Option[BlobStoreEngine], bufferSize: Int,
     case TaskListenerDriverCommandLogMessage(data) => // command logs
       UiTaskListenerActor.driverCommandLogMessageToLog(data, imageStore) pipeTo self
     case log: WrappedLog => // eg: (2021.01.15, _)
-      buffer += log
-      if (buffer.length >= bufferSize) {
-        self ! Flush
-      }
-    case Flush =>
-      insert()
+      addToBulk(s"${LogEntry.Index}-${log.date}", null, log.log)
     case Status.Failure(t) =>
       log.warning(LogUtils.stackTraceToString(t))
     case msg =>
@@ -70,24 +59,14 @@ class UiTaskListenerActor(imageStore: Option[BlobStoreEngine], bufferSize: Int,
   }
 
   override def preStart(): Unit = {
-    context.system.scheduler.scheduleAtFixedRate(1 minute, flushInterval millis)(() => {
-      self ! Flush
-    })
+    startBulk()
   }
 
   override def postStop(): Unit = {
-    insert()
+    stopBulk()
     log.debug(s"${self.path} is stopped")
   }
 
-  private def insert(): Unit = {
-    if (buffer.length > 0) {
-      log.debug(s"${buffer.length} log entry is saving...")
-      LogEntryService.index(buffer.toSeq)
-      buffer.clear()
-    }
-  }
-
 }
 
 object UiTaskListenerActor {
@@ -96,13 +75,7 @@ object UiTaskListenerActor {
 
   case class BytesObjectStore(locator: String, store: BlobMetaData, errMsg: String)
 
-  def props(
-             imageStore: Option[BlobStoreEngine],
-             bufferSize: Int = 1000,
-             flushInterval: Int = 5000,
-           ) = {
-    Props(new UiTaskListenerActor(imageStore, bufferSize, flushInterval))
-  }
+  def props(imageStore: Option[BlobStoreEngine]) = Props(new UiTaskListenerActor(imageStore))
 
   def devToolsMessageToLog(msg: DriverDevToolsMessage): WrappedLog = {
     val meta = msg.meta
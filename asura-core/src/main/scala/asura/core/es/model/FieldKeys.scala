@@ -59,6 +59,7 @@ object FieldKeys {
   val FIELD_CS = "cs"
   val FIELD_SCENARIO = "scenario"
   val FIELD_EXT = "ext"
+  val FIELD_PARALLELISM = "parallelism"
   val FIELD_START_AT = "startAt"
   val FIELD_END_AT = "endAt"
   val FIELD_ELAPSE = "elapse"
@@ -148,6 +149,7 @@ object FieldKeys {
   val FIELD_DATABASE = "database"
   val FIELD_TABLE = "table"
   val FIELD_SQL = "sql"
+  val FIELD_PREPARED = "prepared"
   val FIELD_STORED = "stored"
   val FIELD_IMPORTS = "imports"
   val FIELD_EXPORTS = "exports"
@@ -80,7 +80,12 @@ case class Job(
     } else {
       null
     }
-    Map(FieldKeys.FIELD_CS -> cs, FieldKeys.FIELD_SCENARIO -> scenario, FieldKeys.FIELD_EXT -> ext)
+    Map(
+      FieldKeys.FIELD_CS -> cs,
+      FieldKeys.FIELD_SCENARIO -> scenario,
+      FieldKeys.FIELD_EXT -> ext,
+      FieldKeys.FIELD_PARALLELISM -> Integer.valueOf(jobData.parallelism),
+    )
   }
 }
 
@@ -115,6 +120,7 @@ object Job extends IndexSetting {
           KeywordField(name = FieldKeys.FIELD_ID),
         )),
         ObjectField(name = FieldKeys.FIELD_EXT, dynamic = Option("false")),
+        BasicField(name = FieldKeys.FIELD_PARALLELISM, `type` = "integer"),
       )),
       KeywordField(name = FieldKeys.FIELD_ENV),
       NestedField(name = FieldKeys.FIELD_LABELS, fields = Seq(
@@ -6,6 +6,8 @@ case class JobData(
                     cs: Seq[DocRef] = Nil,
                     scenario: Seq[ScenarioStep] = Nil,
                     ext: JobDataExt = null,
+                    // max scenarios of the same parallel group running at the same time
+                    parallelism: Int = 1,
                   ) {
 }
 
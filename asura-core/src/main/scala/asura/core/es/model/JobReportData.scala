@@ -10,6 +10,7 @@ import asura.core.es.EsConfig
 import asura.core.es.model.JobReportData.{JobReportStepItemData, ScenarioReportItemData}
 import asura.core.http.HttpResult
 import asura.core.runtime.AbstractResult
+import asura.core.runtime.LatencyRecorder.LatencyReport
 import asura.core.sql.SqlResult
 import com.fasterxml.jackson.annotation.JsonIgnore
 
@@ -21,7 +22,9 @@ case class JobReportData(
                           var cases: Seq[JobReportStepItemData] = Nil,
                           var scenarios: Seq[ScenarioReportItemData] = Nil,
                           var ext: Map[String, Any] = Map.empty,
-                          var renderedDescription: String = null
+                          var renderedDescription: String = null,
+                          // phase latency histograms of the steps
+                          var latency: LatencyReport = null,
                         )
 
 object JobReportData {
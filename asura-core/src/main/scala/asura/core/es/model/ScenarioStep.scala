@@ -36,9 +36,13 @@ object ScenarioStep {
   val TIME_UNIT_SECOND = "second"
   val TIME_UNIT_MINUTE = "minute"
 
+  /**
+   * @param group scenario steps of a job which are next to each other and have the same group run concurrently
+   */
   case class StepData(
                        delay: DelayCondition = null,
                        jump: JumpConditions = null,
+                       group: String = null,
                      )
 
   case class DelayCondition(value: Int, timeUnit: String)
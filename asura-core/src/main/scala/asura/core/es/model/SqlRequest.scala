@@ -81,6 +81,7 @@ object SqlRequest extends IndexSetting {
           KeywordField(name = FieldKeys.FIELD_DATABASE),
           KeywordField(name = FieldKeys.FIELD_TABLE),
           TextField(name = FieldKeys.FIELD_SQL, analysis = EsConfig.IK_ANALYZER),
+          BasicField(name = FieldKeys.FIELD_PREPARED, `type` = "boolean"),
         )
       ),
       ObjectField(name = FieldKeys.FIELD_ASSERT, dynamic = Some("false")),
@@ -97,6 +98,10 @@ object SqlRequest extends IndexSetting {
     )
   )
 
+  /**
+   * @param prepared render the macros in `sql` as bind parameters and execute it by a prepared statement,
+   *                 macros used as identifiers or keywords should be in a quoted identifier then
+   */
   case class SqlRequestBody(
                              val host: String,
                              val port: Int,
@@ -106,11 +111,12 @@ object SqlRequest extends IndexSetting {
                              val database: String,
                              var table: String,
                              val sql: String,
+                             val prepared: Boolean = false,
                            ) {
 
     def copyFrom(host: String, port: Int, database: String, sql: String): SqlRequestBody = {
       SqlRequestBody(
-        host, port, username, password, encryptedPass, database, table, sql
+        host, port, username, password, encryptedPass, database, table, sql, prepared
       )
     }
   }
@@ -4,9 +4,10 @@ import asura.common.exceptions.ErrorMessages.ErrorMessage
 import asura.common.model.ApiMsg
 import asura.common.util.{FutureUtils, StringUtils}
 import asura.core.ErrorMessages
+import asura.core.assertion.engine.AssertionPlan
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model._
-import asura.core.es.{EsClient, EsConfig, EsResponse}
+import asura.core.es.{DocumentCache, EsClient, EsConfig, EsResponse}
 import asura.core.model.QueryDubboRequest
 import asura.core.util.JacksonSupport
 import asura.core.util.JacksonSupport.jacksonJsonIndexable
@@ -36,6 +37,8 @@ object DubboRequestService extends CommonService with BaseAggregationService {
   val queryFields = basicFields ++ Seq(
     FieldKeys.FIELD_EXPORTS,
   )
+  // steps read by runs, they are shared and should not be changed
+  val cache = new DocumentCache[DubboRequest]("dubbo", AssertionPlan.invalidate)
 
   def index(doc: DubboRequest): Future[IndexDocResponse] = {
     val error = validate(doc)
@@ -54,7 +57,7 @@ object DubboRequestService extends CommonService with BaseAggregationService {
     } else {
       EsClient.esClient.execute {
         delete(id).from(DubboRequest.Index / EsConfig.DefaultType).refresh(RefreshPolicy.WaitFor)
-      }.map(toDeleteDocResponse(_))
+      }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toDeleteDocResponse(_))
     }
   }
 
@@ -63,8 +66,8 @@ object DubboRequestService extends CommonService with BaseAggregationService {
       FutureUtils.illegalArgs(ApiMsg.INVALID_REQUEST_BODY)
     } else {
       EsClient.esClient.execute {
-        bulk(ids.map(id => delete(id).from(DubboRequest.Index / EsConfig.DefaultType)))
-      }.map(toBulkDocResponse(_))
+        bulk(ids.map(id => delete(id).from(DubboRequest.Index / EsConfig.DefaultType))).refresh(RefreshPolicy.WaitFor)
+      }.andThen { case _ => cache.invalidate(ids) }.map(toBulkDocResponse(_))
     }
   }
 
@@ -105,6 +108,11 @@ object DubboRequestService extends CommonService with BaseAggregationService {
     }
   }
 
+  /** the cached steps to run, the result should not be changed */
+  def getCachedByIds(ids: Seq[String]): Future[Map[String, DubboRequest]] = {
+    cache.getAll(ids)(getByIdsAsMap(_))
+  }
+
   def getByIdsAsMap(ids: Seq[String], filterFields: Boolean = false): Future[Map[String, DubboRequest]] = {
     if (null != ids && ids.nonEmpty) {
       val map = mutable.HashMap[String, DubboRequest]()
@@ -186,7 +194,8 @@ object DubboRequestService extends CommonService with BaseAggregationService {
             .script {
               script(src).params(params)
             }
-        }.map(toUpdateDocResponse(_))
+            .refresh(RefreshPolicy.WaitFor)
+        }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toUpdateDocResponse(_))
       }
     }
   }
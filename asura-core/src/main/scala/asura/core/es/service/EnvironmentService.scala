@@ -4,10 +4,10 @@ import asura.common.exceptions.ErrorMessages.ErrorMessage
 import asura.common.exceptions.RequestFailException
 import asura.common.util.StringUtils
 import asura.core.ErrorMessages
-import asura.core.auth.AuthManager
+import asura.core.auth.{AuthManager, AuthTokenCache}
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model.{DeleteDocResponse, Environment, FieldKeys, IndexDocResponse}
-import asura.core.es.{EsClient, EsConfig}
+import asura.core.es.{DocumentCache, EsClient, EsConfig}
 import asura.core.model.QueryEnv
 import asura.core.util.JacksonSupport
 import asura.core.util.JacksonSupport.jacksonJsonIndexable
@@ -23,6 +23,9 @@ import scala.concurrent.{ExecutionContext, Future}
 object EnvironmentService extends CommonService {
 
   val logger = Logger("EnvironmentService")
+  // environments used by runs, they are shared and should not be changed, e.g. masked
+  // the tokens of an environment are dropped with it on every node
+  val cache = new DocumentCache[Environment]("env", ids => ids.foreach(AuthTokenCache.invalidateEnv))
 
   def index(env: Environment): Future[IndexDocResponse] = {
     val error = validate(env)
@@ -41,7 +44,7 @@ object EnvironmentService extends CommonService {
     } else {
       EsClient.esClient.execute {
         delete(id).from(Environment.Index / EsConfig.DefaultType).refresh(RefreshPolicy.WaitFor)
-      }.map(toDeleteDocResponse(_))
+      }.andThen { case _ => invalidate(id) }.map(toDeleteDocResponse(_))
     }
   }
 
@@ -67,7 +70,7 @@ object EnvironmentService extends CommonService {
           update(id).in(Environment.Index / EsConfig.DefaultType)
             .doc(JacksonSupport.stringify(env.toUpdateMap))
             .refresh(RefreshPolicy.WaitFor)
-        }.map(toUpdateDocResponse(_))
+        }.andThen { case _ => invalidate(id) }.map(toUpdateDocResponse(_))
       }
     }
   }
@@ -124,6 +127,15 @@ object EnvironmentService extends CommonService {
     }
   }
 
+  /** the cached environment to run, the result should not be changed */
+  def getCachedEnvById(id: String): Future[Environment] = {
+    if (StringUtils.isEmpty(id)) {
+      Future.successful(null)
+    } else {
+      cache.getAll(Seq(id))(_ => getEnvById(id).map(env => Map(id -> env))).map(_ (id))
+    }
+  }
+
   def getEnvById(id: String)(implicit executor: ExecutionContext): Future[Environment] = {
     if (StringUtils.isEmpty(id)) {
       Future.successful(null)
@@ -143,6 +155,10 @@ object EnvironmentService extends CommonService {
     }
   }
 
+  private def invalidate(id: String): Unit = {
+    cache.invalidate(Seq(id))
+  }
+
   def queryEnv(query: QueryEnv) = {
     var sortFields = Seq(FieldSort(FieldKeys.FIELD_CREATED_AT).desc())
     val esQueries = ArrayBuffer[Query]()
@@ -3,11 +3,12 @@ package asura.core.es.service
 import asura.common.exceptions.RequestFailException
 import asura.common.util.StringUtils
 import asura.core.ErrorMessages
+import asura.core.assertion.engine.AssertionPlan
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model.JobData.JobDataExt
 import asura.core.es.model._
 import asura.core.es.service.BaseAggregationService._
-import asura.core.es.{EsClient, EsConfig, EsResponse}
+import asura.core.es.{DocumentCache, EsClient, EsConfig, EsResponse}
 import asura.core.http.HttpValidator
 import asura.core.model.BatchOperation.{BatchOperationLabels, BatchTransfer}
 import asura.core.model._
@@ -40,6 +41,8 @@ object HttpRequestService extends CommonService with BaseAggregationService {
   val queryFields = basicFields ++ Seq(
     FieldKeys.FIELD_EXPORTS, FieldKeys.FIELD_COPY_FROM
   )
+  // steps read by runs, they are shared and should not be changed
+  val cache = new DocumentCache[HttpStepRequest]("http", AssertionPlan.invalidate)
 
   def index(cs: HttpStepRequest): Future[IndexDocResponse] = {
     val error = HttpValidator.check(cs)
@@ -72,13 +75,13 @@ object HttpRequestService extends CommonService with BaseAggregationService {
   def deleteDoc(id: String): Future[DeleteDocResponse] = {
     EsClient.esClient.execute {
       delete(id).from(HttpStepRequest.Index / EsConfig.DefaultType).refresh(RefreshPolicy.WaitFor)
-    }.map(toDeleteDocResponse(_))
+    }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toDeleteDocResponse(_))
   }
 
   def deleteDoc(ids: Seq[String]): Future[DeleteDocResponse] = {
     EsClient.esClient.execute {
       bulk(ids.map(id => delete(id).from(HttpStepRequest.Index / EsConfig.DefaultType))).refresh(RefreshPolicy.WaitFor)
-    }.map(toDeleteDocResponseFromBulk(_))
+    }.andThen { case _ => cache.invalidate(ids) }.map(toDeleteDocResponseFromBulk(_))
   }
 
   def getById(id: String) = {
@@ -125,8 +128,8 @@ object HttpRequestService extends CommonService with BaseAggregationService {
           val (src, params) = cs.toUpdateScriptParams
           update(id).in(HttpStepRequest.Index / EsConfig.DefaultType).script {
             script(src).params(params)
-          }
-        }.map(toUpdateDocResponse(_))
+          }.refresh(RefreshPolicy.WaitFor)
+        }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toUpdateDocResponse(_))
       } else {
         error.toFutureFail
       }
@@ -156,6 +159,11 @@ object HttpRequestService extends CommonService with BaseAggregationService {
     }
   }
 
+  /** the cached steps to run, the result should not be changed */
+  def getCachedByIds(ids: Seq[String]): Future[Map[String, HttpStepRequest]] = {
+    cache.getAll(ids)(getByIdsAsMap(_))
+  }
+
   def getByIdsAsMap(ids: Seq[String], filterFields: Boolean = false): Future[Map[String, HttpStepRequest]] = {
     if (null != ids && ids.nonEmpty) {
       val map = mutable.HashMap[String, HttpStepRequest]()
@@ -353,7 +361,7 @@ object HttpRequestService extends CommonService with BaseAggregationService {
           val labels = item.labels.map(label => Map(FieldKeys.FIELD_NAME -> label.name))
           update(item.id).in(HttpStepRequest.Index / EsConfig.DefaultType).doc(Map(FieldKeys.FIELD_LABELS -> labels))
         })
-      }.refresh(RefreshPolicy.WaitFor)).map(toBulkDocResponse(_))
+      }.refresh(RefreshPolicy.WaitFor)).andThen { case _ => cache.invalidate(batch.labels.map(_.id)) }.map(toBulkDocResponse(_))
     } else {
       ErrorMessages.error_EmptyRequestBody.toFutureFail
     }
@@ -370,7 +378,7 @@ object HttpRequestService extends CommonService with BaseAggregationService {
           )
           update(csId).in(HttpStepRequest.Index / EsConfig.DefaultType).doc(docMap)
         })
-      }.refresh(RefreshPolicy.WaitFor)).map(toBulkDocResponse(_))
+      }.refresh(RefreshPolicy.WaitFor)).andThen { case _ => cache.invalidate(batch.ids) }.map(toBulkDocResponse(_))
     } else {
       ErrorMessages.error_InvalidRequestParameters.toFutureFail
     }
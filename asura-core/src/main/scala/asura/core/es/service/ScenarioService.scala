@@ -5,7 +5,7 @@ import asura.common.util.{DateUtils, JsonUtils, StringUtils}
 import asura.core.ErrorMessages
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model._
-import asura.core.es.{EsClient, EsConfig, EsResponse}
+import asura.core.es.{DocumentCache, EsClient, EsConfig, EsResponse}
 import asura.core.model.QueryScenario
 import asura.core.util.JacksonSupport
 import asura.core.util.JacksonSupport.jacksonJsonIndexable
@@ -30,6 +30,8 @@ object ScenarioService extends CommonService with BaseAggregationService {
     FieldKeys.FIELD_PROJECT,
     FieldKeys.FIELD_LABELS,
   )
+  // scenarios read by runs, they are shared and should not be changed
+  val cache = new DocumentCache[Scenario]("scenario")
 
   def index(s: Scenario): Future[IndexDocResponse] = {
     val error = check(s)
@@ -45,13 +47,13 @@ object ScenarioService extends CommonService with BaseAggregationService {
   def deleteDoc(id: String): Future[DeleteDocResponse] = {
     EsClient.esClient.execute {
       delete(id).from(Scenario.Index / EsConfig.DefaultType).refresh(RefreshPolicy.WaitFor)
-    }.map(toDeleteDocResponse(_))
+    }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toDeleteDocResponse(_))
   }
 
   def deleteDoc(ids: Seq[String]): Future[BulkDocResponse] = {
     EsClient.esClient.execute {
-      bulk(ids.map(id => delete(id).from(Scenario.Index / EsConfig.DefaultType)))
-    }.map(toBulkDocResponse(_))
+      bulk(ids.map(id => delete(id).from(Scenario.Index / EsConfig.DefaultType))).refresh(RefreshPolicy.WaitFor)
+    }.andThen { case _ => cache.invalidate(ids) }.map(toBulkDocResponse(_))
   }
 
   def getById(id: String) = {
@@ -192,8 +194,8 @@ object ScenarioService extends CommonService with BaseAggregationService {
       ErrorMessages.error_EmptyId.toFutureFail
     } else {
       EsClient.esClient.execute {
-        update(id).in(Scenario.Index / EsConfig.DefaultType).doc(JsonUtils.stringify(s.toUpdateMap))
-      }.map(toUpdateDocResponse(_))
+        update(id).in(Scenario.Index / EsConfig.DefaultType).doc(JsonUtils.stringify(s.toUpdateMap)).refresh(RefreshPolicy.WaitFor)
+      }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toUpdateDocResponse(_))
     }
   }
 
@@ -214,6 +216,17 @@ object ScenarioService extends CommonService with BaseAggregationService {
     })
   }
 
+  /** the cached scenarios to run, the result should not be changed */
+  def getCachedScenariosByIds(ids: Seq[String]): Future[Map[String, Scenario]] = {
+    cache.getAll(ids)(getScenariosByIdsAsMap)
+  }
+
+  def getCachedScenarioById(id: String): Future[Scenario] = {
+    getCachedScenariosByIds(Seq(id)).map(scenarios => {
+      scenarios.getOrElse(id, throw ErrorMessages.error_IdNonExists.toException)
+    })
+  }
+
   def getScenariosByIdsAsMap(ids: Seq[String]): Future[Map[String, Scenario]] = {
     getByIds(ids).map(res => {
       val map = mutable.Map[String, Scenario]()
@@ -6,9 +6,10 @@ import java.util.Base64
 import asura.common.exceptions.ErrorMessages.ErrorMessage
 import asura.common.model.ApiMsg
 import asura.common.util.{FutureUtils, RSAUtils, StringUtils}
+import asura.core.assertion.engine.AssertionPlan
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model._
-import asura.core.es.{EsClient, EsConfig, EsResponse}
+import asura.core.es.{DocumentCache, EsClient, EsConfig, EsResponse}
 import asura.core.model.QuerySqlRequest
 import asura.core.sql.SqlParserUtils
 import asura.core.util.JacksonSupport
@@ -41,6 +42,8 @@ object SqlRequestService extends CommonService with BaseAggregationService {
   val queryFields = basicFields ++ Seq(
     FieldKeys.FIELD_EXPORTS,
   )
+  // steps read by runs, they are shared and should not be changed
+  val cache = new DocumentCache[SqlRequest]("sql", AssertionPlan.invalidate)
 
   def index(doc: SqlRequest): Future[IndexDocResponse] = {
     val error = validate(doc)
@@ -59,7 +62,7 @@ object SqlRequestService extends CommonService with BaseAggregationService {
     } else {
       EsClient.esClient.execute {
         delete(id).from(SqlRequest.Index / EsConfig.DefaultType).refresh(RefreshPolicy.WaitFor)
-      }.map(toDeleteDocResponse(_))
+      }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toDeleteDocResponse(_))
     }
   }
 
@@ -68,8 +71,8 @@ object SqlRequestService extends CommonService with BaseAggregationService {
       FutureUtils.illegalArgs(ApiMsg.INVALID_REQUEST_BODY)
     } else {
       EsClient.esClient.execute {
-        bulk(ids.map(id => delete(id).from(SqlRequest.Index / EsConfig.DefaultType)))
-      }.map(toBulkDocResponse(_))
+        bulk(ids.map(id => delete(id).from(SqlRequest.Index / EsConfig.DefaultType))).refresh(RefreshPolicy.WaitFor)
+      }.andThen { case _ => cache.invalidate(ids) }.map(toBulkDocResponse(_))
     }
   }
 
@@ -110,6 +113,11 @@ object SqlRequestService extends CommonService with BaseAggregationService {
     }
   }
 
+  /** the cached steps to run, the result should not be changed */
+  def getCachedByIds(ids: Seq[String]): Future[Map[String, SqlRequest]] = {
+    cache.getAll(ids)(getByIdsAsMap(_))
+  }
+
   def getByIdsAsMap(ids: Seq[String], filterFields: Boolean = false): Future[Map[String, SqlRequest]] = {
     if (null != ids && ids.nonEmpty) {
       val map = mutable.HashMap[String, SqlRequest]()
@@ -194,7 +202,8 @@ object SqlRequestService extends CommonService with BaseAggregationService {
             .script {
               script(src).params(params)
             }
-        }.map(toUpdateDocResponse(_))
+            .refresh(RefreshPolicy.WaitFor)
+        }.andThen { case _ => cache.invalidate(Seq(id)) }.map(toUpdateDocResponse(_))
       }
     }
   }
@@ -0,0 +1,137 @@
+package asura.core.http
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong, LongAdder}
+
+import akka.http.scaladsl.model.{HttpRequest, HttpResponse}
+import akka.http.scaladsl.settings.ConnectionPoolSettings
+import asura.common.metrics.MetricsRegistry
+import asura.core.CoreConfig
+import asura.core.CoreConfig.HttpPoolConfig
+import asura.core.concurrent.ExecutionContextManager.sysGlobal
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+
+import scala.concurrent.Future
+import scala.concurrent.duration._
+
+/**
+ * Connection pool settings of each host or proxy server. Akka creates a pool for every
+ * `(host, port, settings)`, so requests to the same target always reuse the same pool. At most
+ * `MAX_POOLS` targets are kept, an evicted one is created again with equal settings when used,
+ * which only resets its stats.
+ */
+object HttpConnectionPools {
+
+  val PROXY_KEY_PREFIX = "proxy:"
+  val MAX_POOLS = 1000
+  val EXPIRE_AFTER_ACCESS = 1.hour
+
+  private val pools: Cache[String, HttpConnectionPool] = Caffeine.newBuilder()
+    .maximumSize(MAX_POOLS)
+    .expireAfterAccess(EXPIRE_AFTER_ACCESS.toMillis, TimeUnit.MILLISECONDS)
+    .build[String, HttpConnectionPool]()
+
+  MetricsRegistry.register("http.pools", () => stats())
+
+  /** pool of the request target, config is looked up by `host:port` and then `host` */
+  def forRequest(request: HttpRequest): HttpConnectionPool = {
+    val host = request.uri.authority.host.address()
+    val key = s"${host}:${request.uri.effectivePort}"
+    pools.get(key, _ => {
+      val configs = CoreConfig.httpConfig.pools
+      new HttpConnectionPool(key, configs.getOrElse(key, configs.getOrElse(host, CoreConfig.httpConfig.defaultPool)))
+    })
+  }
+
+  /** pool of the linkerd proxy server, config is looked up by `proxy:tag` */
+  def forProxy(proxyServerTag: String): HttpConnectionPool = {
+    val key = s"${PROXY_KEY_PREFIX}${proxyServerTag}"
+    pools.get(key, _ => {
+      new HttpConnectionPool(key, CoreConfig.httpConfig.pools.getOrElse(key, CoreConfig.httpConfig.defaultPool))
+    })
+  }
+
+  /** settings are changed, the pools will be created again when used */
+  def clear(): Unit = pools.invalidateAll()
+
+  def stats(): java.util.Map[String, HttpPoolStats] = {
+    val map = new java.util.TreeMap[String, HttpPoolStats]()
+    pools.asMap().forEach((key, pool) => map.put(key, pool.stats()))
+    map
+  }
+
+  class HttpConnectionPool(val key: String, val config: HttpPoolConfig) {
+
+    val settings: ConnectionPoolSettings = {
+      var settings = ConnectionPoolSettings(CoreConfig.system)
+      config.maxConnections.foreach(value => settings = settings.withMaxConnections(value))
+      config.maxOpenRequests.foreach(value => settings = settings.withMaxOpenRequests(value))
+      config.pipeliningLimit.foreach(value => settings = settings.withPipeliningLimit(value))
+      config.idleTimeout.foreach(value => settings = settings.withIdleTimeout(value))
+      config.keepAliveTimeout.foreach(value => {
+        settings = settings.withConnectionSettings(settings.connectionSettings.withIdleTimeout(value))
+      })
+      settings
+    }
+
+    private val pending = new AtomicInteger()
+    private val maxPending = new AtomicInteger()
+    private val requests = new LongAdder()
+    private val completed = new LongAdder()
+    private val failures = new LongAdder()
+    private val totalLatencyNanos = new LongAdder()
+    private val maxLatencyNanos = new AtomicLong()
+
+    /**
+     * record the latency from sending the request to receiving the response headers, it includes
+     * the time waiting for a connection of the pool and the time processed by the server
+     */
+    def track(send: => Future[HttpResponse]): Future[HttpResponse] = {
+      val current = pending.incrementAndGet()
+      maxPending.accumulateAndGet(current, (a, b) => Math.max(a, b))
+      requests.increment()
+      val start = System.nanoTime()
+      val future = try send catch {
+        case t: Throwable => Future.failed(t)
+      }
+      future.onComplete(result => {
+        pending.decrementAndGet()
+        val elapsed = System.nanoTime() - start
+        totalLatencyNanos.add(elapsed)
+        maxLatencyNanos.accumulateAndGet(elapsed, (a, b) => Math.max(a, b))
+        completed.increment()
+        if (result.isFailure) failures.increment()
+      })
+      future
+    }
+
+    def stats(): HttpPoolStats = {
+      val totalNanos = totalLatencyNanos.sum()
+      val count = completed.sum()
+      HttpPoolStats(
+        maxConnections = settings.maxConnections,
+        maxOpenRequests = settings.maxOpenRequests,
+        pipeliningLimit = settings.pipeliningLimit,
+        pending = pending.get(),
+        maxPending = maxPending.get(),
+        requests = requests.sum(),
+        failures = failures.sum(),
+        avgLatencyMillis = if (count > 0) totalNanos / count / 1000000 else 0,
+        maxLatencyMillis = maxLatencyNanos.get() / 1000000,
+      )
+    }
+  }
+
+  case class HttpPoolStats(
+                            maxConnections: Int,
+                            maxOpenRequests: Int,
+                            pipeliningLimit: Int,
+                            pending: Int,
+                            maxPending: Int,
+                            requests: Long,
+                            failures: Long,
+                            avgLatencyMillis: Long,
+                            maxLatencyMillis: Long,
+                          )
+
+}
@@ -57,7 +57,9 @@ object HttpEngine {
   }
 
   def singleRequestWithProxy(request: HttpRequest, proxyServerTag: String): Future[HttpResponse] = {
-    buildProxyRequest(request, proxyServerTag).flatMap(request => singleRequest(request))
+    buildProxyRequest(request, proxyServerTag).flatMap(request => {
+      singleRequest(request, HttpConnectionPools.forProxy(proxyServerTag))
+    })
   }
 
   def singleRequestWithProxy[T >: Null <: AnyRef](
@@ -77,20 +79,28 @@ object HttpEngine {
   )
   val ctx = http.createClientHttpsContext(badSslConfig)
 
+  // built once, so the ssl sessions can be reused by the connections of all the pools
+  lazy val httpsCtx = new HttpsConnectionContext(
+    trustfulSslContext,
+    ctx.sslConfig,
+    ctx.enabledCipherSuites,
+    ctx.enabledProtocols,
+    ctx.clientAuth,
+    ctx.sslParameters,
+    UseHttp2.Negotiated
+  )
+
   def singleRequest(request: HttpRequest): Future[HttpResponse] = {
-    if (Protocols.HTTPS.equals(request.uri.scheme)) {
-      val httpsCtx = new HttpsConnectionContext(
-        trustfulSslContext,
-        ctx.sslConfig,
-        ctx.enabledCipherSuites,
-        ctx.enabledProtocols,
-        ctx.clientAuth,
-        ctx.sslParameters,
-        UseHttp2.Negotiated
-      )
-      http.singleRequest(request, httpsCtx)
-    } else {
-      http.singleRequest(request)
+    singleRequest(request, HttpConnectionPools.forRequest(request))
+  }
+
+  private def singleRequest(request: HttpRequest, pool: HttpConnectionPools.HttpConnectionPool): Future[HttpResponse] = {
+    pool.track {
+      if (Protocols.HTTPS.equals(request.uri.scheme)) {
+        http.singleRequest(request, httpsCtx, pool.settings)
+      } else {
+        http.singleRequest(request, settings = pool.settings)
+      }
     }
   }
 
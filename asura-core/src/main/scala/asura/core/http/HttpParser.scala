@@ -2,7 +2,7 @@ package asura.core.http
 
 import akka.http.scaladsl.model.{HttpMethods => AkkaHttpMethods, _}
 import asura.core.ErrorMessages
-import asura.core.auth.AuthManager
+import asura.core.auth.{AuthManager, TokenAuthorization}
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model.{Authorization, HttpStepRequest}
 import asura.core.runtime.{RuntimeContext, RuntimeMetrics}
@@ -44,7 +44,12 @@ object HttpParser {
             authoredRequest <- {
               val operator = AuthManager(auth.`type`)
               if (operator.nonEmpty) {
-                operator.get.authorize(initialAuthoredRequest, auth)
+                operator.get match {
+                  case tokenAuth: TokenAuthorization =>
+                    tokenAuth.authorize(context.options.getUsedEnvId(), initialAuthoredRequest, auth)
+                  case _ =>
+                    operator.get.authorize(initialAuthoredRequest, auth)
+                }
               } else {
                 ErrorMessages.error_NotRegisteredAuth(auth.`type`).toFutureFail
               }
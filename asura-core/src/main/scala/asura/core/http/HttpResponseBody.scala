@@ -0,0 +1,64 @@
+package asura.core.http
+
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+
+import akka.http.scaladsl.model.{HttpEntity, MediaType}
+import akka.stream.Materializer
+import akka.util.ByteString
+
+import scala.concurrent.Future
+
+/**
+ * Response entity bytes read from the stream.
+ *
+ * @param bytes     at most `maxBodySize` bytes
+ * @param size      actual size of the entity
+ * @param truncated whether the entity is larger than `maxBodySize`
+ */
+case class HttpResponseBody(bytes: ByteString, size: Long, truncated: Boolean) {
+
+  // Base64 encode if not text
+  def asString(mediaType: MediaType): String = {
+    if (mediaType.isImage || mediaType.isVideo) {
+      Base64.getEncoder.encodeToString(bytes.toArray)
+    } else {
+      bytes.decodeString(StandardCharsets.UTF_8)
+    }
+  }
+}
+
+object HttpResponseBody {
+
+  // 10MB
+  val DEFAULT_MAX_BODY_SIZE: Long = 10L * 1024 * 1024
+
+  /**
+   * Read the entity stream and keep at most `maxSize` bytes. The remaining bytes will be drained
+   * instead of failing the stream, so the connection can be reused.
+   */
+  def read(entity: HttpEntity, maxSize: Long)(implicit materializer: Materializer): Future[HttpResponseBody] = {
+    entity match {
+      case HttpEntity.Strict(_, data) =>
+        val max = limit(maxSize)
+        Future.successful(HttpResponseBody(data.take(max), data.length, data.length > max))
+      case _ =>
+        val max = limit(maxSize)
+        entity.withoutSizeLimit.dataBytes
+          .runFold(HttpResponseBody(ByteString.empty, 0, false))((body, chunk) => {
+            val size = body.size + chunk.length
+            if (body.bytes.length >= max) {
+              body.copy(size = size, truncated = true)
+            } else if (body.bytes.length.toLong + chunk.length > max) {
+              HttpResponseBody(body.bytes ++ chunk.take(max - body.bytes.length), size, true)
+            } else {
+              HttpResponseBody(body.bytes ++ chunk, size, false)
+            }
+          })
+    }
+  }
+
+  private def limit(maxSize: Long): Int = {
+    if (maxSize > 0 && maxSize < Int.MaxValue) maxSize.toInt else Int.MaxValue
+  }
+}
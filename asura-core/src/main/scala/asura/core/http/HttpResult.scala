@@ -3,7 +3,7 @@ package asura.core.http
 import java.util
 
 import asura.common.util.StringUtils
-import asura.core.assertion.engine.{AssertionContext, Statistic}
+import asura.core.assertion.engine.{AssertionPlan, Statistic}
 import asura.core.concurrent.ExecutionContextManager.cachedExecutor
 import asura.core.es.model.JobReportData.JobReportStepItemMetrics
 import asura.core.runtime.{AbstractResult, RuntimeContext}
@@ -48,11 +48,12 @@ object HttpResult {
             response: RenderedHttpResponse,
           ): Future[HttpResult] = {
     val statistic = Statistic()
-    AssertionContext.eval(assert, context.rawContext, statistic).map { assertResult =>
+    statistic.failFast = context.assertFailFast
+    AssertionPlan.get(docId, assert).eval(context.rawContext, statistic).map { assertResult =>
       HttpResult(
         docId = docId,
         assert = assert,
-        context = context.rawContext,
+        context = context.snapshot(),
         request = request,
         response = response,
         statis = statistic,
@@ -1,15 +1,12 @@
 package asura.core.http
 
-import java.nio.charset.StandardCharsets
 import java.util
-import java.util.Base64
 
-import akka.http.javadsl.model.ContentType
 import akka.http.scaladsl.model.HttpRequest
 import akka.http.scaladsl.unmarshalling.Unmarshal
-import akka.util.ByteString
 import asura.common.exceptions.WithDataException
 import asura.common.util.StringUtils
+import asura.core.CoreConfig
 import asura.core.CoreConfig.materializer
 import asura.core.assertion.engine.HttpResponseAssert
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
@@ -42,30 +39,19 @@ object HttpRunner {
         .flatMap(request => toCaseRequestTuple(request, context))
         .flatMap(tuple => {
           val env = if (null != context.options) context.options.getUsedEnv() else null
-          val futureResult = if (null != env && env.enableProxy) {
-            metrics.performRequestStart()
-            val proxyServer = context.options.getUsedEnv().server
-            HttpEngine.singleRequestWithProxy(tuple._1, proxyServer).flatMap(res => {
-              Unmarshal(res.entity).to[ByteString].flatMap(resBody => {
-                metrics.evalAssertionBegin()
-                context.setCurrentMetrics(metrics)
-                HttpResponseAssert.generateHttpReport(docId, request.assert, res,
-                  byteStringToString(resBody, res.entity.getContentType()), tuple._2, context
-                )
-              })
-            })
+          metrics.performRequestStart()
+          val futureResponse = if (null != env && env.enableProxy) {
+            HttpEngine.singleRequestWithProxy(tuple._1, env.server)
           } else {
-            metrics.performRequestStart()
-            HttpEngine.singleRequest(tuple._1).flatMap(res => {
-              Unmarshal(res.entity).to[ByteString].flatMap(resBody => {
-                metrics.evalAssertionBegin()
-                context.setCurrentMetrics(metrics)
-                HttpResponseAssert.generateHttpReport(docId, request.assert, res,
-                  byteStringToString(resBody, res.entity.getContentType()), tuple._2, context
-                )
-              })
-            })
+            HttpEngine.singleRequest(tuple._1)
           }
+          val futureResult = futureResponse.flatMap(res => {
+            HttpResponseBody.read(res.entity, CoreConfig.httpConfig.maxBodySize).flatMap(resBody => {
+              metrics.evalAssertionBegin()
+              context.setCurrentMetrics(metrics)
+              HttpResponseAssert.generateHttpReport(docId, request.assert, res, resBody, tuple._2, context)
+            })
+          })
           futureResult.recover {
             case t: Throwable => throw WithDataException(t, tuple._2)
           }
@@ -73,6 +59,7 @@ object HttpRunner {
     }).map(result => {
       metrics.evalAssertionEnd()
       metrics.theEnd()
+      context.recordLatency(docId, metrics)
       result.metrics = metrics.toReportStepItemMetrics()
       result
     })
@@ -107,13 +94,4 @@ object HttpRunner {
       })
     }
   }
-
-  // Base64 encode if not text
-  private def byteStringToString(byteString: ByteString, contentType: ContentType): String = {
-    if (contentType.mediaType.isImage || contentType.mediaType.isVideo) {
-      new String(Base64.getEncoder.encode(byteString.toByteBuffer.array()))
-    } else {
-      byteString.decodeString(StandardCharsets.UTF_8)
-    }
-  }
 }
@@ -7,5 +7,6 @@ case class RenderedHttpResponse(
                                  statusMsg: String,
                                  headers: java.util.ArrayList[java.util.Map[String, String]],
                                  contentType: String,
-                                 body: String
+                                 body: String,
+                                 truncated: Boolean = false,
                                ) extends DataItemRenderedResponse
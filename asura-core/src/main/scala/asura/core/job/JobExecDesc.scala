@@ -9,7 +9,7 @@ import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model._
 import asura.core.es.service.JobReportService
 import asura.core.job.actor.JobReportDataItemSaveActor
-import asura.core.runtime.{ContextOptions, RuntimeContext}
+import asura.core.runtime.{ContextOptions, LatencyRecorder, RuntimeContext}
 
 import scala.concurrent.Future
 
@@ -28,6 +28,7 @@ case class JobExecDesc(
 
   // for web debug
   var overrideRuntime: RuntimeContext = null
+  val latencyRecorder: LatencyRecorder = LatencyRecorder()
   private var jobWorkDir: String = null
   private var stdLogWriter: PrintWriter = null
   private var currentJobFolder: String = null
@@ -1,6 +1,7 @@
 package asura.core.job
 
 import akka.actor.ActorRef
+import asura.core.runtime.LatencyRecorder
 
 case class JobReportItemStoreDataHelper(
                                          reportId: String,
@@ -9,6 +10,7 @@ case class JobReportItemStoreDataHelper(
                                          jobId: String
                                        ) {
   var jobLoopCount: Int = 0
+  var latencyRecorder: LatencyRecorder = null
 
   /**
     * id = `${reportId}_s${stepIndex}_${scenarioIndex}_${jobLoopCount}_{scenarioLoopCount}`
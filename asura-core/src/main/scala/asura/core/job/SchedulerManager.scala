@@ -5,7 +5,7 @@ import java.util.concurrent.ConcurrentHashMap
 
 import asura.common.util.{DateUtils, LogUtils, StringUtils}
 import asura.core.ErrorMessages
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.concurrent.ExecutionContextManager.schedulerExecutor
 import asura.core.es.model._
 import asura.core.es.service.{FavoriteService, JobNotifyService, JobService}
 import asura.core.job.actor.{JobActionValidator, _}
@@ -4,7 +4,7 @@ import java.util.Date
 
 import asura.common.util.StringUtils
 import asura.core.ErrorMessages
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.concurrent.ExecutionContextManager.schedulerExecutor
 import asura.core.job.impl.{ClearJobReportDataIndicesJob, SyncOnlineDomainAndRestApiJob}
 import org.quartz.Trigger.TriggerState
 import org.quartz._
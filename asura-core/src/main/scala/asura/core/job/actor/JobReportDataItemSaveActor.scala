@@ -1,52 +1,32 @@
 package asura.core.job.actor
 
 import akka.actor.{Props, Status}
-import asura.common.actor.BaseActor
 import asura.common.util.LogUtils
-import asura.core.actor.messages.Flush
+import asura.core.es.EsBulkIndexer
 import asura.core.es.model.JobReportDataItem
-import asura.core.es.service.JobReportDataItemService
 import asura.core.job.actor.JobReportDataItemSaveActor.SaveReportDataHttpItemMessage
 
-import scala.collection.mutable.ArrayBuffer
-import scala.concurrent.duration._
-
-class JobReportDataItemSaveActor(dayIndexSuffix: String) extends BaseActor {
-
-  implicit val ec = context.dispatcher
-  val messages = ArrayBuffer[SaveReportDataHttpItemMessage]()
-
-  override def receive: Receive = {
-    case m: SaveReportDataHttpItemMessage =>
-      messages += m
-      if (messages.length >= 10) {
-        insert()
-      }
-      context.system.scheduler.scheduleOnce(2 seconds) {
-        self ! Flush
-      }(context.system.dispatcher)
-    case Flush =>
-      insert()
+class JobReportDataItemSaveActor(dayIndexSuffix: String) extends EsBulkIndexer {
+
+  val index = s"${JobReportDataItem.Index}-${dayIndexSuffix}"
+
+  override def bulkName: String = EsBulkIndexer.NAME_REPORT_DATA_ITEM
+
+  override def receive: Receive = bulkReceive orElse {
+    case SaveReportDataHttpItemMessage(id, dataItem) =>
+      addToBulk(index, id, dataItem)
     case Status.Failure(t) =>
       log.warning(LogUtils.stackTraceToString(t))
   }
 
   override def preStart(): Unit = {
+    startBulk()
   }
 
   override def postStop(): Unit = {
-    insert()
+    stopBulk()
     log.debug(s"${self.path} is stopped")
   }
-
-  private def insert(): Unit = {
-    if (messages.length > 0) {
-      JobReportDataItemService.index(messages.toSeq, dayIndexSuffix).map(response => {
-        log.debug(s"${response.count} items is saving...")
-      })
-      messages.clear()
-    }
-  }
 }
 
 object JobReportDataItemSaveActor {
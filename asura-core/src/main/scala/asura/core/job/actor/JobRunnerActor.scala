@@ -2,12 +2,15 @@ package asura.core.job.actor
 
 import akka.actor.{ActorRef, PoisonPill, Props, Status}
 import akka.pattern.{ask, pipe}
+import akka.stream.scaladsl.{Sink, Source}
 import asura.common.actor._
 import asura.common.util.{LogUtils, StringUtils, XtermUtils}
+import asura.core.CoreConfig.materializer
 import asura.core.es.model.JobReportData.{ReportStepItemStatus, ScenarioReportItemData}
 import asura.core.es.model.ScenarioStep
 import asura.core.es.service.ScenarioService
 import asura.core.job.impl.RunCaseJob
+import asura.core.job.actor.JobRunnerActor.ScenarioReports
 import asura.core.job.{JobExecDesc, JobReportItemStoreDataHelper}
 import asura.core.runtime.{ControllerOptions, RuntimeContext}
 import asura.core.scenario.actor.ScenarioRunnerActor.ScenarioTestJobMessage
@@ -37,6 +40,7 @@ class JobRunnerActor(var wsActor: ActorRef, controller: ControllerOptions) exten
       this.resultReceiver = sender()
       if (null != execDesc.overrideRuntime) this.runtimeContext = execDesc.overrideRuntime
       this.runtimeContext.options = execDesc.options
+      this.runtimeContext.latencyRecorder = execDesc.latencyRecorder
       this.runtimeContext.evaluateImportsVariables(execDesc.imports)
         .flatMap(_ => runCases(execDesc))
         .flatMap(_ => buildScenarioTestJobMessages(execDesc))
@@ -62,9 +66,13 @@ class JobRunnerActor(var wsActor: ActorRef, controller: ControllerOptions) exten
       } else {
         this.execDesc.report.data.scenarios = scenarioReports.toSeq
         this.execDesc.report.data.renderedDescription = runtimeContext.renderTemplateAsString(this.execDesc.job.description)
+        this.execDesc.report.data.latency = this.execDesc.latencyRecorder.toReport()
         this.resultReceiver ! this.execDesc
         self ! PoisonPill
       }
+    case ScenarioReports(reports, next) =>
+      reports.foreach(addScenarioReport)
+      self ! next
     case Status.Failure(t) =>
       val errLog = LogUtils.stackTraceToString(t)
       log.warning(errLog)
@@ -79,31 +87,80 @@ class JobRunnerActor(var wsActor: ActorRef, controller: ControllerOptions) exten
     })
   }
 
-  private def runScenarioStep(idx: Int): Future[Int] = {
+  // the actors and forked contexts are created in this actor, only the asks are combined in other threads
+  private def runScenarioStep(idx: Int): Future[Any] = {
     this.runtimeContext.eraseScenarioData()
     val (step, message) = this.scenarioTestJobMessages(idx)
     step.`type` match {
       case ScenarioStep.TYPE_DELAY => handleDelayStep(step, idx)
       case ScenarioStep.TYPE_JUMP => handleJumpStep(step, idx)
       case _ =>
-        if (message.steps.nonEmpty) {
-          val scenarioActor = context.actorOf(ScenarioRunnerActor.props(step.id))
-          scenarioActor ! SenderMessage(wsActor)
-          message.storeHelper.jobLoopCount = this.loopCount
-          val future = (scenarioActor ? message).asInstanceOf[Future[ScenarioReportItemData]]
-          future.map(scenarioReport => {
-            this.scenarioReports += scenarioReport
-            if (!scenarioReport.isSuccessful()) {
-              this.execDesc.report.result = JobExecDesc.STATUS_FAIL
-            }
-            idx + 1
+        val group = getParallelGroup(idx)
+        if (group.length > 1) {
+          // scenarios of the group run concurrently, and the reports are added in declared order
+          val runs = group.map(i => {
+            val (groupStep, groupMessage) = this.scenarioTestJobMessages(i)
+            val forkedMessage = groupMessage.copy(runtimeContext = this.runtimeContext.forkScenario())
+            forkedMessage.description = groupMessage.description
+            (prepareScenario(groupStep, forkedMessage), forkedMessage)
           })
+          Source(runs).mapAsync(this.execDesc.job.jobData.parallelism)(run => askScenario(run._1, run._2))
+            .runWith(Sink.seq)
+            .map(reports => ScenarioReports(reports, group.last + 1))
         } else {
-          Future.successful(idx + 1)
+          askScenario(prepareScenario(step, message), message).map(report => ScenarioReports(Seq(report), idx + 1))
         }
     }
   }
 
+  /** @return null if the scenario has no steps */
+  private def prepareScenario(step: ScenarioStep, message: ScenarioTestJobMessage): ActorRef = {
+    if (message.steps.nonEmpty) {
+      val scenarioActor = context.actorOf(ScenarioRunnerActor.props(step.id))
+      scenarioActor ! SenderMessage(wsActor)
+      message.storeHelper.jobLoopCount = this.loopCount
+      scenarioActor
+    } else {
+      null
+    }
+  }
+
+  private def askScenario(scenarioActor: ActorRef, message: ScenarioTestJobMessage): Future[ScenarioReportItemData] = {
+    if (null != scenarioActor) {
+      (scenarioActor ? message).asInstanceOf[Future[ScenarioReportItemData]]
+    } else {
+      Future.successful(null)
+    }
+  }
+
+  private def addScenarioReport(scenarioReport: ScenarioReportItemData): Unit = {
+    if (null != scenarioReport) {
+      this.scenarioReports += scenarioReport
+      if (!scenarioReport.isSuccessful()) {
+        this.execDesc.report.result = JobExecDesc.STATUS_FAIL
+      }
+    }
+  }
+
+  // indices of the scenario steps next to each other which have the same parallel group
+  private def getParallelGroup(idx: Int): Seq[Int] = {
+    val (step, _) = this.scenarioTestJobMessages(idx)
+    val group = if (null != step.data) step.data.group else null
+    if (this.execDesc.job.jobData.parallelism > 1 && StringUtils.isNotEmpty(group)) {
+      val last = if (null != controller) Math.min(controller.to, this.scenarioTestJobMessages.length - 1) else this.scenarioTestJobMessages.length - 1
+      var end = idx
+      while (end < last && {
+        val (next, nextMessage) = this.scenarioTestJobMessages(end + 1)
+        null != nextMessage && null != next.data && group == next.data.group
+      }) {
+        end = end + 1
+      }
+      idx to end
+    } else {
+      Seq(idx)
+    }
+  }
+
   override def consoleLogPrefix(stepType: String, idx: Int): String = {
     val formattedType = stepType match {
       case ScenarioStep.TYPE_DELAY => "DELAY"
@@ -149,7 +206,7 @@ class JobRunnerActor(var wsActor: ActorRef, controller: ControllerOptions) exten
     val scenarioSteps = job.jobData.scenario
     if (null != scenarioSteps && scenarioSteps.nonEmpty) {
       val scenarioIds = scenarioSteps.filter(_.isScenarioStep()).map(_.id)
-      ScenarioService.getScenariosByIdsAsMap(scenarioIds).map(scenarioMap => {
+      ScenarioService.getCachedScenariosByIds(scenarioIds).map(scenarioMap => {
         val messages = ArrayBuffer[(ScenarioStep, ScenarioTestJobMessage)]()
         for (i <- 0 until scenarioSteps.length) {
           val step = scenarioSteps(i)
@@ -194,4 +251,7 @@ object JobRunnerActor {
 
   val DEFAULT_SCENARIO_NAME = "INNER"
 
+  /** reports of scenarios which are over, and the index of the next step */
+  private case class ScenarioReports(reports: Seq[ScenarioReportItemData], next: Int)
+
 }
@@ -97,7 +97,7 @@ class JobTestActor(user: String, out: ActorRef) extends BaseActor {
         wsActor ! NotifyActorEvent(reportUrl)
         val ctxMap = if (null != execDesc.overrideRuntime) {
           execDesc.overrideRuntime.eraseCurrentData()
-          execDesc.overrideRuntime.rawContext
+          execDesc.overrideRuntime.snapshot()
         } else {
           null
         }
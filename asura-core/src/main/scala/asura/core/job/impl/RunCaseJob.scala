@@ -81,7 +81,7 @@ object RunCaseJob extends JobBase {
     if (null != cases && !cases.isEmpty || null != jobData.ext) {
       val scenarioReportFuture = if (null != cases && !cases.isEmpty) {
         val caseIds = cases.map(_.id)
-        HttpRequestService.getByIdsAsMap(caseIds, false).flatMap(caseIdMap => {
+        HttpRequestService.getCachedByIds(caseIds).flatMap(caseIdMap => {
           val cases = ArrayBuffer[(String, HttpStepRequest)]()
           caseIds.foreach(id => {
             val value = caseIdMap.get(id)
@@ -92,11 +92,11 @@ object RunCaseJob extends JobBase {
           if (null != jobData.ext) {
             HttpRequestService.getCasesByJobDataExtAsMap(execDesc.job.group, execDesc.job.project, jobData.ext).flatMap(res => {
               res.foreach(idCsTuple => cases.append((idCsTuple._1, idCsTuple._2)))
-              val storeDataHelper = JobReportItemStoreDataHelper(execDesc.reportId, "c", execDesc.reportItemSaveActor, execDesc.jobId)
+              val storeDataHelper = caseStoreDataHelper(execDesc)
               ScenarioRunner.test(null, "INNER", cases.toSeq, log, execDesc.options)(storeDataHelper)
             })
           } else {
-            val storeDataHelper = JobReportItemStoreDataHelper(execDesc.reportId, "c", execDesc.reportItemSaveActor, execDesc.jobId)
+            val storeDataHelper = caseStoreDataHelper(execDesc)
             ScenarioRunner.test(null, "INNER", cases.toSeq, log, execDesc.options)(storeDataHelper)
           }
         })
@@ -104,7 +104,7 @@ object RunCaseJob extends JobBase {
         val cases = ArrayBuffer[(String, HttpStepRequest)]()
         HttpRequestService.getCasesByJobDataExtAsMap(execDesc.job.group, execDesc.job.project, jobData.ext).flatMap(res => {
           res.foreach(idCsTuple => cases.append((idCsTuple._1, idCsTuple._2)))
-          val storeDataHelper = JobReportItemStoreDataHelper(execDesc.reportId, "c", execDesc.reportItemSaveActor, execDesc.jobId)
+          val storeDataHelper = caseStoreDataHelper(execDesc)
           ScenarioRunner.test(null, "INNER", cases.toSeq, log, execDesc.options)(storeDataHelper)
         })
       }
@@ -119,6 +119,12 @@ object RunCaseJob extends JobBase {
       Future.successful(execDesc)
     }
   }
+
+  private def caseStoreDataHelper(execDesc: JobExecDesc): JobReportItemStoreDataHelper = {
+    val helper = JobReportItemStoreDataHelper(execDesc.reportId, "c", execDesc.reportItemSaveActor, execDesc.jobId)
+    helper.latencyRecorder = execDesc.latencyRecorder
+    helper
+  }
 }
 
 class RunCaseJob extends AbstractJob {
@@ -0,0 +1,26 @@
+package asura.core.load
+
+import asura.core.CoreConfig
+import asura.core.CoreConfig.LoadConfig
+
+/**
+ * @param users           concurrent virtual users, the max in flight iterations when `ratePerSecond` is set
+ * @param ratePerSecond   fixed arrival rate of iterations, 0 means every user loops by itself
+ * @param iterations      iterations of each user, or total iterations when `ratePerSecond` is set, 0 means no limit
+ * @param durationSeconds stop starting new iterations after this time, 0 means `LoadConfig.maxDuration`
+ */
+case class LoadRunOptions(
+                           users: Int = 1,
+                           ratePerSecond: Int = 0,
+                           iterations: Int = 1,
+                           durationSeconds: Int = 0,
+                         ) {
+
+  def isValid(config: LoadConfig = CoreConfig.loadConfig): Boolean = {
+    users > 0 && users <= config.maxUsers &&
+      ratePerSecond >= 0 && ratePerSecond <= config.maxRatePerSecond &&
+      iterations >= 0 && iterations <= config.maxIterations &&
+      durationSeconds >= 0 && durationSeconds <= config.maxDuration.toSeconds &&
+      (iterations > 0 || durationSeconds > 0)
+  }
+}
@@ -0,0 +1,325 @@
+package asura.core.load
+
+import java.util.UUID
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+
+import akka.pattern.after
+import akka.stream.KillSwitches
+import akka.stream.scaladsl.{Sink, Source}
+import asura.common.util.{LogUtils, StringUtils}
+import asura.core.CoreConfig.{materializer, system}
+import asura.core.{CoreConfig, ErrorMessages}
+import asura.core.concurrent.ExecutionContextManager.sysGlobal
+import asura.core.dubbo.DubboRunner
+import asura.core.es.model.{Scenario, ScenarioStep, VariablesExportItem}
+import asura.core.es.service.ScenarioService
+import asura.core.http.HttpRunner
+import asura.core.runtime.{AbstractResult, ContextOptions, RuntimeContext}
+import asura.core.scenario.actor.ScenarioRunnerActor
+import asura.core.scenario.actor.ScenarioRunnerActor.ScenarioTestData
+import asura.core.sql.SqlRunner
+import com.typesafe.scalalogging.Logger
+
+import scala.concurrent.Future
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.util.{Failure, Success}
+
+/**
+ * Drive a scenario with concurrent virtual users. Every virtual user has its own runtime context,
+ * the steps of one iteration are executed one by one, and the latencies are aggregated into
+ * histograms of each step instead of storing a report item for every request.
+ *
+ * Runs are started in background and bounded by `LoadConfig`, they are kept in memory of the node
+ * which started them.
+ */
+object LoadRunner {
+
+  val logger = Logger("LoadRunner")
+
+  val STATE_RUNNING = "running"
+  val STATE_STOPPED = "stopped"
+  val STATE_FINISHED = "finished"
+  val STATE_FAILED = "failed"
+  // finished runs kept for their reports, besides `LoadConfig.keepFinished`
+  val MAX_FINISHED = 100
+
+  private val running = new ConcurrentHashMap[String, LoadRun]()
+  private val finished = new ConcurrentHashMap[String, LoadRun]()
+
+  /**
+   * Start a run in background. The returned status has the id of the run, by which the report
+   * is read while it is running or after it is over, and by which it can be stopped.
+   */
+  def start(group: String, project: String, scenarioId: String, options: LoadRunOptions): Future[LoadRunStatus] = {
+    if (null == options || !options.isValid()) {
+      ErrorMessages.error_InvalidParams.toFutureFail
+    } else {
+      ScenarioService.getCachedScenarioById(scenarioId).flatMap(scenario => start(group, project, scenarioId, scenario, options))
+    }
+  }
+
+  def start(group: String, project: String, scenarioId: String, scenario: Scenario, options: LoadRunOptions): Future[LoadRunStatus] = {
+    if (null == options || !options.isValid()) {
+      ErrorMessages.error_InvalidParams.toFutureFail
+    } else if (null == scenario.steps || scenario.steps.isEmpty) {
+      ErrorMessages.error_EmptyScenario.toFutureFail
+    } else {
+      ScenarioRunnerActor.getScenarioTestData(scenario.steps).flatMap(stepsData => {
+        val run = LoadRun(UUID.randomUUID().toString, group, project, scenarioId, scenario, stepsData, options)
+        if (register(run)) {
+          logger.info(s"start load run(${run.id}) of scenario(${scenarioId}): ${options}")
+          run.start().onComplete(_ => {
+            running.remove(run.id)
+            finished.put(run.id, run)
+            val report = run.report()
+            logger.info(s"load run(${run.id}) of scenario(${scenarioId}) is ${run.state}, ${report.iterations} iterations in ${report.elapsed}ms")
+          })
+          Future.successful(run.status())
+        } else {
+          ErrorMessages.error_TooManyLoadRuns.toFutureFail
+        }
+      })
+    }
+  }
+
+  /** status and report of a running or finished run */
+  def status(runId: String): Option[LoadRunStatus] = {
+    Option(running.get(runId)).orElse(Option(finished.get(runId))).map(_.status())
+  }
+
+  /** stop a running run, the iterations in flight are not interrupted but their rest steps are skipped */
+  def stop(runId: String): Option[LoadRunStatus] = {
+    val run = running.get(runId)
+    if (null != run) {
+      logger.info(s"stop load run(${runId})")
+      run.stop()
+    }
+    status(runId)
+  }
+
+  private def register(run: LoadRun): Boolean = synchronized {
+    evictFinished()
+    if (running.size() < CoreConfig.loadConfig.maxRunning) {
+      running.put(run.id, run)
+      true
+    } else {
+      false
+    }
+  }
+
+  private def evictFinished(): Unit = {
+    val expireAt = System.currentTimeMillis() - CoreConfig.loadConfig.keepFinished.toMillis
+    finished.values().removeIf(run => run.finishedAt < expireAt)
+    if (finished.size() > MAX_FINISHED) {
+      finished.values().asScala.toSeq.sortBy(_.finishedAt).take(finished.size() - MAX_FINISHED).foreach(run => finished.remove(run.id))
+    }
+  }
+
+  private case class LoadRun(
+                              id: String,
+                              group: String,
+                              project: String,
+                              scenarioId: String,
+                              scenario: Scenario,
+                              stepsData: ScenarioTestData,
+                              options: LoadRunOptions,
+                            ) {
+
+    val steps: Seq[ScenarioStep] = scenario.steps.filter(step => step.enabled && isSupported(step))
+    val stats: Array[StepLoadStats] = steps.zipWithIndex.map(tuple => {
+      val (step, idx) = tuple
+      StepLoadStats(idx, step.id, step.`type`, getSummary(step))
+    }).toArray
+    val startedAt: Long = System.currentTimeMillis()
+    @volatile var state: String = STATE_RUNNING
+    @volatile var finishedAt: Long = 0L
+    private val iterations = new LongAdder()
+    private val killSwitch = KillSwitches.shared(s"load-run-${id}")
+    @volatile private var stopped = false
+    private var startAt = 0L
+    @volatile private var endAt = 0L
+
+    def start(): Future[Unit] = {
+      startAt = System.nanoTime()
+      // a run without its own duration is still bounded by the config
+      val duration = if (options.durationSeconds > 0) options.durationSeconds.seconds else CoreConfig.loadConfig.maxDuration
+      val deadline = duration.fromNow
+      val done = if (options.ratePerSecond > 0) {
+        // open model, new iterations arrive at a fixed rate and at most `users` of them are in flight
+        var source = Source.repeat(()).throttle(options.ratePerSecond, 1.second)
+        if (options.iterations > 0) source = source.take(options.iterations)
+        source.takeWithin(duration).via(killSwitch.flow).mapAsyncUnordered(options.users)(_ => {
+          newContext().flatMap(context => runIteration(context))
+        }).runWith(Sink.ignore)
+      } else {
+        // closed model, every user starts the next iteration when the previous one is over
+        Source(1 to options.users).via(killSwitch.flow).mapAsyncUnordered(options.users)(_ => {
+          newContext().flatMap(context => loop(context, 0, deadline))
+        }).runWith(Sink.ignore)
+      }
+      done.transform(result => {
+        endAt = System.nanoTime()
+        finishedAt = System.currentTimeMillis()
+        state = if (result.isFailure) STATE_FAILED else if (stopped) STATE_STOPPED else STATE_FINISHED
+        if (result.isFailure) logger.warn(s"load run(${id}) failed: ${LogUtils.stackTraceToString(result.failed.get)}")
+        Success(())
+      })
+    }
+
+    def stop(): Unit = {
+      stopped = true
+      killSwitch.shutdown()
+    }
+
+    def status(): LoadRunStatus = {
+      LoadRunStatus(id, group, project, scenarioId, state, startedAt, report())
+    }
+
+    def report(): LoadRunReport = {
+      val elapsed = TimeUnit.NANOSECONDS.toMillis((if (endAt > 0) endAt else System.nanoTime()) - startAt)
+      LoadRunReport(
+        scenarioId = scenarioId,
+        summary = scenario.summary,
+        options = options,
+        elapsed = elapsed,
+        iterations = iterations.sum(),
+        steps = stats.toSeq.map(_.toReport(elapsed)),
+      )
+    }
+
+    private def newContext(): Future[RuntimeContext] = {
+      val context = RuntimeContext(options = ContextOptions(scenarioEnv = scenario.env))
+      context.evaluateImportsVariables(scenario.imports)
+    }
+
+    private def loop(context: RuntimeContext, count: Int, deadline: Deadline): Future[Unit] = {
+      if (stopped || (options.iterations > 0 && count >= options.iterations) || deadline.isOverdue()) {
+        Future.successful(())
+      } else {
+        runIteration(context).flatMap(_ => loop(context, count + 1, deadline))
+      }
+    }
+
+    private def runIteration(context: RuntimeContext): Future[Unit] = {
+      // an iteration cut by `stop` is not counted
+      runStep(context, 0).map(_ => if (!stopped) iterations.increment())
+    }
+
+    private def runStep(context: RuntimeContext, idx: Int): Future[Unit] = {
+      if (idx >= steps.length || stopped) {
+        Future.successful(())
+      } else {
+        val step = steps(idx)
+        val stat = stats(idx)
+        val start = System.nanoTime()
+        executeStep(step, context)
+          .transformWith {
+            case Success((result, exports)) =>
+              val ok = null == result || result.statis.isSuccessful
+              stat.record(System.nanoTime() - start, ok, false)
+              if (ok) context.evaluateExportsVariables(exports).map(_ => true) else Future.successful(!scenario.failFast)
+            case Failure(t) =>
+              stat.record(System.nanoTime() - start, false, true)
+              if (logger.underlying.isDebugEnabled) logger.debug(s"step ${idx} error: ${t.getMessage}")
+              Future.successful(!scenario.failFast)
+          }
+          // the exports can not be evaluated
+          .recover { case _: Throwable => !scenario.failFast }
+          .flatMap(next => if (next) runStep(context, idx + 1) else Future.successful(()))
+      }
+    }
+
+    private def executeStep(step: ScenarioStep, context: RuntimeContext): Future[(AbstractResult, Seq[VariablesExportItem])] = {
+      step.`type` match {
+        case ScenarioStep.TYPE_HTTP =>
+          val request = stepsData.http(step.id)
+          HttpRunner.test(step.id, request, context).map(result => (result, request.exports))
+        case ScenarioStep.TYPE_DUBBO =>
+          val request = stepsData.dubbo(step.id)
+          DubboRunner.test(step.id, request, context).map(result => (result, request.exports))
+        case ScenarioStep.TYPE_SQL =>
+          val request = stepsData.sql(step.id)
+          SqlRunner.test(step.id, request, context).map(result => (result, request.exports))
+        case ScenarioStep.TYPE_DELAY =>
+          val condition = step.data.delay
+          val duration = condition.timeUnit match {
+            case ScenarioStep.TIME_UNIT_SECOND => condition.value.seconds
+            case ScenarioStep.TIME_UNIT_MINUTE => condition.value.minutes
+            case _ => condition.value.millis
+          }
+          after(duration, system.scheduler)(Future.successful[(AbstractResult, Seq[VariablesExportItem])]((null, Nil)))
+      }
+    }
+
+    // jump steps are ignored, the docs of which are deleted too
+    private def isSupported(step: ScenarioStep): Boolean = {
+      step.`type` match {
+        case ScenarioStep.TYPE_HTTP => stepsData.http.contains(step.id)
+        case ScenarioStep.TYPE_DUBBO => stepsData.dubbo.contains(step.id)
+        case ScenarioStep.TYPE_SQL => stepsData.sql.contains(step.id)
+        case ScenarioStep.TYPE_DELAY => null != step.data && null != step.data.delay && step.data.delay.value > 0
+        case _ => false
+      }
+    }
+
+    private def getSummary(step: ScenarioStep): String = {
+      step.`type` match {
+        case ScenarioStep.TYPE_HTTP => stepsData.http(step.id).summary
+        case ScenarioStep.TYPE_DUBBO => stepsData.dubbo(step.id).summary
+        case ScenarioStep.TYPE_SQL => stepsData.sql(step.id).summary
+        case _ => StringUtils.EMPTY
+      }
+    }
+  }
+
+  /**
+   * @param state     one of `running`, `stopped`, `finished` and `failed`
+   * @param startedAt epoch milliseconds
+   * @param report    the report so far while it is running
+   */
+  case class LoadRunStatus(
+                            id: String,
+                            group: String,
+                            project: String,
+                            scenarioId: String,
+                            state: String,
+                            startedAt: Long,
+                            report: LoadRunReport,
+                          )
+
+  /**
+   * @param elapsed    milliseconds of the whole run
+   * @param iterations completed iterations of all the users
+   */
+  case class LoadRunReport(
+                            scenarioId: String,
+                            summary: String,
+                            options: LoadRunOptions,
+                            elapsed: Long,
+                            iterations: Long,
+                            steps: Seq[StepLoadReport],
+                          )
+
+  /** latencies are in milliseconds */
+  case class StepLoadReport(
+                             index: Int,
+                             id: String,
+                             `type`: String,
+                             summary: String,
+                             count: Long,
+                             ok: Long,
+                             fail: Long,
+                             error: Long,
+                             rps: Double,
+                             min: Double,
+                             mean: Double,
+                             p50: Double,
+                             p90: Double,
+                             p95: Double,
+                             p99: Double,
+                             max: Double,
+                           )
+
+}
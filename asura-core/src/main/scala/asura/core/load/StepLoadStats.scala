@@ -0,0 +1,49 @@
+package asura.core.load
+
+import java.util.concurrent.atomic.LongAdder
+
+import asura.core.load.LoadRunner.StepLoadReport
+import asura.core.runtime.LatencyRecorder
+
+/** latencies of one step recorded by all the virtual users, in microseconds */
+case class StepLoadStats(index: Int, id: String, `type`: String, summary: String) {
+
+  private val histogram = LatencyRecorder.newHistogram()
+  private val ok = new LongAdder()
+  private val fail = new LongAdder()
+  private val error = new LongAdder()
+
+  /**
+   * @param success whether the assertions passed
+   * @param failed  whether the request or assertion threw an exception
+   */
+  def record(elapsedNanos: Long, success: Boolean, failed: Boolean): Unit = {
+    LatencyRecorder.recordNanos(histogram, elapsedNanos)
+    if (failed) error.increment() else if (success) ok.increment() else fail.increment()
+  }
+
+  def toReport(elapsedMillis: Long): StepLoadReport = {
+    val snapshot = histogram.copy()
+    val count = snapshot.getTotalCount
+    StepLoadReport(
+      index = index,
+      id = id,
+      `type` = `type`,
+      summary = summary,
+      count = count,
+      ok = ok.sum(),
+      fail = fail.sum(),
+      error = error.sum(),
+      rps = if (elapsedMillis > 0) count * 1000.0 / elapsedMillis else 0,
+      min = if (count > 0) toMillis(snapshot.getMinValue) else 0,
+      mean = if (count > 0) snapshot.getMean / 1000 else 0,
+      p50 = toMillis(snapshot.getValueAtPercentile(50)),
+      p90 = toMillis(snapshot.getValueAtPercentile(90)),
+      p95 = toMillis(snapshot.getValueAtPercentile(95)),
+      p99 = toMillis(snapshot.getValueAtPercentile(99)),
+      max = toMillis(snapshot.getMaxValue),
+    )
+  }
+
+  private def toMillis(micros: Long): Double = micros / 1000.0
+}
@@ -3,7 +3,7 @@ package asura.core.redis
 import java.util
 
 import asura.common.util.LogUtils
-import asura.core.concurrent.ExecutionContextManager.cachedExecutor
+import asura.core.concurrent.ExecutionContextManager.redisExecutor
 import asura.core.redis.RedisClient.{redisson, toScala}
 import com.typesafe.scalalogging.Logger
 import org.redisson.client.codec.StringCodec
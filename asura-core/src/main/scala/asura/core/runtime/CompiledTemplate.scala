@@ -0,0 +1,118 @@
+package asura.core.runtime
+
+import java.util
+
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import asura.core.runtime.CompiledTemplate.TemplateSegment
+import asura.core.runtime.RuntimeContext.{JSON_PATH_MACRO_PREFIX_1, JSON_PATH_MACRO_PREFIX_2, SELF_VARIABLE, TEMPLATE_PREFIX, TEMPLATE_SUFFIX}
+import asura.core.script.JsEngine
+import asura.core.util.{JsonPathUtils, StringTemplate}
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.jayway.jsonpath.JsonPath
+import org.graalvm.polyglot.Source
+
+/**
+ * A mustache template which is split into literal and pre-compiled macro segments,
+ * so it will not be parsed again when rendered with different contexts.
+ *
+ * @param segments null if the template can not be compiled, it will be rendered by the jodd parser
+ */
+case class CompiledTemplate(template: String, segments: Array[TemplateSegment]) {
+
+  def render(ctx: util.Map[Any, Any]): String = {
+    if (null != segments) {
+      val sb = new java.lang.StringBuilder(template.length)
+      var i = 0
+      while (i < segments.length) {
+        val value = segments(i).evaluate(ctx)
+        sb.append(if (null != value) value.toString else "null")
+        i += 1
+      }
+      sb.toString
+    } else {
+      StringTemplate.mustacheParser.parse(template, macroName => {
+        val value = CompiledTemplate.compileMacro(macroName).evaluate(ctx)
+        if (null != value) value.toString else "null"
+      })
+    }
+  }
+}
+
+object CompiledTemplate {
+
+  val DEFAULT_CACHE_SIZE = 5000
+  // total characters of the cached templates
+  val DEFAULT_CACHE_WEIGHT = 16 * 1024 * 1024
+  private val ESCAPE_CHAR = '\\'
+
+  private val templates: Cache[String, CompiledTemplate] = Caffeine.newBuilder()
+    .maximumWeight(DEFAULT_CACHE_WEIGHT)
+    .weigher[String, CompiledTemplate]((key: String, _: CompiledTemplate) => key.length)
+    .recordStats().build()
+  private val macros: Cache[String, TemplateSegment] = Caffeine.newBuilder()
+    .maximumSize(DEFAULT_CACHE_SIZE).recordStats().build()
+
+  MetricsRegistry.register("runtime.templateCache", () => CacheMetrics(templates))
+  MetricsRegistry.register("runtime.macroCache", () => CacheMetrics(macros))
+
+  def get(template: String): CompiledTemplate = templates.get(template, key => compile(key))
+
+  /** a macro without `{{` and `}}` */
+  def getMacro(tplMacro: String): TemplateSegment = macros.get(tplMacro, key => compileMacro(key))
+
+  def compile(template: String): CompiledTemplate = {
+    val segments = new util.ArrayList[TemplateSegment]()
+    var compilable = true
+    var i = 0
+    while (compilable && i < template.length) {
+      val start = template.indexOf(TEMPLATE_PREFIX, i)
+      if (start == -1) {
+        segments.add(LiteralSegment(template.substring(i)))
+        i = template.length
+      } else {
+        val end = template.indexOf(TEMPLATE_SUFFIX, start + TEMPLATE_PREFIX.length)
+        val nested = template.indexOf(TEMPLATE_PREFIX, start + TEMPLATE_PREFIX.length)
+        val escaped = start > 0 && template.charAt(start - 1) == ESCAPE_CHAR
+        // escaped, nested and unclosed macros are left to the jodd parser
+        if (escaped || end == -1 || (nested != -1 && nested < end)) {
+          compilable = false
+        } else {
+          if (start > i) segments.add(LiteralSegment(template.substring(i, start)))
+          segments.add(compileMacro(template.substring(start + TEMPLATE_PREFIX.length, end)))
+          i = end + TEMPLATE_SUFFIX.length
+        }
+      }
+    }
+    CompiledTemplate(template, if (compilable) segments.toArray(new Array[TemplateSegment](0)) else null)
+  }
+
+  def compileMacro(tplMacro: String): TemplateSegment = {
+    if (tplMacro.startsWith(JSON_PATH_MACRO_PREFIX_1) || tplMacro.startsWith(JSON_PATH_MACRO_PREFIX_2)) {
+      JsonPathSegment(JsonPathUtils.compile(tplMacro))
+    } else {
+      ScriptSegment(JsEngine.parse(tplMacro))
+    }
+  }
+
+  sealed trait TemplateSegment {
+    def evaluate(ctx: util.Map[Any, Any]): Any
+  }
+
+  case class LiteralSegment(text: String) extends TemplateSegment {
+    override def evaluate(ctx: util.Map[Any, Any]): Any = text
+  }
+
+  // this will throw exception when json-path is not found
+  case class JsonPathSegment(path: JsonPath) extends TemplateSegment {
+    override def evaluate(ctx: util.Map[Any, Any]): Any = JsonPathUtils.read[Any](ctx, path)
+  }
+
+  case class ScriptSegment(source: Source) extends TemplateSegment {
+    override def evaluate(ctx: util.Map[Any, Any]): Any = {
+      val bindings = new util.HashMap[String, Any]()
+      bindings.put(SELF_VARIABLE, ctx)
+      JsEngine.eval(source, bindings)
+    }
+  }
+
+}
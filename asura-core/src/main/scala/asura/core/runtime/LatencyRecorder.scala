@@ -0,0 +1,130 @@
+package asura.core.runtime
+
+import java.nio.ByteBuffer
+import java.util
+import java.util.Base64
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+
+import asura.core.runtime.LatencyRecorder.{LatencyReport, PhaseHistograms}
+import org.HdrHistogram.{ConcurrentHistogram, Histogram}
+
+/**
+ * Phase latencies of all the steps in a job. The histograms of a step are merged across loops,
+ * and recording a value does not allocate, so it is cheap enough for every request.
+ */
+class LatencyRecorder {
+
+  val total = new PhaseHistograms()
+  private val steps = new ConcurrentHashMap[String, PhaseHistograms]()
+
+  /** @param stepId doc id of the request */
+  def record(stepId: String, metrics: RuntimeMetrics): Unit = {
+    total.record(metrics)
+    if (null != stepId) {
+      steps.computeIfAbsent(stepId, _ => new PhaseHistograms()).record(metrics)
+    }
+  }
+
+  def toReport(): LatencyReport = {
+    val stepsReport = new util.HashMap[String, util.Map[String, LatencyRecorder.HistogramData]]()
+    steps.forEach((id, histograms) => stepsReport.put(id, histograms.toReport()))
+    LatencyReport(total.toReport(), stepsReport)
+  }
+}
+
+object LatencyRecorder {
+
+  val PHASE_RENDER = "render"
+  val PHASE_REQUEST = "request"
+  val PHASE_ASSERTION = "assertion"
+  val PHASE_TOTAL = "total"
+
+  // 1 hour, longer values are recorded as this
+  val HIGHEST_TRACKABLE_MICROS: Long = TimeUnit.HOURS.toMicros(1)
+  val SIGNIFICANT_DIGITS = 3
+
+  def apply(): LatencyRecorder = new LatencyRecorder()
+
+  /** a histogram of latencies in microseconds which can be recorded by many threads */
+  def newHistogram(): Histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS)
+
+  /** record in microseconds, values out of the trackable range are clamped */
+  def recordNanos(histogram: Histogram, nanos: Long): Unit = {
+    val micros = TimeUnit.NANOSECONDS.toMicros(nanos)
+    histogram.recordValue(Math.min(Math.max(micros, 0L), HIGHEST_TRACKABLE_MICROS))
+  }
+
+  /** compressed and base64 encoded histogram, which can be decoded and merged again */
+  def encode(histogram: Histogram): String = {
+    val buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity)
+    val length = histogram.encodeIntoCompressedByteBuffer(buffer)
+    Base64.getEncoder.encodeToString(util.Arrays.copyOf(buffer.array(), length))
+  }
+
+  def decode(encoded: String): Histogram = {
+    Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder.decode(encoded)), 0)
+  }
+
+  class PhaseHistograms {
+
+    val render: Histogram = newHistogram()
+    val request: Histogram = newHistogram()
+    val assertion: Histogram = newHistogram()
+    val total: Histogram = newHistogram()
+
+    def record(metrics: RuntimeMetrics): Unit = {
+      recordNanos(render, metrics.renderRequestNanos)
+      recordNanos(request, metrics.requestNanos)
+      recordNanos(assertion, metrics.evalAssertionNanos)
+      recordNanos(total, metrics.totalNanos)
+    }
+
+    def toReport(): util.Map[String, HistogramData] = {
+      val map = new util.HashMap[String, HistogramData]()
+      map.put(PHASE_RENDER, HistogramData(render))
+      map.put(PHASE_REQUEST, HistogramData(request))
+      map.put(PHASE_ASSERTION, HistogramData(assertion))
+      map.put(PHASE_TOTAL, HistogramData(total))
+      map
+    }
+  }
+
+  /**
+   * @param total phases of all steps
+   * @param steps phases of each step, the key is the doc id of the request
+   */
+  case class LatencyReport(
+                            total: util.Map[String, HistogramData],
+                            steps: util.Map[String, util.Map[String, HistogramData]],
+                          )
+
+  /**
+   * Percentiles are in milliseconds.
+   *
+   * @param histogram encoded by [[LatencyRecorder.encode]], values are in microseconds
+   */
+  case class HistogramData(
+                            count: Long,
+                            p50: Double,
+                            p90: Double,
+                            p99: Double,
+                            max: Double,
+                            histogram: String,
+                          )
+
+  object HistogramData {
+
+    def apply(histogram: Histogram): HistogramData = {
+      val snapshot = histogram.copy()
+      HistogramData(
+        count = snapshot.getTotalCount,
+        p50 = snapshot.getValueAtPercentile(50) / 1000.0,
+        p90 = snapshot.getValueAtPercentile(90) / 1000.0,
+        p99 = snapshot.getValueAtPercentile(99) / 1000.0,
+        max = snapshot.getMaxValue / 1000.0,
+        histogram = encode(snapshot),
+      )
+    }
+  }
+
+}
@@ -6,12 +6,12 @@ import asura.common.util.StringUtils
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model.{Environment, VariablesExportItem, VariablesImportItem, VariablesItemExtraData}
 import asura.core.es.service.EnvironmentService
-import asura.core.script.JsEngine
 import asura.core.script.function.{ArgWithExtraData, Functions}
-import asura.core.util.{JsonPathUtils, StringTemplate}
+import asura.core.util.JsonPathUtils
 
 import scala.collection.mutable
 import scala.concurrent.Future
+import scala.util.{Failure, Success}
 
 object RuntimeContext {
 
@@ -67,13 +67,7 @@ object RuntimeContext {
       if (template.startsWith(TEMPLATE_PREFIX) && template.endsWith(TEMPLATE_SUFFIX)) {
         val tplMacro = template.substring(TEMPLATE_PREFIX.length, template.length - TEMPLATE_SUFFIX.length)
         if (StringUtils.isNotEmpty(tplMacro)) {
-          if (tplMacro.startsWith(JSON_PATH_MACRO_PREFIX_1) || tplMacro.startsWith(JSON_PATH_MACRO_PREFIX_2)) {
-            JsonPathUtils.read[Any](ctx, tplMacro)
-          } else {
-            val bindings = new java.util.HashMap[String, Any]()
-            bindings.put(SELF_VARIABLE, ctx)
-            JsEngine.eval(tplMacro, bindings)
-          }
+          CompiledTemplate.getMacro(tplMacro).evaluate(ctx)
         } else {
           StringUtils.EMPTY
         }
@@ -87,20 +81,16 @@ object RuntimeContext {
 
   /**
    * render whole template to string which may have many macros.
-   * this will throw exception when json-path is not found
+   * this will throw exception when json-path is not found.
+   * the template is compiled once and cached, see `CompiledTemplate`
    */
   def renderTemplate(template: String, ctx: util.Map[Any, Any]): String = {
     if (StringUtils.isNotEmpty(template)) {
-      StringTemplate.mustacheParser.parse(template, macroName => {
-        val bodyString = if (macroName.startsWith(JSON_PATH_MACRO_PREFIX_1) || macroName.startsWith(JSON_PATH_MACRO_PREFIX_2)) {
-          JsonPathUtils.read[Any](ctx, macroName)
-        } else {
-          val bindings = new java.util.HashMap[String, Any]()
-          bindings.put(SELF_VARIABLE, ctx)
-          JsEngine.eval(macroName, bindings)
-        }
-        if (null != bodyString) bodyString.toString else "null"
-      })
+      if (template.contains(TEMPLATE_PREFIX)) {
+        CompiledTemplate.get(template).render(ctx)
+      } else {
+        template
+      }
     } else {
       StringUtils.EMPTY
     }
@@ -127,43 +117,56 @@ object RuntimeContext {
 }
 
 /**
- * use java type system
+ * use java type system. The context and its scopes are [[ScopeMap]]s, so results and reports keep
+ * a cheap immutable snapshot instead of the live map.
  */
 case class RuntimeContext(
-                           private val ctx: util.Map[Any, Any] = new util.concurrent.ConcurrentHashMap[Any, Any](),
+                           private val ctx: util.Map[Any, Any] = ScopeMap(),
                            var options: ContextOptions = null,
                          ) {
 
+  // records the phase latencies of steps when running in a job
+  var latencyRecorder: LatencyRecorder = null
+  // stop evaluating the assertions of a step once one fails
+  var assertFailFast = false
+
   def rawContext = ctx
 
+  /** an immutable copy of the current context, including the scopes */
+  def snapshot(): util.Map[Any, Any] = {
+    ctx match {
+      case scopeMap: ScopeMap => scopeMap.snapshot()
+      case _ => ScopeMap(ctx).snapshot()
+    }
+  }
+
+  def recordLatency(stepId: String, metrics: RuntimeMetrics): RuntimeContext = {
+    if (null != latencyRecorder) latencyRecorder.record(stepId, metrics)
+    this
+  }
+
   def evaluateImportsVariables(imports: Seq[VariablesImportItem]): Future[RuntimeContext] = {
     if (null != imports && imports.nonEmpty) {
-      val items = imports.filter(item => null != item && item.isValid())
-      items.foldLeft(Future.successful(this))((futureRc, item) => {
-        for {
-          _ <- futureRc
-          next <- {
-            val futureValue = if (null != item.value) {
-              val value = if (VariablesImportItem.TYPE_ENUM.equals(item.`type`)
-                && null != item.extra && null != item.extra.options
-              ) {
-                val kvOpt = item.extra.options.find(kv => item.value.equals(kv.key))
-                if (kvOpt.nonEmpty) kvOpt.get.value else item.value
-              } else {
-                item.value
-              }
-              if (StringUtils.isNotEmpty(item.function)) {
-                evaluateValue(value, item.function, item.extra)
-              } else {
-                Future.successful(value)
-              }
-            } else {
-              Future.successful(item.value)
-            }
-            futureValue.map(value => putValueToScope(item.name, value, item.scope))
+      val items = imports.filter(item => null != item && item.isValid()).toIndexedSeq
+      evaluateInOrder(items, 0)(item => {
+        if (null != item.value) {
+          val value = if (VariablesImportItem.TYPE_ENUM.equals(item.`type`)
+            && null != item.extra && null != item.extra.options
+          ) {
+            val kvOpt = item.extra.options.find(kv => item.value.equals(kv.key))
+            if (kvOpt.nonEmpty) kvOpt.get.value else item.value
+          } else {
+            item.value
+          }
+          if (StringUtils.isNotEmpty(item.function)) {
+            evaluateValue(value, item.function, item.extra)
+          } else {
+            Future.successful(value)
           }
-        } yield next
-      })
+        } else {
+          Future.successful(item.value)
+        }
+      }, (item, value) => putValueToScope(item.name, value, item.scope))
     } else {
       Future.successful(this)
     }
@@ -171,30 +174,54 @@ case class RuntimeContext(
 
   def evaluateExportsVariables(exports: Seq[VariablesExportItem]): Future[RuntimeContext] = {
     if (null != exports && exports.nonEmpty) {
-      val items = exports.filter(item => null != item && item.isValid())
-      items.foldLeft(Future.successful(this))((futureRc, item) => {
-        for {
-          _ <- futureRc
-          next <- {
-            val futureValue = try {
-              val tmpValue = JsonPathUtils.read[Object](ctx, item.srcPath)
-              if (null != tmpValue && StringUtils.isNotEmpty(item.function)) {
-                evaluateValue(tmpValue, item.function, item.extra)
-              } else {
-                Future.successful(tmpValue)
-              }
-            } catch {
-              case t: Throwable => Future.successful(t.getMessage)
-            }
-            futureValue.map(value => putValueToScope(item.dstName, value, item.scope))
+      val items = exports.filter(item => null != item && item.isValid()).toIndexedSeq
+      // the live context is read, so an item sees the values exported by the previous items
+      evaluateInOrder(items, 0)(item => {
+        try {
+          val tmpValue = JsonPathUtils.read[Object](ctx, JsonPathUtils.compile(item.srcPath))
+          if (null != tmpValue && StringUtils.isNotEmpty(item.function)) {
+            evaluateValue(tmpValue, item.function, item.extra)
+          } else {
+            Future.successful(tmpValue)
           }
-        } yield next
-      })
+        } catch {
+          case t: Throwable => Future.successful(t.getMessage)
+        }
+      }, (item, value) => putValueToScope(item.dstName, value, item.scope))
     } else {
       Future.successful(this)
     }
   }
 
+  /**
+   * Put the values of the items in order. Completed values, e.g. of the builtin transforms, are
+   * put inline, the evaluation only goes async at the items which are not completed, e.g. scripts,
+   * and continues after them. A failed value is put as its message.
+   */
+  private def evaluateInOrder[T](items: IndexedSeq[T], from: Int)
+                                (evaluate: T => Future[Object], put: (T, Object) => Unit): Future[RuntimeContext] = {
+    var i = from
+    var pending: Future[RuntimeContext] = null
+    while (null == pending && i < items.length) {
+      val item = items(i)
+      val future = evaluate(item)
+      future.value match {
+        case Some(Success(value)) => put(item, value)
+        case Some(Failure(t)) => put(item, t.getMessage)
+        case None =>
+          val next = i + 1
+          pending = future.recover {
+            case t: Throwable => t.getMessage
+          }.flatMap(value => {
+            put(item, value)
+            evaluateInOrder(items, next)(evaluate, put)
+          })
+      }
+      i += 1
+    }
+    if (null != pending) pending else Future.successful(this)
+  }
+
   def renderedExportsDesc(exports: Seq[VariablesExportItem]): Map[Int, String] = {
     if (null != exports && exports.nonEmpty) {
       val map = mutable.Map[Int, String]()
@@ -214,8 +241,8 @@ case class RuntimeContext(
     val func = Functions.getTransform(function)
     if (func.nonEmpty) {
       val arg = if (null != extra) ArgWithExtraData(value, extra) else value
-      func.get.apply(arg).recover {
-        case t: Throwable => t.getMessage
+      try func.get.apply(arg) catch {
+        case t: Throwable => Future.failed(t)
       }
     } else {
       Future.successful(s"Function '${function}' not registered")
@@ -224,17 +251,21 @@ case class RuntimeContext(
 
   def putValueToScope(key: String, value: Object, scope: String): RuntimeContext = {
     // usually do not need to check scope can only be one of `_g`, `_j`, `_s`
-    var scopeCtx = ctx.get(scope)
-    if (null == scopeCtx) {
-      // use a HashMap to allow null values, currently the step run in sequence one by one
-      // the should be no thread-safe problem
-      scopeCtx = new util.HashMap[Any, Any]()
-      ctx.put(scope, scopeCtx)
-    }
-    scopeCtx.asInstanceOf[util.Map[Any, Any]].put(key, value)
+    scopeOf(scope).put(key, value)
     this
   }
 
+  // maps of other types, e.g. from `initCtx`, are converted once
+  private def scopeOf(scope: String): util.Map[Any, Any] = ctx.synchronized {
+    ctx.get(scope) match {
+      case scopeMap: ScopeMap if !scopeMap.readOnly => scopeMap
+      case other =>
+        val scopeMap = ScopeMap(other.asInstanceOf[util.Map[Any, Any]])
+        ctx.put(scope, scopeMap)
+        scopeMap
+    }
+  }
+
   def eraseCurrentData(): RuntimeContext = {
     ctx.remove(RuntimeContext.KEY_STATUS)
     ctx.remove(RuntimeContext.KEY_HEADERS)
@@ -244,6 +275,21 @@ case class RuntimeContext(
     this
   }
 
+  /**
+   * A context for a scenario running concurrently with others. The `_g`, `_j` and `_env` scopes are
+   * shared with this context, the `_s` scope and the current step data belong to the new one.
+   */
+  def forkScenario(): RuntimeContext = {
+    val forked = RuntimeContext(options = if (null != options) options.copy() else null)
+    forked.latencyRecorder = latencyRecorder
+    val forkedCtx = forked.rawContext
+    // the scopes are thread-safe, sharing them costs nothing
+    forkedCtx.put(RuntimeContext.KEY__G, scopeOf(RuntimeContext.KEY__G))
+    forkedCtx.put(RuntimeContext.KEY__J, scopeOf(RuntimeContext.KEY__J))
+    if (null != ctx.get(RuntimeContext.KEY__ENV)) forkedCtx.put(RuntimeContext.KEY__ENV, scopeOf(RuntimeContext.KEY__ENV))
+    forked
+  }
+
   def eraseScenarioData(): RuntimeContext = {
     val value = ctx.get(RuntimeContext.KEY__S)
     if (null != value && value.isInstanceOf[util.Map[_, _]]) {
@@ -291,11 +337,7 @@ case class RuntimeContext(
 
   def setOrUpdateEnv(env: Environment): RuntimeContext = {
     if (null != env) {
-      var envMap = ctx.get(RuntimeContext.KEY__ENV).asInstanceOf[util.Map[Any, Any]]
-      if (null == envMap) {
-        envMap = new util.concurrent.ConcurrentHashMap[Any, Any]()
-        ctx.put(RuntimeContext.KEY__ENV, envMap)
-      }
+      val envMap = scopeOf(RuntimeContext.KEY__ENV)
       if (null != env.custom && env.custom.nonEmpty) {
         env.custom.filter(_.enabled).foreach(kv => {
           envMap.put(kv.key, kv.value)
@@ -315,7 +357,7 @@ case class RuntimeContext(
         setOrUpdateEnv(options.getUsedEnv())
         Future.successful(true)
       } else if (StringUtils.isNotEmpty(usedEnvId)) {
-        EnvironmentService.getEnvById(usedEnvId).map(env => {
+        EnvironmentService.getCachedEnvById(usedEnvId).map(env => {
           options.setUsedEnv(usedEnvId, env)
           setOrUpdateEnv(env)
           true
@@ -70,6 +70,14 @@ class RuntimeMetrics {
     )
   }
 
+  def renderRequestNanos: Long = _renderRequestEnd - _renderRequestStart
+
+  def requestNanos: Long = _evalAssertionStart - _performRequestStart
+
+  def evalAssertionNanos: Long = _evalAssertionEnd - _evalAssertionStart
+
+  def totalNanos: Long = _theEnd - _start
+
   def getRequestTime(): Int = {
     Math.round((_evalAssertionStart - _performRequestStart).toDouble / scale).toInt
   }
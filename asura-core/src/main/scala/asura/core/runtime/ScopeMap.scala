@@ -0,0 +1,116 @@
+package asura.core.runtime
+
+import java.util
+
+import scala.collection.immutable.HashMap
+
+/**
+ * A thread-safe copy-on-write map of a context. A write replaces the persistent map it holds,
+ * which shares most of its structure with the previous one, and reads are not locked, so a
+ * snapshot keeps the current map instead of copying the entries. Nested scope maps, e.g. `_g`,
+ * `_j` and `_s`, are snapshotted with the map, so a snapshot costs O(nested scopes). Other values
+ * are shared as they are. Null values are allowed as the steps export them.
+ */
+final class ScopeMap private(
+                              @volatile private var map: HashMap[Any, Any],
+                              @volatile private var nestedKeys: Set[Any],
+                              val readOnly: Boolean,
+                            ) extends util.AbstractMap[Any, Any] {
+
+  override def size(): Int = map.size
+
+  override def isEmpty: Boolean = map.isEmpty
+
+  override def containsKey(key: Any): Boolean = map.contains(key)
+
+  override def get(key: Any): Any = map.getOrElse(key, null)
+
+  override def put(key: Any, value: Any): Any = synchronized {
+    checkWritable()
+    val prev = get(key)
+    map = map.updated(key, value)
+    updateNested(key, value)
+    prev
+  }
+
+  override def putAll(m: util.Map[_ <: Any, _ <: Any]): Unit = synchronized {
+    checkWritable()
+    val it = m.entrySet().iterator()
+    while (it.hasNext) {
+      val entry = it.next()
+      map = map.updated(entry.getKey, entry.getValue)
+      updateNested(entry.getKey, entry.getValue)
+    }
+  }
+
+  override def remove(key: Any): Any = synchronized {
+    checkWritable()
+    val prev = get(key)
+    map = map.removed(key)
+    nestedKeys = nestedKeys - key
+    prev
+  }
+
+  override def clear(): Unit = synchronized {
+    checkWritable()
+    map = HashMap.empty
+    nestedKeys = Set.empty
+  }
+
+  /** the iterator does not support `remove` */
+  override def entrySet(): util.Set[util.Map.Entry[Any, Any]] = {
+    val current = map
+    new util.AbstractSet[util.Map.Entry[Any, Any]] {
+
+      override def size(): Int = current.size
+
+      override def iterator(): util.Iterator[util.Map.Entry[Any, Any]] = new util.Iterator[util.Map.Entry[Any, Any]] {
+
+        private val it = current.iterator
+
+        override def hasNext: Boolean = it.hasNext
+
+        override def next(): util.Map.Entry[Any, Any] = {
+          val (key, value) = it.next()
+          new util.AbstractMap.SimpleImmutableEntry[Any, Any](key, value)
+        }
+      }
+    }
+  }
+
+  /** an immutable copy which is not changed by the later writes of this map */
+  def snapshot(): ScopeMap = {
+    if (readOnly) {
+      this
+    } else {
+      synchronized {
+        var frozen = map
+        nestedKeys.foreach(key => frozen = frozen.updated(key, map(key).asInstanceOf[ScopeMap].snapshot()))
+        new ScopeMap(frozen, nestedKeys, readOnly = true)
+      }
+    }
+  }
+
+  private def updateNested(key: Any, value: Any): Unit = {
+    if (value.isInstanceOf[ScopeMap]) {
+      nestedKeys = nestedKeys + key
+    } else if (nestedKeys.contains(key)) {
+      nestedKeys = nestedKeys - key
+    }
+  }
+
+  private def checkWritable(): Unit = {
+    if (readOnly) throw new UnsupportedOperationException("snapshot of a context is read only")
+  }
+}
+
+object ScopeMap {
+
+  def apply(): ScopeMap = new ScopeMap(HashMap.empty, Set.empty, readOnly = false)
+
+  def apply(from: util.Map[_ <: Any, _ <: Any]): ScopeMap = {
+    val scopeMap = ScopeMap()
+    if (null != from) scopeMap.putAll(from)
+    scopeMap
+  }
+}
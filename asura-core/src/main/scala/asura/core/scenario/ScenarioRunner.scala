@@ -40,7 +40,7 @@ object ScenarioRunner {
           caseIds ++= scenarioCaseIds
           scenarioIdCaseIdMap(scenarioId) = scenarioCaseIds
         })
-        HttpRequestService.getByIdsAsMap(caseIds.toSeq)
+        HttpRequestService.getCachedByIds(caseIds.toSeq)
       }).flatMap(caseIdMap => {
         val scenarioIdCaseMap = scala.collection.mutable.HashMap[String, Seq[(String, HttpStepRequest)]]()
         scenarioIdCaseIdMap.foreach(tuple => {
@@ -97,6 +97,7 @@ object ScenarioRunner {
     val failFast = StringUtils.isNotEmpty(scenarioId)
     var isScenarioFailed = false
     val caseContext = RuntimeContext(options = options)
+    if (null != dataStoreHelper) caseContext.latencyRecorder = dataStoreHelper.latencyRecorder
     var caseIndex = 0
     httpTuples.foldLeft(Future.successful(nullCaseReportItem))((prevCaseReportItemFuture, tuple) => {
       val (id, cs) = tuple
@@ -8,7 +8,7 @@ import akka.pattern.pipe
 import asura.common.actor._
 import asura.common.exceptions.WithDataException
 import asura.common.util.{FutureUtils, LogUtils, StringUtils, XtermUtils}
-import asura.core.ErrorMessages
+import asura.core.{CoreConfig, ErrorMessages}
 import asura.core.assertion.engine.Statistic
 import asura.core.dubbo.RenderedDubboModel.RenderedDubboRequest
 import asura.core.dubbo.{DubboResult, DubboRunner}
@@ -55,6 +55,7 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
       this.exports = msg.exports
       this.steps = msg.steps
       this.failFast = msg.failFast
+      this.runtimeContext.assertFailFast = this.failFast && CoreConfig.assertionConfig.failFast
       this.runtimeContext.evaluateImportsVariables(msg.imports)
         .flatMap(_ => getScenarioTestData(steps))
         .map(stepsData => {
@@ -75,6 +76,7 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
       this.storeHelper = msg.storeHelper
       this.exports = msg.exports
       this.failFast = msg.failFast
+      this.runtimeContext.assertFailFast = this.failFast && CoreConfig.assertionConfig.failFast
       this.runtimeContext.evaluateImportsVariables(msg.imports)
         .flatMap(_ => getScenarioTestData(steps))
         .map(stepsData => {
@@ -140,7 +142,7 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
               case WithDataException(t, rendered) =>
                 handleExceptionalResult(
                   httpRequest.summary,
-                  HttpResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedHttpRequest], this.runtimeContext.rawContext),
+                  HttpResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedHttpRequest], this.runtimeContext.snapshot()),
                   step, idx, t
                 )
               case t: Throwable =>
@@ -159,7 +161,7 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
               case WithDataException(t, rendered) =>
                 handleExceptionalResult(
                   dubboRequest.summary,
-                  DubboResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedDubboRequest], this.runtimeContext.rawContext),
+                  DubboResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedDubboRequest], this.runtimeContext.snapshot()),
                   step, idx, t)
               case t: Throwable =>
                 handleExceptionalResult(dubboRequest.summary, DubboResult.exceptionResult(step.id), step, idx, t)
@@ -177,7 +179,7 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
               case WithDataException(t, rendered) =>
                 handleExceptionalResult(
                   sqlRequest.summary,
-                  SqlResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedSqlRequest], this.runtimeContext.rawContext),
+                  SqlResult.exceptionResult(step.id, rendered.asInstanceOf[RenderedSqlRequest], this.runtimeContext.snapshot()),
                   step, idx, t)
               case t: Throwable =>
                 handleExceptionalResult(sqlRequest.summary, SqlResult.exceptionResult(step.id), step, idx, t)
@@ -330,31 +332,15 @@ class ScenarioRunnerActor(scenarioId: String) extends ScenarioStepBasicActor {
   }
 
   private def getScenarioTestData(steps: Seq[ScenarioStep]): Future[ScenarioTestData] = {
-    val httpSeq = ArrayBuffer[String]()
-    val dubboSeq = ArrayBuffer[String]()
-    val sqlSeq = ArrayBuffer[String]()
-    steps.foreach(step => {
-      step.`type` match {
-        case ScenarioStep.TYPE_HTTP => httpSeq += step.id
-        case ScenarioStep.TYPE_DUBBO => dubboSeq += step.id
-        case ScenarioStep.TYPE_SQL => sqlSeq += step.id
-        case _ =>
-      }
-    })
-    val res = for {
-      http <- HttpRequestService.getByIdsAsMap(httpSeq.toSeq)
-      dubbo <- DubboRequestService.getByIdsAsMap(dubboSeq.toSeq)
-      sql <- SqlRequestService.getByIdsAsMap(sqlSeq.toSeq)
-    } yield (http, dubbo, sql)
-    res.map(triple => {
+    ScenarioRunnerActor.getScenarioTestData(steps).map(stepsData => {
       if (null != wsActor) {
         val msg = s"${consoleLogPrefix("SUM  ", -1)} " +
-          s"${XtermUtils.magentaWrap("HTTP")}:${triple._1.size}, " +
-          s"${XtermUtils.magentaWrap("DUBBO")}:${triple._2.size}, " +
-          s"${XtermUtils.magentaWrap("SQL")}:${triple._3.size}"
+          s"${XtermUtils.magentaWrap("HTTP")}:${stepsData.http.size}, " +
+          s"${XtermUtils.magentaWrap("DUBBO")}:${stepsData.dubbo.size}, " +
+          s"${XtermUtils.magentaWrap("SQL")}:${stepsData.sql.size}"
         wsActor ! NotifyActorEvent(msg)
       }
-      ScenarioTestData(triple._1, triple._2, triple._3)
+      stepsData
     })
   }
 
@@ -398,6 +384,27 @@ object ScenarioRunnerActor {
 
   def props(scenarioId: String) = Props(new ScenarioRunnerActor(scenarioId))
 
+  /** load all the request docs referenced by the steps */
+  def getScenarioTestData(steps: Seq[ScenarioStep]): Future[ScenarioTestData] = {
+    import asura.core.concurrent.ExecutionContextManager.sysGlobal
+    val httpSeq = ArrayBuffer[String]()
+    val dubboSeq = ArrayBuffer[String]()
+    val sqlSeq = ArrayBuffer[String]()
+    steps.foreach(step => {
+      step.`type` match {
+        case ScenarioStep.TYPE_HTTP => httpSeq += step.id
+        case ScenarioStep.TYPE_DUBBO => dubboSeq += step.id
+        case ScenarioStep.TYPE_SQL => sqlSeq += step.id
+        case _ =>
+      }
+    })
+    for {
+      http <- HttpRequestService.getCachedByIds(httpSeq.toSeq)
+      dubbo <- DubboRequestService.getCachedByIds(dubboSeq.toSeq)
+      sql <- SqlRequestService.getCachedByIds(sqlSeq.toSeq)
+    } yield ScenarioTestData(http, dubbo, sql)
+  }
+
   // from web
   case class ScenarioTestWebMessage(
                                      summary: String,
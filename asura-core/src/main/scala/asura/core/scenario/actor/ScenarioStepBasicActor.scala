@@ -41,6 +41,8 @@ trait ScenarioStepBasicActor extends BaseActor {
             goOn <- {
               if (!meetCondition && null != condition && null != condition.assert && condition.assert.nonEmpty && condition.to > -1) {
                 val statis = Statistic()
+                // only the state is used
+                statis.failFast = true
                 AssertionContext.eval(condition.assert, runtimeContext.rawContext, statis)
                   .map(_ => if (statis.isSuccessful) {
                     jumpTo = sendJumpMsgAndGetJumpStep(condition.to, step, idx)
@@ -1,20 +1,38 @@
 package asura.core.script
 
+import java.util
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.LongAdder
+
+import asura.common.metrics.MetricsRegistry
+import asura.core.concurrent.ExecutionContextManager
 import asura.core.script.builtin.{Functions, StringGenerator}
 import com.typesafe.scalalogging.Logger
 import org.graalvm.polyglot.{Context, Engine, Source, Value}
 
+import scala.concurrent.Future
+
 case class JsEngine(context: Context) {
 
   val bindings: Value = context.getBindings(JsEngine.JS)
   context.eval(JsEngine.BASE_LIBS)
+  // members defined by the base libraries, they will be kept when reset
+  private val baseMembers: util.Set[String] = new util.HashSet[String](bindings.getMemberKeys)
+  // checks the globals and the built-in objects are not changed since the context was initialized
+  private val integrityCheck: Value = context.eval(JsEngine.INTEGRITY_CHECK)
 
   def eval(exp: String, bindingsData: java.util.Map[String, Any] = null): Object = {
     if (bindingsData != null) {
       putAll(bindingsData)
     }
-    val value = context.eval(JsEngine.JS, exp)
-    if (value.isNull) null else value.as(classOf[Object])
+    JsEngine.toHost(context.eval(JsEngine.JS, exp))
+  }
+
+  def eval(source: Source, bindingsData: java.util.Map[String, Any]): Object = {
+    if (bindingsData != null) {
+      putAll(bindingsData)
+    }
+    JsEngine.toHost(context.eval(source))
   }
 
   def put(key: String, value: Any): Unit = {
@@ -25,6 +43,30 @@ case class JsEngine(context: Context) {
     map.forEach((k: String, v: Any) => put(k, v))
   }
 
+  /**
+   * remove all the global members which are not defined by the base libraries.
+   *
+   * @return false if some members can not be removed, e.g. declared by `var` or `function`, or
+   *         if a global or a built-in object is changed, e.g. `JSON = ...` or `Array.prototype.x = ...`,
+   *         then this engine should not be reused
+   */
+  def reset(): Boolean = {
+    var clean = true
+    val keys = new util.ArrayList[String](bindings.getMemberKeys)
+    keys.forEach(key => {
+      if (clean && !baseMembers.contains(key)) {
+        clean = try {
+          bindings.removeMember(key)
+        } catch {
+          case _: Throwable => false
+        }
+      }
+    })
+    clean && (try integrityCheck.execute().asBoolean() catch {
+      case _: Throwable => false
+    })
+  }
+
   def close(cancelIfExecuting: Boolean = true): Unit = {
     context.close(cancelIfExecuting)
   }
@@ -40,11 +82,93 @@ object JsEngine {
   val JS_NASHORN_COMPAT = "js.nashorn-compat"
   val TRUE = "true"
 
+  val DEFAULT_POOL_SIZE = Runtime.getRuntime.availableProcessors() * 2
+  // top level lexical declarations live outside of the global object and can not be removed
+  private val LEXICAL_DECLARATION = "\\b(let|const|class)\\b".r
+
   val BASE_LIBS: Source = {
     logger.info("initialize base javascript libraries")
     Source.newBuilder(JS, StringGenerator.exports + Functions.exports, "base").build()
   }
 
+  /**
+   * Returns a function which compares the own properties and the prototypes of the global object,
+   * the objects it holds and their prototypes with a snapshot. The functions it uses are captured
+   * at first, so the scripts can not change the check itself.
+   */
+  val INTEGRITY_CHECK: Source = Source.newBuilder(JS,
+    """(function () {
+      |  var getNames = Object.getOwnPropertyNames, getDesc = Object.getOwnPropertyDescriptor;
+      |  var getProto = Object.getPrototypeOf, is = Object.is, global = globalThis;
+      |  var snapshots = [];
+      |  function snapshot(obj) {
+      |    try {
+      |      var names = getNames(obj), props = [];
+      |      for (var i = 0; i < names.length; i++) {
+      |        var desc = getDesc(obj, names[i]);
+      |        props[props.length] = [names[i], desc.value, desc.get, desc.set];
+      |      }
+      |      snapshots[snapshots.length] = [obj, getProto(obj), props];
+      |    } catch (e) {
+      |      // host objects, e.g. `Packages`
+      |    }
+      |  }
+      |  function snapshotValue(value) {
+      |    if (null !== value && (typeof value === 'object' || typeof value === 'function') && value !== global) {
+      |      snapshot(value);
+      |      var proto = getDesc(value, 'prototype');
+      |      if (proto && null !== proto.value && typeof proto.value === 'object') snapshot(proto.value);
+      |    }
+      |  }
+      |  snapshot(global);
+      |  var globalNames = getNames(global);
+      |  for (var i = 0; i < globalNames.length; i++) snapshotValue(getDesc(global, globalNames[i]).value);
+      |  snapshot(getProto(global));
+      |  return function () {
+      |    for (var i = 0; i < snapshots.length; i++) {
+      |      var obj = snapshots[i][0], props = snapshots[i][2];
+      |      if (getProto(obj) !== snapshots[i][1] || getNames(obj).length !== props.length) return false;
+      |      for (var j = 0; j < props.length; j++) {
+      |        var desc = getDesc(obj, props[j][0]);
+      |        if (!desc || !is(desc.value, props[j][1]) || desc.get !== props[j][2] || desc.set !== props[j][3]) return false;
+      |      }
+      |    }
+      |    return true;
+      |  };
+      |})()""".stripMargin, "integrity").build()
+
+  // all the contexts share one engine, so the parsed and compiled code can be reused between them
+  val SHARED_ENGINE: Engine = Engine.newBuilder().build()
+
+  @volatile private var pool = new ArrayBlockingQueue[JsEngine](DEFAULT_POOL_SIZE)
+  private val borrowed = new LongAdder()
+  private val hits = new LongAdder()
+  private val created = new LongAdder()
+  private val discarded = new LongAdder()
+  private lazy val SCRIPT_EC = ExecutionContextManager.forSubsystem(ExecutionContextManager.SUBSYSTEM_SCRIPT)
+
+  MetricsRegistry.register("script.pool", () => poolStats())
+
+  /**
+   * @param poolSize max idle contexts kept in the pool
+   * @param warmup   contexts created and initialized before the first use
+   */
+  def init(poolSize: Int, warmup: Int = 0): Unit = {
+    val size = if (poolSize > 0) poolSize else DEFAULT_POOL_SIZE
+    val old = pool
+    pool = new ArrayBlockingQueue[JsEngine](size)
+    old.forEach(engine => engine.close())
+    old.clear()
+    val count = Math.min(warmup, size)
+    if (count > 0) {
+      logger.info(s"warm up ${count} javascript contexts")
+      for (_ <- 0 until count) {
+        created.increment()
+        pool.offer(JsEngine(createContext(SHARED_ENGINE)))
+      }
+    }
+  }
+
   def createContext(engine: Engine): Context = {
     Context.newBuilder(JS)
       .allowExperimentalOptions(true)
@@ -56,22 +180,119 @@ object JsEngine {
   }
 
   private val GLOBAL_JS_ENGINE: ThreadLocal[JsEngine] = ThreadLocal.withInitial(() => {
-    JsEngine(createContext(null))
+    JsEngine(createContext(SHARED_ENGINE))
   })
 
   def global(): JsEngine = GLOBAL_JS_ENGINE.get()
 
-  def local(): JsEngine = JsEngine(createContext(GLOBAL_JS_ENGINE.get().context.getEngine))
+  def local(): JsEngine = JsEngine(createContext(SHARED_ENGINE))
+
+  /** get an initialized engine from the pool or create a new one, it must be released after used */
+  def borrow(): JsEngine = {
+    borrowed.increment()
+    val engine = pool.poll()
+    if (null != engine) {
+      hits.increment()
+      engine
+    } else {
+      created.increment()
+      local()
+    }
+  }
+
+  /** return the engine to the pool if it is still clean, otherwise close it */
+  def release(engine: JsEngine, reusable: Boolean = true): Unit = {
+    if (!(reusable && engine.reset() && pool.offer(engine))) {
+      discarded.increment()
+      engine.close()
+    }
+  }
 
   def eval(script: String, bindingsData: java.util.Map[String, Any] = null): Any = {
-    val engine = local()
-    val value = engine.eval(script, bindingsData)
-    engine.close()
-    value
+    eval(parse(script), bindingsData)
+  }
+
+  /** evaluate a parsed script, the source should be reused if the script will be evaluated many times */
+  def eval(source: Source, bindingsData: java.util.Map[String, Any]): Any = {
+    val engine = borrow()
+    var reusable = false
+    try {
+      val value = engine.eval(source, bindingsData)
+      reusable = LEXICAL_DECLARATION.findFirstIn(source.getCharacters).isEmpty
+      value
+    } finally {
+      release(engine, reusable)
+    }
+  }
+
+  /** evaluate the script on the pool of the `script` subsystem instead of the caller thread */
+  def evalAsync(script: String, bindingsData: java.util.Map[String, Any]): Future[Any] = {
+    evalAsync(parse(script), bindingsData)
+  }
+
+  def evalAsync(source: Source, bindingsData: java.util.Map[String, Any]): Future[Any] = {
+    Future(eval(source, bindingsData))(SCRIPT_EC)
+  }
+
+  def parse(script: String): Source = Source.create(JS, script)
+
+  /**
+   * Convert a result to plain host values, so it does not refer to the context which may be reused
+   * by another script. Arrays become lists, objects become maps and functions become their source.
+   */
+  def toHost(value: Value): Object = toHost(value, new util.HashSet[Value]())
+
+  private def toHost(value: Value, parents: util.Set[Value]): Object = {
+    if (value.isNull) {
+      null
+    } else if (value.isHostObject) {
+      value.asHostObject[Object]()
+    } else if (value.isString) {
+      value.asString()
+    } else if (value.isBoolean || value.isNumber) {
+      value.as(classOf[Object])
+    } else if (value.canExecute || !parents.add(value)) {
+      // functions and circular references
+      value.toString
+    } else if (value.hasArrayElements) {
+      val list = new util.ArrayList[Object](value.getArraySize.toInt)
+      for (i <- 0L until value.getArraySize) list.add(toHost(value.getArrayElement(i), parents))
+      parents.remove(value)
+      list
+    } else if (value.hasMembers) {
+      val map = new util.LinkedHashMap[String, Object]()
+      value.getMemberKeys.forEach(key => map.put(key, toHost(value.getMember(key), parents)))
+      parents.remove(value)
+      map
+    } else {
+      parents.remove(value)
+      value.toString
+    }
   }
 
   def evalGlobal(script: String, bindingsData: java.util.Map[String, Any] = null): Any = {
     global().eval(script, bindingsData)
   }
 
+  def poolStats(): JsEnginePoolStats = {
+    val current = pool
+    JsEnginePoolStats(
+      maxSize = current.size() + current.remainingCapacity(),
+      idle = current.size(),
+      borrowed = borrowed.sum(),
+      hits = hits.sum(),
+      created = created.sum(),
+      discarded = discarded.sum(),
+    )
+  }
+
+  case class JsEnginePoolStats(
+                                maxSize: Int,
+                                idle: Int,
+                                borrowed: Long,
+                                hits: Long,
+                                created: Long,
+                                discarded: Long,
+                              )
+
 }
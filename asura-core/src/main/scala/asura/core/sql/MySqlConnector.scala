@@ -6,80 +6,104 @@ import java.util.Base64
 
 import asura.common.util.{LogUtils, RSAUtils, StringUtils}
 import asura.core.CoreConfig
+import asura.core.CoreConfig.SqlPoolConfig
 import asura.core.es.model.SqlRequest.SqlRequestBody
+import com.alibaba.druid.pool.DruidDataSource
 import com.typesafe.scalalogging.Logger
 
 object MySqlConnector {
 
   val logger = Logger("MySqlConnectors")
 
-  @throws[Throwable]
-  def connect(sql: SqlRequestBody): Connection = {
-    val url = s"jdbc:mysql://${sql.host}:${sql.port}/${sql.database}?autoReconnect=true&useCursorFetch=true&useUnicode=true&characterEncoding=utf-8"
-    try {
-      val password = if (StringUtils.isNotEmpty(sql.encryptedPass)) {
-        val bytes = Base64.getDecoder.decode(sql.encryptedPass)
-        new String(RSAUtils.decryptByPublicKey(bytes, CoreConfig.securityConfig.pubKeyBytes))
-      } else {
-        sql.password
-      }
-      DriverManager.getConnection(url, sql.username, password)
-    } catch {
-      case t: Throwable =>
-        logger.error(LogUtils.stackTraceToString(t))
-        throw t
+  /** the pool is initialized when the first connection is borrowed */
+  def newDataSource(sql: SqlRequestBody, config: SqlPoolConfig): DruidDataSource = {
+    val url = s"jdbc:mysql://${sql.host}:${sql.port}/${sql.database}?useCursorFetch=true&useServerPrepStmts=true&useUnicode=true&characterEncoding=utf-8"
+    val password = if (StringUtils.isNotEmpty(sql.encryptedPass)) {
+      val bytes = Base64.getDecoder.decode(sql.encryptedPass)
+      new String(RSAUtils.decryptByPublicKey(bytes, CoreConfig.securityConfig.pubKeyBytes))
+    } else {
+      sql.password
+    }
+    val dataSource = new DruidDataSource()
+    dataSource.setName(s"${sql.username}@${sql.host}:${sql.port}/${sql.database}")
+    dataSource.setUrl(url)
+    dataSource.setUsername(sql.username)
+    dataSource.setPassword(password)
+    dataSource.setInitialSize(0)
+    dataSource.setMinIdle(config.minIdle)
+    dataSource.setMaxActive(config.maxActive)
+    dataSource.setMaxWait(config.maxWait.toMillis)
+    dataSource.setTimeBetweenEvictionRunsMillis(config.validationInterval.toMillis)
+    dataSource.setMinEvictableIdleTimeMillis(config.idleTimeout.toMillis)
+    // connections idle longer than the `validationInterval` are validated when borrowed
+    dataSource.setValidationQuery(MySqlDataSources.VALIDATION_QUERY)
+    dataSource.setValidationQueryTimeout(SqlConfig.SQL_CONN_CHECK_TIMEOUT)
+    dataSource.setTestWhileIdle(true)
+    dataSource.setTestOnBorrow(false)
+    dataSource.setTestOnReturn(false)
+    // waiting threads fail at once when a connection can not be created
+    dataSource.setFailFast(true)
+    // prepared statements are parsed once by the server for each connection
+    if (config.preparedStatementCacheSize > 0) {
+      dataSource.setPoolPreparedStatements(true)
+      dataSource.setMaxPoolPreparedStatementPerConnectionSize(config.preparedStatementCacheSize)
     }
+    dataSource
   }
 
   @throws[Throwable]
-  def executeUpdate(conn: Connection, sql: String): Integer = {
-    val statement = conn.createStatement()
+  def executeUpdate(conn: Connection, sql: String, params: util.List[Object] = util.Collections.emptyList()): Integer = {
+    var statement: Statement = null
     try {
-      statement.executeUpdate(sql)
+      if (params.isEmpty) {
+        statement = conn.createStatement()
+        statement.executeUpdate(sql)
+      } else {
+        val prepared = conn.prepareStatement(sql)
+        statement = prepared
+        setParams(prepared, params)
+        prepared.executeUpdate()
+      }
     } catch {
       case t: Throwable =>
         logger.error(LogUtils.stackTraceToString(t))
         throw t
     } finally {
-      statement.close()
+      // a prepared statement is returned to the statement cache of the pooled connection
+      if (null != statement) statement.close()
     }
   }
 
   @throws[Throwable]
-  def executeQuery(conn: Connection, sql: String): java.util.List[java.util.HashMap[String, Object]] = {
+  def executeQuery(conn: Connection, sql: String, params: util.List[Object] = util.Collections.emptyList()): SqlResultSet = {
     var statement: Statement = null
     try {
       // https://stackoverflow.com/questions/26046234/is-there-a-mysql-jdbc-that-will-respect-fetchsize
-      statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
-      statement.setFetchSize(SqlConfig.MAX_ROWS_SIZE)
-      val rs = statement.executeQuery(sql)
-      val list = new util.ArrayList[util.HashMap[String, Object]]()
-      val metaData = rs.getMetaData
-      val count = metaData.getColumnCount
-      while (rs.next() && list.size() < SqlConfig.MAX_ROWS_SIZE) {
-        val row = new util.HashMap[String, Object]()
-        for (i <- 1 to count) {
-          val value = preserve(metaData, rs, i)
-          if (null != value) row.put(metaData.getColumnName(i), value)
-        }
-        list.add(row)
+      val rs = if (params.isEmpty) {
+        statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        statement.setFetchSize(SqlConfig.MAX_ROWS_SIZE)
+        // rows more than this are not sent by the server
+        statement.setMaxRows(SqlConfig.MAX_ROWS_SIZE)
+        statement.executeQuery(sql)
+      } else {
+        val prepared = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        statement = prepared
+        prepared.setFetchSize(SqlConfig.MAX_ROWS_SIZE)
+        prepared.setMaxRows(SqlConfig.MAX_ROWS_SIZE)
+        setParams(prepared, params)
+        prepared.executeQuery()
       }
-      list
+      SqlResultSet.read(rs, SqlConfig.MAX_ROWS_SIZE)
     } finally {
       if (null != statement) statement.close()
     }
   }
 
-  private def preserve(meta: ResultSetMetaData, rs: ResultSet, col: Int): Object = {
-    val className = meta.getColumnClassName(col)
-    className match {
-      case "java.lang.Long" | "java.lang.Integer" | "java.lang.Short" | "java.lang.Byte"
-           | "java.lang.Boolean"
-      =>
-        rs.getObject(col)
-      case _ =>
-        val value = rs.getObject(col)
-        if (null != value) value.toString else null
+  private def setParams(statement: PreparedStatement, params: util.List[Object]): Unit = {
+    var i = 0
+    while (i < params.size()) {
+      statement.setObject(i + 1, params.get(i))
+      i += 1
     }
   }
 }
@@ -0,0 +1,198 @@
+package asura.core.sql
+
+import java.sql.Connection
+import java.util
+import java.util.concurrent.{Executors, TimeUnit}
+
+import asura.common.metrics.MetricsRegistry
+import asura.core.CoreConfig
+import asura.core.CoreConfig.SqlPoolConfig
+import asura.core.es.model.SqlRequest.SqlRequestBody
+import com.alibaba.druid.pool.DruidDataSource
+import com.typesafe.scalalogging.Logger
+
+/**
+ * Connection pools of each datasource, the key is `username:encryptedPass@host:port/database`.
+ * A borrowed connection must be closed after used, which returns it to the pool. The least
+ * recently used pool is retired when there are more than `maxPools` datasources, it is closed
+ * after the borrows in progress are over and its connections are returned.
+ */
+object MySqlDataSources {
+
+  val logger = Logger("MySqlDataSources")
+  val VALIDATION_QUERY = "SELECT 1"
+  // a retired pool is checked at this interval until its connections are returned
+  val CLOSE_CHECK_INTERVAL_MILLIS = 1000L
+  // a retired pool is closed after this time even if some connections are not returned
+  val CLOSE_GRACE_MILLIS = 60000L
+
+  // set by `init`, the object may be loaded before the config
+  private var maxPools = CoreConfig.sqlPoolConfig.maxPools
+  private val dataSources = new util.LinkedHashMap[String, SharedDataSource](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: util.Map.Entry[String, SharedDataSource]): Boolean = {
+      val evicted = size() > maxPools
+      if (evicted) eldest.getValue.retire()
+      evicted
+    }
+  }
+  private lazy val closer = Executors.newSingleThreadScheduledExecutor(runnable => {
+    val thread = new Thread(runnable, "sql-pool-closer")
+    thread.setDaemon(true)
+    thread
+  })
+
+  MetricsRegistry.register("sql.pools", () => stats())
+
+  /** apply `maxPools` of the config, the least recently used pools are retired if there are more */
+  def init(): Unit = {
+    dataSources.synchronized {
+      maxPools = CoreConfig.sqlPoolConfig.maxPools
+      val it = dataSources.values().iterator()
+      while (dataSources.size() > maxPools && it.hasNext) {
+        val shared = it.next()
+        it.remove()
+        shared.retire()
+      }
+    }
+  }
+
+  /** block until a connection is available or the `maxWait` is over */
+  @throws[Throwable]
+  def getConnection(request: SqlRequestBody): Connection = {
+    getConnection(generateCacheKey(request), MySqlConnector.newDataSource(request, CoreConfig.sqlPoolConfig))
+  }
+
+  @throws[Throwable]
+  private[sql] def getConnection(key: String, newDataSource: => DruidDataSource): Connection = {
+    // acquired in the lock, so the pool can not be retired before it is acquired
+    val shared = dataSources.synchronized {
+      var shared = dataSources.get(key)
+      if (null == shared) {
+        shared = new SharedDataSource(newDataSource)
+        dataSources.put(key, shared)
+      }
+      shared.acquire()
+      shared
+    }
+    try {
+      shared.dataSource.getConnection()
+    } catch {
+      case t: Throwable =>
+        // the pool will be created again by the next request, e.g. the server was unavailable
+        if (shared.dataSource.getActiveCount == 0) {
+          dataSources.synchronized {
+            if (dataSources.get(key) eq shared) {
+              dataSources.remove(key)
+              shared.retire()
+            }
+          }
+        }
+        throw t
+    } finally {
+      shared.release()
+    }
+  }
+
+  /** retire all the pools, called when the application stops */
+  def closeAll(): Unit = {
+    dataSources.synchronized {
+      dataSources.forEach((_, shared) => shared.retire())
+      dataSources.clear()
+    }
+  }
+
+  def stats(): java.util.Map[String, SqlPoolStats] = {
+    val map = new java.util.TreeMap[String, SqlPoolStats]()
+    dataSources.synchronized {
+      dataSources.forEach((_, shared) => map.put(shared.dataSource.getName, SqlPoolStats(shared.dataSource)))
+    }
+    map
+  }
+
+  /** a pool which is closed once it is retired and no thread is borrowing from it */
+  private[sql] class SharedDataSource(val dataSource: DruidDataSource) {
+
+    private var borrowers = 0
+    private var retired = false
+    private var closing = false
+
+    def acquire(): Unit = synchronized {
+      borrowers += 1
+    }
+
+    def release(): Unit = synchronized {
+      borrowers -= 1
+      closeIfUnused()
+    }
+
+    def retire(): Unit = synchronized {
+      retired = true
+      closeIfUnused()
+    }
+
+    private def closeIfUnused(): Unit = {
+      if (retired && borrowers == 0 && !closing) {
+        closing = true
+        closeWhenReturned(System.currentTimeMillis() + CLOSE_GRACE_MILLIS)
+      }
+    }
+
+    private def closeWhenReturned(deadline: Long): Unit = {
+      if (dataSource.getActiveCount == 0 || System.currentTimeMillis() >= deadline) {
+        logger.info(s"close pool of ${dataSource.getName}")
+        dataSource.close()
+      } else {
+        closer.schedule(new Runnable {
+          override def run(): Unit = closeWhenReturned(deadline)
+        }, CLOSE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+      }
+    }
+  }
+
+  def generateCacheKey(request: SqlRequestBody): String = {
+    val sb = new StringBuilder()
+    sb.append(request.username).append(":")
+      .append(request.encryptedPass).append("@")
+      .append(request.host).append(":")
+      .append(request.port).append("/")
+      .append(request.database)
+    sb.toString()
+  }
+
+  /**
+   * @param active      connections borrowed by steps
+   * @param idle        connections in the pool
+   * @param waiting     threads waiting for a connection now
+   * @param waitCount   times of waiting for a connection
+   * @param waitMillis  total time of waiting for a connection
+   * @param borrowCount connections borrowed
+   * @param errorCount  failures of borrowing a connection
+   */
+  case class SqlPoolStats(
+                           maxActive: Int,
+                           active: Int,
+                           idle: Int,
+                           waiting: Int,
+                           waitCount: Long,
+                           waitMillis: Long,
+                           borrowCount: Long,
+                           errorCount: Long,
+                         )
+
+  object SqlPoolStats {
+
+    def apply(dataSource: DruidDataSource): SqlPoolStats = {
+      SqlPoolStats(
+        maxActive = dataSource.getMaxActive,
+        active = dataSource.getActiveCount,
+        idle = dataSource.getPoolingCount,
+        waiting = dataSource.getWaitThreadCount,
+        waitCount = dataSource.getNotEmptyWaitCount,
+        waitMillis = dataSource.getNotEmptyWaitMillis,
+        borrowCount = dataSource.getConnectCount,
+        errorCount = dataSource.getConnectErrorCount,
+      )
+    }
+  }
+
+}
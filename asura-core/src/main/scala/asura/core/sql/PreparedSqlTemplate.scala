@@ -0,0 +1,190 @@
+package asura.core.sql
+
+import java.util
+
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import asura.core.runtime.CompiledTemplate
+import asura.core.runtime.CompiledTemplate.{LiteralSegment, TemplateSegment}
+import asura.core.sql.PreparedSqlTemplate.{InlinePart, LiteralPart, ParamPart, SqlPart}
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+
+/**
+ * A sql template whose macros are rendered as bind parameters, so the statement text does not
+ * change between renders and can be prepared once by the server. A macro wrapped by quotes,
+ * e.g. `'{{name}}'`, is bound as a string without the quotes. A macro in a part of a string
+ * literal, e.g. `'%{{name}}%'`, or in a quoted identifier can not be bound and is rendered into
+ * the text as before.
+ *
+ * @param parts null if the template can not be compiled, it will be rendered as text
+ */
+case class PreparedSqlTemplate(template: String, parts: Array[SqlPart]) {
+
+  def render(ctx: util.Map[Any, Any]): PreparedSql = {
+    if (null != parts) {
+      val sb = new java.lang.StringBuilder(template.length)
+      val params = new util.ArrayList[Object]()
+      var i = 0
+      while (i < parts.length) {
+        parts(i) match {
+          case LiteralPart(text) => sb.append(text)
+          case InlinePart(segment) =>
+            val value = segment.evaluate(ctx)
+            sb.append(if (null != value) value.toString else "null")
+          case ParamPart(segment, asString) =>
+            sb.append(PreparedSqlTemplate.PLACEHOLDER)
+            params.add(PreparedSqlTemplate.toParam(segment.evaluate(ctx), asString))
+        }
+        i += 1
+      }
+      PreparedSql(sb.toString, params)
+    } else {
+      PreparedSql(CompiledTemplate.get(template).render(ctx), util.Collections.emptyList())
+    }
+  }
+}
+
+object PreparedSqlTemplate {
+
+  val DEFAULT_CACHE_SIZE = 1000
+  val PLACEHOLDER = '?'
+
+  private val templates: Cache[String, PreparedSqlTemplate] = Caffeine.newBuilder()
+    .maximumSize(DEFAULT_CACHE_SIZE).recordStats().build()
+
+  MetricsRegistry.register("sql.templateCache", () => CacheMetrics(templates))
+
+  def get(template: String): PreparedSqlTemplate = templates.get(template, key => compile(key))
+
+  def compile(template: String): PreparedSqlTemplate = {
+    val segments = CompiledTemplate.compile(template).segments
+    if (null == segments) {
+      PreparedSqlTemplate(template, null)
+    } else {
+      val parts = new util.ArrayList[SqlPart]()
+      // quote char of the literal which the current position is in, `0` means not in a literal
+      var quote: Char = 0
+      // quote state at the start of the last literal part
+      var lastStartQuote: Char = 0
+      var i = 0
+      while (i < segments.length) {
+        segments(i) match {
+          case LiteralSegment(text) =>
+            parts.add(LiteralPart(text))
+            lastStartQuote = quote
+            quote = QuoteScanner.scan(text, quote)
+          case segment =>
+            if (0 == quote) {
+              parts.add(ParamPart(segment, false))
+            } else if (quote != '`' && isWrapped(parts, lastStartQuote, segments, i, quote)) {
+              // drop the quotes around the macro
+              val prev = parts.remove(parts.size() - 1).asInstanceOf[LiteralPart].text
+              if (prev.length > 1) parts.add(LiteralPart(prev.substring(0, prev.length - 1)))
+              parts.add(ParamPart(segment, true))
+              val next = segments(i + 1).asInstanceOf[LiteralSegment].text.substring(1)
+              parts.add(LiteralPart(next))
+              lastStartQuote = 0
+              quote = QuoteScanner.scan(next, 0)
+              i += 1
+            } else {
+              parts.add(InlinePart(segment))
+            }
+        }
+        i += 1
+      }
+      PreparedSqlTemplate(template, parts.toArray(new Array[SqlPart](0)))
+    }
+  }
+
+  /** the literal is opened just before the macro and closed just after it */
+  private def isWrapped(
+                         parts: util.ArrayList[SqlPart],
+                         lastStartQuote: Char,
+                         segments: Array[TemplateSegment],
+                         idx: Int,
+                         quote: Char,
+                       ): Boolean = {
+    val opened = !parts.isEmpty && (parts.get(parts.size() - 1) match {
+      case LiteralPart(text) =>
+        text.charAt(text.length - 1) == quote && (text.length == 1 || text.charAt(text.length - 2) != quote) &&
+          0 == QuoteScanner.scan(text.substring(0, text.length - 1), lastStartQuote)
+      case _ => false
+    })
+    val closed = idx + 1 < segments.length && (segments(idx + 1) match {
+      case LiteralSegment(text) => text.nonEmpty && text.charAt(0) == quote && (text.length == 1 || text.charAt(1) != quote)
+      case _ => false
+    })
+    opened && closed
+  }
+
+  def cacheMetrics(): CacheMetrics = CacheMetrics(templates)
+
+  private def toParam(value: Any, asString: Boolean): Object = {
+    value match {
+      case null => if (asString) "null" else null
+      case _ if asString => value.toString
+      case v: String => v
+      case v: java.lang.Number => v
+      case v: java.lang.Boolean => v
+      case v => v.toString
+    }
+  }
+
+  sealed trait SqlPart
+
+  case class LiteralPart(text: String) extends SqlPart
+
+  case class InlinePart(segment: TemplateSegment) extends SqlPart
+
+  /** @param asString the macro was wrapped by quotes */
+  case class ParamPart(segment: TemplateSegment, asString: Boolean) extends SqlPart
+
+  /** Track string literals and quoted identifiers of mysql */
+  object QuoteScanner {
+
+    /**
+     * @param quote the quote char when the text starts in a literal, `0` if not
+     * @return the quote char when the text ends in a literal, `0` if not
+     */
+    def scan(text: String, quote: Char): Char = {
+      var current = quote
+      var i = 0
+      while (i < text.length) {
+        val c = text.charAt(i)
+        if (0 == current) {
+          if (c == '\'' || c == '"' || c == '`') current = c
+        } else if (c == '\\' && current != '`') {
+          i += 1
+        } else if (c == current) {
+          // a doubled quote is an escaped quote
+          if (i + 1 < text.length && text.charAt(i + 1) == current) i += 1 else current = 0
+        }
+        i += 1
+      }
+      current
+    }
+
+    /** placeholders which are not in literals */
+    def countPlaceholders(sql: String): Int = {
+      var count = 0
+      var current: Char = 0
+      var i = 0
+      while (i < sql.length) {
+        val c = sql.charAt(i)
+        if (0 == current) {
+          if (c == PLACEHOLDER) count += 1
+          else if (c == '\'' || c == '"' || c == '`') current = c
+        } else if (c == '\\' && current != '`') {
+          i += 1
+        } else if (c == current) {
+          if (i + 1 < sql.length && sql.charAt(i + 1) == current) i += 1 else current = 0
+        }
+        i += 1
+      }
+      count
+    }
+  }
+
+}
+
+/** @param params values of the placeholders in order, empty if the sql has no placeholders */
+case class PreparedSql(sql: String, params: util.List[Object])
@@ -11,6 +11,7 @@ object RenderedSqlModel {
                                  database: String,
                                  var table: String,
                                  sql: String,
+                                 params: java.util.List[Object] = null,
                                ) extends DataItemRenderedRequest
 
   case class RenderedSqlResponse(
@@ -1,14 +1,15 @@
 package asura.core.sql
 
-import java.util.concurrent.Executors
+import asura.core.concurrent.ExecutionContextManager
 
-import scala.concurrent.ExecutionContext
+import scala.concurrent.ExecutionContextExecutor
 
 object SqlConfig {
 
   val MAX_ROWS_SIZE = 100
   val DEFAULT_MYSQL_CONNECTOR_CACHE_SIZE = 10
 
-  val SQL_EC = ExecutionContext.fromExecutorService(Executors.newFixedThreadPool(4))
+  // jdbc calls, the pool is selected by the `sql` subsystem
+  val SQL_EC: ExecutionContextExecutor = ExecutionContextManager.forSubsystem(ExecutionContextManager.SUBSYSTEM_SQL)
   val SQL_CONN_CHECK_TIMEOUT = 10
 }
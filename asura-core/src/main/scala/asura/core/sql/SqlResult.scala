@@ -3,7 +3,7 @@ package asura.core.sql
 import java.util
 
 import asura.common.util.StringUtils
-import asura.core.assertion.engine.{AssertionContext, Statistic}
+import asura.core.assertion.engine.{AssertionPlan, Statistic}
 import asura.core.concurrent.ExecutionContextManager.sysGlobal
 import asura.core.es.model.JobReportData.JobReportStepItemMetrics
 import asura.core.runtime.{AbstractResult, RuntimeContext}
@@ -50,11 +50,12 @@ object SqlResult {
                 response: RenderedSqlResponse,
               ): Future[SqlResult] = {
     val statistic = Statistic()
-    AssertionContext.eval(assert, context.rawContext, statistic).map(assertResult => {
+    statistic.failFast = context.assertFailFast
+    AssertionPlan.get(docId, assert).eval(context.rawContext, statistic).map(assertResult => {
       SqlResult(
         docId = docId,
         assert = assert,
-        context = context.rawContext,
+        context = context.snapshot(),
         request = request,
         response = response,
         statis = statistic,
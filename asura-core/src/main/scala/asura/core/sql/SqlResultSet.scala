@@ -0,0 +1,196 @@
+package asura.core.sql
+
+import java.sql.{ResultSet, ResultSetMetaData}
+import java.util
+
+import asura.core.sql.SqlResultSet.Column
+
+/**
+ * Rows of a query stored by columns. The metadata is read once, longs, ints and booleans are kept
+ * in primitive arrays, shorts and bytes are kept as they are read, and other values, including
+ * doubles, are kept as strings, which are the same values as the rows of maps used before. It is a
+ * list of maps, so assertions, json paths, scripts and reports use it as before, but a row is only
+ * a view of the columns which is created when it is accessed. `null` values are absent in the rows.
+ */
+class SqlResultSet(val columns: Array[String], data: Array[Column], rowCount: Int)
+  extends util.AbstractList[util.Map[String, Object]] with util.RandomAccess {
+
+  // the last column wins when names are duplicated
+  private val indexes: util.HashMap[String, Integer] = {
+    val map = new util.HashMap[String, Integer]()
+    for (i <- columns.indices) map.put(columns(i), i)
+    map
+  }
+  private val distinctColumns: Array[Int] = columns.indices.filter(i => indexes.get(columns(i)) == i).toArray
+
+  override def get(row: Int): util.Map[String, Object] = {
+    if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException(s"row: ${row}, size: ${rowCount}")
+    new Row(row)
+  }
+
+  override def size(): Int = rowCount
+
+  def getValue(row: Int, column: String): Object = {
+    val idx = indexes.get(column)
+    if (null == idx) null else data(idx).get(row)
+  }
+
+  private class Row(row: Int) extends util.AbstractMap[String, Object] {
+
+    override def get(key: Any): Object = key match {
+      case column: String => getValue(row, column)
+      case _ => null
+    }
+
+    override def containsKey(key: Any): Boolean = null != get(key)
+
+    override def entrySet(): util.Set[util.Map.Entry[String, Object]] = new util.AbstractSet[util.Map.Entry[String, Object]] {
+
+      override def size(): Int = distinctColumns.count(i => !data(i).isNull(row))
+
+      override def iterator(): util.Iterator[util.Map.Entry[String, Object]] = new util.Iterator[util.Map.Entry[String, Object]] {
+
+        private var cursor = advance(0)
+
+        override def hasNext: Boolean = cursor < distinctColumns.length
+
+        override def next(): util.Map.Entry[String, Object] = {
+          if (!hasNext) throw new NoSuchElementException()
+          val i = distinctColumns(cursor)
+          cursor = advance(cursor + 1)
+          new util.AbstractMap.SimpleImmutableEntry[String, Object](columns(i), data(i).get(row))
+        }
+
+        private def advance(from: Int): Int = {
+          var idx = from
+          while (idx < distinctColumns.length && data(distinctColumns(idx)).isNull(row)) idx += 1
+          idx
+        }
+      }
+    }
+  }
+
+}
+
+object SqlResultSet {
+
+  private val INITIAL_CAPACITY = 16
+
+  /** read at most `maxRows` rows of the result set */
+  def read(rs: ResultSet, maxRows: Int): SqlResultSet = {
+    val metaData = rs.getMetaData
+    val count = metaData.getColumnCount
+    val columns = new Array[String](count)
+    val data = new Array[Column](count)
+    for (i <- 0 until count) {
+      columns(i) = metaData.getColumnName(i + 1)
+      data(i) = newColumn(metaData, i + 1, Math.min(maxRows, INITIAL_CAPACITY))
+    }
+    var rows = 0
+    while (rows < maxRows && rs.next()) {
+      for (i <- 0 until count) data(i).read(rs, i + 1, rows)
+      rows += 1
+    }
+    new SqlResultSet(columns, data, rows)
+  }
+
+  private def newColumn(meta: ResultSetMetaData, col: Int, capacity: Int): Column = {
+    meta.getColumnClassName(col) match {
+      case "java.lang.Long" => new LongColumn(capacity)
+      case "java.lang.Integer" => new IntColumn(capacity)
+      case "java.lang.Short" | "java.lang.Byte" => new ObjectColumn(capacity)
+      case "java.lang.Boolean" => new BooleanColumn(capacity)
+      case _ => new StringColumn(capacity)
+    }
+  }
+
+  abstract class Column(capacity: Int) {
+
+    protected val nulls = new util.BitSet(capacity)
+
+    def isNull(row: Int): Boolean = nulls.get(row)
+
+    def get(row: Int): Object = if (isNull(row)) null else getNotNull(row)
+
+    def read(rs: ResultSet, col: Int, row: Int): Unit = {
+      ensureCapacity(row + 1)
+      readNotNull(rs, col, row)
+      if (rs.wasNull()) nulls.set(row)
+    }
+
+    protected def getNotNull(row: Int): Object
+
+    protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit
+
+    protected def ensureCapacity(size: Int): Unit
+  }
+
+  class LongColumn(capacity: Int) extends Column(capacity) {
+
+    private var values = new Array[Long](capacity)
+
+    override protected def getNotNull(row: Int): Object = java.lang.Long.valueOf(values(row))
+
+    override protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit = values(row) = rs.getLong(col)
+
+    override protected def ensureCapacity(size: Int): Unit = {
+      if (size > values.length) values = util.Arrays.copyOf(values, Math.max(size, values.length * 2))
+    }
+  }
+
+  class IntColumn(capacity: Int) extends Column(capacity) {
+
+    private var values = new Array[Int](capacity)
+
+    override protected def getNotNull(row: Int): Object = Integer.valueOf(values(row))
+
+    override protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit = values(row) = rs.getInt(col)
+
+    override protected def ensureCapacity(size: Int): Unit = {
+      if (size > values.length) values = util.Arrays.copyOf(values, Math.max(size, values.length * 2))
+    }
+  }
+
+  class BooleanColumn(capacity: Int) extends Column(capacity) {
+
+    private val values = new util.BitSet(capacity)
+
+    override protected def getNotNull(row: Int): Object = java.lang.Boolean.valueOf(values.get(row))
+
+    override protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit = values.set(row, rs.getBoolean(col))
+
+    override protected def ensureCapacity(size: Int): Unit = {}
+  }
+
+  /** values are kept as they are read, only for the rare types */
+  class ObjectColumn(capacity: Int) extends Column(capacity) {
+
+    private var values = new Array[Object](capacity)
+
+    override protected def getNotNull(row: Int): Object = values(row)
+
+    override protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit = values(row) = rs.getObject(col)
+
+    override protected def ensureCapacity(size: Int): Unit = {
+      if (size > values.length) values = util.Arrays.copyOf(values, Math.max(size, values.length * 2))
+    }
+  }
+
+  /** values of other types are kept as strings */
+  class StringColumn(capacity: Int) extends Column(capacity) {
+
+    private var values = new Array[String](capacity)
+
+    override protected def getNotNull(row: Int): Object = values(row)
+
+    override protected def readNotNull(rs: ResultSet, col: Int, row: Int): Unit = {
+      val value = rs.getObject(col)
+      if (null != value) values(row) = value.toString
+    }
+
+    override protected def ensureCapacity(size: Int): Unit = {
+      if (size > values.length) values = util.Arrays.copyOf(values, Math.max(size, values.length * 2))
+    }
+  }
+
+}
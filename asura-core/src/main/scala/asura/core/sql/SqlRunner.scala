@@ -8,6 +8,7 @@ import asura.core.es.model.SqlRequest
 import asura.core.es.model.SqlRequest.SqlRequestBody
 import asura.core.runtime.{ContextOptions, RuntimeContext, RuntimeMetrics}
 import asura.core.sql.RenderedSqlModel.{RenderedSqlRequest, RenderedSqlResponse}
+import asura.core.sql.actor.SqlRequestInvokerActor.SqlInvocation
 import asura.core.{CoreConfig, RunnerActors}
 import com.typesafe.scalalogging.Logger
 
@@ -53,6 +54,7 @@ object SqlRunner {
         .map(result => {
           metrics.evalAssertionEnd()
           metrics.theEnd()
+          context.recordLatency(docId, metrics)
           result.metrics = metrics.toReportStepItemMetrics()
           result
         })
@@ -60,24 +62,29 @@ object SqlRunner {
   }
 
   def renderRequest(request: SqlRequestBody, context: RuntimeContext)
-                   (implicit metrics: RuntimeMetrics): Future[(SqlRequestBody, RenderedSqlRequest)] = {
+                   (implicit metrics: RuntimeMetrics): Future[(SqlInvocation, RenderedSqlRequest)] = {
     val host = request.host
     val port = request.port
     val database = request.database
-    val sql = context.renderTemplateAsString(request.sql)
+    val prepared = if (request.prepared) {
+      PreparedSqlTemplate.get(request.sql).render(context.rawContext)
+    } else {
+      PreparedSql(context.renderTemplateAsString(request.sql), java.util.Collections.emptyList())
+    }
     metrics.renderRequestEnd()
     metrics.renderAuthBegin()
     metrics.renderAuthEnd()
-    val renderedRequest = request.copyFrom(host, port, database, sql)
+    val renderedRequest = request.copyFrom(host, port, database, prepared.sql)
     val reportModel = RenderedSqlRequest(
       host = request.host,
       port = request.port,
       username = request.username,
       database = request.database,
       table = request.table,
-      sql = sql
+      sql = prepared.sql,
+      params = if (prepared.params.isEmpty) null else prepared.params,
     )
-    Future.successful((renderedRequest, reportModel))
+    Future.successful((SqlInvocation(renderedRequest, prepared.params), reportModel))
   }
 
 }
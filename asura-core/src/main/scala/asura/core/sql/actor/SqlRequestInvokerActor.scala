@@ -4,56 +4,61 @@ import java.sql.Connection
 import java.util
 
 import akka.actor.Props
-import akka.pattern.{ask, pipe}
-import akka.util.Timeout
+import akka.pattern.pipe
 import asura.common.actor.BaseActor
+import asura.core.ErrorMessages
 import asura.core.es.model.SqlRequest.SqlRequestBody
-import asura.core.sql.actor.MySqlConnectionCacheActor.GetConnectionMessage
-import asura.core.sql.{MySqlConnector, SqlConfig, SqlParserUtils, SqlToExecute}
-import asura.core.{CoreConfig, ErrorMessages}
+import asura.core.sql._
+import asura.core.sql.actor.SqlRequestInvokerActor.SqlInvocation
 
 import scala.concurrent.{ExecutionContext, Future}
 
 class SqlRequestInvokerActor extends BaseActor {
 
   implicit val ec: ExecutionContext = context.dispatcher
-  implicit val timeout: Timeout = CoreConfig.DEFAULT_ACTOR_ASK_TIMEOUT
-
-  val connectionCacheActor = context.actorOf(MySqlConnectionCacheActor.props())
 
   override def receive: Receive = {
+    case SqlInvocation(requestBody, params) =>
+      getResponse(requestBody, params) pipeTo sender()
     case requestBody: SqlRequestBody =>
-      getResponse(requestBody) pipeTo sender()
+      getResponse(requestBody, util.Collections.emptyList()) pipeTo sender()
     case _ =>
       Future.failed(new RuntimeException("Unknown message type")) pipeTo sender()
   }
 
-  def getResponse(requestBody: SqlRequestBody): Future[Object] = {
-    implicit val sqlEc = SqlConfig.SQL_EC
-    val futConn = (connectionCacheActor ? GetConnectionMessage(requestBody)).asInstanceOf[Future[Connection]]
-    futConn.flatMap(conn => {
-      Future {
-        val statements = SqlParserUtils.getStatements(requestBody.sql)
-        if (statements.size > 1) {
-          val results = new util.ArrayList[Object]()
-          statements.foreach(statement => {
-            results.add(executeSql(conn, statement))
-          })
-          results
-        } else if (statements.size == 1) {
-          executeSql(conn, statements(0))
-        } else {
-          ErrorMessages.error_InvalidRequestParameters.toFutureFail
+  /** @param params values of the placeholders of all the statements in order */
+  def getResponse(requestBody: SqlRequestBody, params: util.List[Object]): Future[Object] = {
+    Future(SqlParserUtils.getStatements(requestBody.sql)).flatMap(statements => {
+      if (statements.isEmpty) {
+        ErrorMessages.error_InvalidRequestParameters.toFutureFail
+      } else Future {
+        // steps running at the same time borrow different connections of the pool
+        val conn = MySqlDataSources.getConnection(requestBody)
+        try {
+          if (statements.size > 1) {
+            val results = new util.ArrayList[Object]()
+            var offset = 0
+            statements.foreach(statement => {
+              val count = if (params.isEmpty) 0 else PreparedSqlTemplate.QuoteScanner.countPlaceholders(statement.sql)
+              results.add(executeSql(conn, statement, params.subList(offset, Math.min(offset + count, params.size()))))
+              offset += count
+            })
+            results
+          } else {
+            executeSql(conn, statements(0), params)
+          }
+        } finally {
+          conn.close()
         }
-      }
+      }(SqlConfig.SQL_EC)
     })
   }
 
-  private def executeSql(conn: Connection, sql: SqlToExecute): Object = {
+  private def executeSql(conn: Connection, sql: SqlToExecute, params: util.List[Object]): Object = {
     if (sql.isSelect) {
-      MySqlConnector.executeQuery(conn, sql.sql)
+      MySqlConnector.executeQuery(conn, sql.sql, params)
     } else {
-      MySqlConnector.executeUpdate(conn, sql.sql)
+      MySqlConnector.executeUpdate(conn, sql.sql, params)
     }
   }
 }
@@ -61,4 +66,7 @@ class SqlRequestInvokerActor extends BaseActor {
 object SqlRequestInvokerActor {
 
   def props() = Props(new SqlRequestInvokerActor())
+
+  /** @param params values of the placeholders in the sql, the statements are prepared if it is not empty */
+  case class SqlInvocation(request: SqlRequestBody, params: util.List[Object])
 }
@@ -1,7 +1,11 @@
 package asura.core.util
 
+import java.io.InputStream
+import java.nio.charset.StandardCharsets
 import java.util
 
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
 import com.jayway.jsonpath
 import com.jayway.jsonpath.spi.json.JacksonJsonProvider
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider
@@ -18,18 +22,43 @@ object JsonPathUtils {
     }
   })
 
+  val DEFAULT_CACHE_SIZE = 2000
+
+  // compiled paths are immutable and can be shared between threads
+  private val compiledPaths: Cache[String, JsonPath] = Caffeine.newBuilder()
+    .maximumSize(DEFAULT_CACHE_SIZE).recordStats().build()
+
+  MetricsRegistry.register("jsonpath.cache", () => cacheMetrics())
+
   /** use java type system */
   def parse(json: String): AnyRef = {
     Configuration.defaultConfiguration().jsonProvider().parse(json)
   }
 
+  /** use java type system, parse utf-8 bytes without decoding them to a string first */
+  def parse(stream: InputStream): AnyRef = {
+    Configuration.defaultConfiguration().jsonProvider().parse(stream, StandardCharsets.UTF_8.name())
+  }
+
   /** use java type system */
   def read[T](json: String, path: String): T = {
-    JsonPath.read[T](json, path)
+    compile(path).read[T](json)
   }
 
   /** use java type system */
   def read[T](doc: Object, path: String): T = {
-    JsonPath.read[T](doc, path)
+    compile(path).read[T](doc)
   }
+
+  /** get the compiled path from the cache, this will throw exception when the path is invalid */
+  def compile(path: String): JsonPath = {
+    compiledPaths.get(path, key => JsonPath.compile(key))
+  }
+
+  /** use java type system */
+  def read[T](doc: Object, path: JsonPath): T = {
+    path.read[T](doc)
+  }
+
+  def cacheMetrics(): CacheMetrics = CacheMetrics(compiledPaths)
 }
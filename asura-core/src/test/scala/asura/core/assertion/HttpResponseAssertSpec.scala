@@ -0,0 +1,28 @@
+package asura.core.assertion
+
+import akka.http.scaladsl.model.{ContentTypes, HttpEntity, HttpResponse}
+import akka.util.ByteString
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+import asura.core.assertion.engine.HttpResponseAssert
+import asura.core.http.HttpResponseBody
+import asura.core.runtime.RuntimeContext
+
+class HttpResponseAssertSpec extends ScalaTestBaseSpec {
+
+  def entityOf(text: String): Any = {
+    val response = HttpResponse(entity = HttpEntity(ContentTypes.`text/plain(UTF-8)`, text))
+    val body = HttpResponseBody(ByteString(text), text.length, false)
+    val context = RuntimeContext()
+    HttpResponseAssert.generateHttpReport(null, null, response, body, null, context).await
+    context.rawContext.get(RuntimeContext.KEY_ENTITY)
+  }
+
+  test("parse every body which is json") {
+    assertResult(123)(entityOf("123"))
+    assertResult(true)(entityOf(" true"))
+    assertResult("ok")(entityOf("\"ok\""))
+    assertResult(1)(entityOf("""{"a":1}""").asInstanceOf[java.util.Map[String, Any]].get("a"))
+    assertResult("<html>")(entityOf("<html>"))
+  }
+}
@@ -0,0 +1,72 @@
+package asura.core.auth
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.headers.RawHeader
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+import asura.core.es.model.Authorization
+
+import scala.collection.mutable
+import scala.concurrent.Future
+import scala.concurrent.duration._
+
+class AuthTokenCacheSpec extends ScalaTestBaseSpec {
+
+  class CountingAuth(expiresIn: Option[FiniteDuration]) extends TokenAuthorization {
+    val count = new AtomicInteger()
+    override val `type`: String = "counting"
+    override val description: String = "counting"
+
+    override def fetchToken(auth: Authorization): Future[AuthToken] = {
+      Future.successful(AuthToken(s"token-${count.incrementAndGet()}", expiresIn))
+    }
+
+    override def applyToken(request: HttpRequest, auth: Authorization, token: AuthToken): HttpRequest = {
+      request.withHeaders(RawHeader("Authorization", token.value))
+    }
+
+    override def validate(auth: Authorization): (Boolean, String) = (true, null)
+  }
+
+  test("reuse the token of the same env and auth") {
+    val operator = new CountingAuth(None)
+    val auth = Authorization("counting", mutable.Map("user" -> "reuse"))
+    assertResult("token-1")(AuthTokenCache.get("env", auth, operator).await.value)
+    assertResult("token-1")(AuthTokenCache.get("env", auth, operator).await.value)
+    assertResult("token-2")(AuthTokenCache.get("other", auth, operator).await.value)
+    AuthTokenCache.invalidateEnv("env")
+    assertResult("token-3")(AuthTokenCache.get("env", auth, operator).await.value)
+  }
+
+  test("refresh ahead in background") {
+    // expires within the default refresh-ahead window, so each hit refreshes it
+    val operator = new CountingAuth(Some(30.seconds))
+    val auth = Authorization("counting", mutable.Map("user" -> "refresh"))
+    assertResult("token-1")(AuthTokenCache.get("env", auth, operator).await.value)
+    assertResult("token-1")(AuthTokenCache.get("env", auth, operator).await.value)
+    val deadline = 5.seconds.fromNow
+    var value = "token-1"
+    while ("token-1" == value && deadline.hasTimeLeft()) {
+      Thread.sleep(10)
+      value = AuthTokenCache.get("env", auth, operator).await.value
+    }
+    assertResult("token-2")(value)
+  }
+
+  test("fetch out of the map lock") {
+    val auth = Authorization("counting", mutable.Map("user" -> "nested"))
+    var nested: Future[AuthToken] = null
+    val operator = new CountingAuth(None) {
+      override def fetchToken(auth: Authorization): Future[AuthToken] = {
+        // the same key is read during the fetch, which shares the pending one
+        nested = AuthTokenCache.get("env", auth, this)
+        super.fetchToken(auth)
+      }
+    }
+    assertResult("token-1")(AuthTokenCache.get("env", auth, operator).await.value)
+    assertResult("token-1")(nested.await.value)
+    assertResult(1)(operator.count.get())
+  }
+}
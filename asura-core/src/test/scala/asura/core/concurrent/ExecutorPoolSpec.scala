@@ -0,0 +1,36 @@
+package asura.core.concurrent
+
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+import asura.common.ScalaTestBaseSpec
+import asura.core.CoreConfig.ExecutorPoolConfig
+
+class ExecutorPoolSpec extends ScalaTestBaseSpec {
+
+  test("run in the caller thread when the queue is full") {
+    val pool = new ExecutorPool("test", ExecutorPoolConfig(threads = 1, queueSize = 1))
+    val latch = new CountDownLatch(1)
+    val done = new CountDownLatch(2)
+    pool.execute(() => latch.await())
+    pool.execute(() => done.countDown())
+    val caller = Thread.currentThread()
+    var runner: Thread = null
+    pool.execute(() => {
+      runner = Thread.currentThread()
+      done.countDown()
+    })
+    assertResult(caller)(runner)
+    val stats = pool.stats()
+    assertResult(1)(stats.rejected)
+    assertResult(1)(stats.queued)
+    assertResult(3)(stats.submitted)
+    latch.countDown()
+    assert(done.await(5, TimeUnit.SECONDS))
+    pool.shutdown()
+  }
+
+  test("subsystem pools") {
+    assertResult(ExecutionContextManager.POOL_CPU)(ExecutionContextManager.poolOf(ExecutionContextManager.SUBSYSTEM_GLOBAL).name)
+    assertResult(ExecutionContextManager.POOL_BLOCKING)(ExecutionContextManager.poolOf("unknown").name)
+  }
+}
@@ -0,0 +1,61 @@
+package asura.core.es
+
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+import asura.core.CoreConfig
+
+import scala.concurrent.duration._
+import scala.concurrent.{Future, Promise}
+
+class DocumentCacheSpec extends ScalaTestBaseSpec {
+
+  test("load the missing ones") {
+    val cache = new DocumentCache[String]("test-missing")
+    var loaded = Seq.empty[String]
+    val load = (ids: Seq[String]) => {
+      loaded = ids
+      Future.successful(ids.map(id => (id, s"doc-${id}")).toMap)
+    }
+    assertResult(Map("1" -> "doc-1"))(cache.getAll(Seq("1"))(load).await)
+    assertResult(Map("1" -> "doc-1", "2" -> "doc-2"))(cache.getAll(Seq("1", "2"))(load).await)
+    assertResult(Seq("2"))(loaded)
+    cache.invalidate(Seq("1"))
+    cache.getAll(Seq("1", "2"))(load).await
+    assertResult(Seq("1"))(loaded)
+    assertResult(1)(cache.cacheMetrics().size)
+  }
+
+  test("a load overlapping an invalidation is not cached") {
+    val cache = new DocumentCache[String]("test-overlap")
+    val promise = Promise[Map[String, String]]()
+    val stale = cache.getAll(Seq("1"))(_ => promise.future)
+    cache.invalidate(Seq("1"))
+    promise.success(Map("1" -> "old"))
+    assertResult(Map("1" -> "old"))(stale.await)
+    val fresh = cache.getAll(Seq("1"))(_ => Future.successful(Map("1" -> "new")))
+    assertResult(Map("1" -> "new"))(fresh.await)
+  }
+
+  test("invalidate by messages of other nodes") {
+    val cache = new DocumentCache[String]("test-message")
+    cache.getAll(Seq("1"))(_ => Future.successful(Map("1" -> "old"))).await
+    DocumentCache.onMessage("""{"cache":"test-message","ids":["1"]}""")
+    val reloaded = cache.getAll(Seq("1"))(_ => Future.successful(Map("1" -> "new")))
+    assertResult(Map("1" -> "new"))(reloaded.await)
+  }
+
+  test("apply the config by init") {
+    val cache = new DocumentCache[String]("test-init")
+    val config = CoreConfig.documentCacheConfig
+    try {
+      CoreConfig.documentCacheConfig = config.copy(ttl = 1.millis)
+      DocumentCache.init()
+      cache.getAll(Seq("1"))(_ => Future.successful(Map("1" -> "old"))).await
+      Thread.sleep(20)
+      assertResult(Map("1" -> "new"))(cache.getAll(Seq("1"))(_ => Future.successful(Map("1" -> "new"))).await)
+    } finally {
+      CoreConfig.documentCacheConfig = config
+      DocumentCache.init()
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package asura.core.http
+
+import akka.http.scaladsl.model.{ContentTypes, HttpEntity}
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+
+class HttpResponseBodySpec extends ScalaTestBaseSpec {
+
+  test("truncate strict entity") {
+    val entity = HttpEntity(ContentTypes.`application/json`, """{"a":"a"}""")
+    // the materializer is not used by strict entities
+    val body = HttpResponseBody.read(entity, 4)(null).await
+    assertResult(true)(body.truncated)
+    assertResult(9)(body.size)
+    assertResult("""{"a"""")(body.asString(ContentTypes.`application/json`.mediaType))
+  }
+}
@@ -0,0 +1,40 @@
+package asura.core.load
+
+import java.util.concurrent.TimeUnit
+
+import asura.common.ScalaTestBaseSpec
+import asura.core.CoreConfig.LoadConfig
+
+import scala.concurrent.duration._
+
+class StepLoadStatsSpec extends ScalaTestBaseSpec {
+
+  test("percentiles of step latencies") {
+    val stats = StepLoadStats(0, "id", "case", "summary")
+    for (i <- 1 to 100) {
+      stats.record(TimeUnit.MILLISECONDS.toNanos(i), i % 10 != 0, false)
+    }
+    stats.record(TimeUnit.MILLISECONDS.toNanos(1), false, true)
+    val report = stats.toReport(1000)
+    assertResult(101)(report.count)
+    assertResult(90)(report.ok)
+    assertResult(10)(report.fail)
+    assertResult(1)(report.error)
+    assertResult(101.0)(report.rps)
+    assert(Math.abs(report.p50 - 50) < 0.1)
+    assert(Math.abs(report.p99 - 99) < 0.1)
+    assert(Math.abs(report.max - 100) < 0.1)
+  }
+
+  test("invalid options") {
+    assertResult(true)(LoadRunOptions(users = 10, iterations = 5).isValid())
+    assertResult(false)(LoadRunOptions(users = 0).isValid())
+    assertResult(false)(LoadRunOptions(iterations = 0).isValid())
+    val config = LoadConfig(maxUsers = 10, maxRatePerSecond = 100, maxIterations = 1000, maxDuration = 1.minute)
+    assertResult(true)(LoadRunOptions(users = 10, ratePerSecond = 100, iterations = 1000, durationSeconds = 60).isValid(config))
+    assertResult(false)(LoadRunOptions(users = 11).isValid(config))
+    assertResult(false)(LoadRunOptions(ratePerSecond = 101).isValid(config))
+    assertResult(false)(LoadRunOptions(iterations = 1001).isValid(config))
+    assertResult(false)(LoadRunOptions(durationSeconds = 61).isValid(config))
+  }
+}
@@ -0,0 +1,30 @@
+package asura.core.runtime
+
+import asura.common.ScalaTestBaseSpec
+
+class LatencyRecorderSpec extends ScalaTestBaseSpec {
+
+  test("merge steps across loops") {
+    val recorder = LatencyRecorder()
+    for (_ <- 1 to 3) {
+      val metrics = RuntimeMetrics()
+      metrics.renderRequestStart().renderRequestEnd()
+      metrics.performRequestStart().evalAssertionBegin().evalAssertionEnd().theEnd()
+      recorder.record("a", metrics)
+    }
+    recorder.record("b", RuntimeMetrics().theEnd())
+    val report = recorder.toReport()
+    assertResult(4)(report.total.get(LatencyRecorder.PHASE_TOTAL).count)
+    assertResult(3)(report.steps.get("a").get(LatencyRecorder.PHASE_REQUEST).count)
+    assertResult(1)(report.steps.get("b").get(LatencyRecorder.PHASE_TOTAL).count)
+  }
+
+  test("encode and decode histogram") {
+    val histogram = LatencyRecorder.newHistogram()
+    histogram.recordValue(1000)
+    histogram.recordValue(2000)
+    val decoded = LatencyRecorder.decode(LatencyRecorder.encode(histogram))
+    assertResult(2)(decoded.getTotalCount)
+    assertResult(histogram.getMaxValue)(decoded.getMaxValue)
+  }
+}
@@ -4,6 +4,7 @@ import java.util
 
 import asura.common.ScalaTestBaseSpec
 import asura.common.util.JsonUtils
+import asura.core.es.model.VariablesExportItem
 
 class RuntimeContextSpec extends ScalaTestBaseSpec {
 
@@ -57,4 +58,63 @@ class RuntimeContextSpec extends ScalaTestBaseSpec {
     assertResult(map.get("b").get)(5)
     assertResult(map.get("random").get.asInstanceOf[String].length)(7)
   }
+
+  test("render compiled template") {
+    val tpl = "a={{$.a}}, b={{$.b}}, c={{1 + 2}}"
+    assertResult("a=a, b=5, c=3")(RuntimeContext.renderTemplate(tpl, context))
+    assertResult("a=a, b=5, c=3")(RuntimeContext.renderTemplate(tpl, context))
+    assert(null != CompiledTemplate.get(tpl).segments)
+  }
+
+  test("render nested template") {
+    val tpl = "a={{ {{$.a}} }}"
+    assert(null == CompiledTemplate.compile(tpl).segments)
+  }
+
+  test("fork scenario context") {
+    val parent = RuntimeContext()
+    parent.putValueToScope("j", "j", RuntimeContext.KEY__J)
+    parent.putValueToScope("s", "s", RuntimeContext.KEY__S)
+    val forked = parent.forkScenario()
+    forked.putValueToScope("j2", "j2", RuntimeContext.KEY__J)
+    forked.putValueToScope("s2", "s2", RuntimeContext.KEY__S)
+    val job = parent.rawContext.get(RuntimeContext.KEY__J).asInstanceOf[util.Map[Any, Any]]
+    val scenario = parent.rawContext.get(RuntimeContext.KEY__S).asInstanceOf[util.Map[Any, Any]]
+    assertResult("j2")(job.get("j2"))
+    assertResult(null)(scenario.get("s2"))
+    assertResult("j")(forked.renderSingleMacroAsString("$._j.j"))
+  }
+
+  test("snapshot") {
+    val context = RuntimeContext()
+    context.putValueToScope("s", "s", RuntimeContext.KEY__S)
+    context.putValueToScope("null", null, RuntimeContext.KEY__S)
+    context.setCurrentStatus(200)
+    val snapshot = context.snapshot()
+    context.putValueToScope("s", "s2", RuntimeContext.KEY__S)
+    context.setCurrentStatus(500)
+    context.eraseScenarioData()
+    val scenario = snapshot.get(RuntimeContext.KEY__S).asInstanceOf[util.Map[Any, Any]]
+    assertResult("s")(scenario.get("s"))
+    assert(scenario.containsKey("null"))
+    assertResult(200)(snapshot.get(RuntimeContext.KEY_STATUS))
+    assertThrows[UnsupportedOperationException](snapshot.put("a", "a"))
+  }
+
+  test("evaluate exports in order") {
+    val context = RuntimeContext()
+    context.setCurrentEntity(util.Collections.singletonMap("a", "12"))
+    val exports = Seq(
+      VariablesExportItem("$.entity.a", "a", RuntimeContext.KEY__S, null, function = "toInteger"),
+      VariablesExportItem("$._s.a", "b", RuntimeContext.KEY__S, null),
+      VariablesExportItem("$.entity.none", "c", RuntimeContext.KEY__S, null),
+    )
+    val future = context.evaluateExportsVariables(exports)
+    // the builtin transforms are evaluated inline
+    assert(future.isCompleted)
+    val scenario = context.rawContext.get(RuntimeContext.KEY__S).asInstanceOf[util.Map[Any, Any]]
+    assertResult(12)(scenario.get("a"))
+    assertResult(12)(scenario.get("b"))
+    assert(scenario.get("c").toString.contains("none"))
+  }
 }
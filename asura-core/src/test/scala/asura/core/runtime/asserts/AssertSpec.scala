@@ -2,7 +2,7 @@ package asura.core.runtime.asserts
 
 import asura.common.ScalaTestBaseSpec
 import asura.common.util.FutureUtils.RichFuture
-import asura.core.assertion.engine.{AssertionContext, Statistic}
+import asura.core.assertion.engine.{AssertionContext, AssertionPlan, Statistic}
 import asura.core.util.{JacksonSupport, JsonPathUtils}
 
 class AssertSpec extends ScalaTestBaseSpec {
@@ -37,4 +37,39 @@ class AssertSpec extends ScalaTestBaseSpec {
     AssertionContext.eval(assert, ctx, statis).await
     assertResult(true)(statis.isSuccessful)
   }
+
+  test("sync-and-fail-fast") {
+    val ctx = JsonPathUtils.parse("""{ "code" : 1, "msg" : "ok" }""")
+    val assert = JacksonSupport.parse(
+      """{ "$.code" : { "$eq" : 2 }, "$.msg" : { "$regex" : "^o" }, "$type" : "map" }""",
+      classOf[Map[String, Any]]
+    )
+    assertResult(true)(AssertionPlan.compile(assert).sync)
+    val future = AssertionContext.eval(assert, ctx, Statistic())
+    assertResult(true)(future.isCompleted)
+    val statis = Statistic()
+    statis.failFast = true
+    val result = AssertionContext.eval(assert, ctx, statis).await
+    assertResult(false)(statis.isSuccessful)
+    assertResult(1)(statis.total)
+    assertResult(1)(result.size())
+    assertResult(false)(AssertionPlan.compile(Map("$and" -> Seq(Map("$script" -> "true")))).sync)
+  }
+
+  test("plan") {
+    val ctx = JsonPathUtils.parse("""{ "msg" : "hello" }""")
+    val assert = JacksonSupport.parse("""{ "$.msg" : { "$regex" : "^h.*o$" } }""", classOf[Map[String, Any]])
+    val plan = AssertionPlan.get("plan-doc", assert)
+    assertResult(true)(plan eq AssertionPlan.get("plan-doc", assert))
+    AssertionPlan.invalidate(Seq("plan-doc"))
+    assertResult(false)(plan eq AssertionPlan.get("plan-doc", assert))
+    val statis = Statistic()
+    AssertionPlan.get("plan-doc", assert).eval(ctx, statis).await
+    assertResult(true)(statis.isSuccessful)
+    val updated = JacksonSupport.parse("""{ "$.msg" : { "$regex" : "^x" } }""", classOf[Map[String, Any]])
+    assertResult(false)(plan eq AssertionPlan.get("plan-doc", updated))
+    val updatedStatis = Statistic()
+    AssertionPlan.get("plan-doc", updated).evalSync(ctx, updatedStatis)
+    assertResult(false)(updatedStatis.isSuccessful)
+  }
 }
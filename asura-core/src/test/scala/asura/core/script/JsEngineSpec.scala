@@ -46,4 +46,44 @@ class JsEngineSpec extends ScalaTestBaseSpec {
     logger.info(engine.eval("random(5)").toString)
   }
 
+  test("pooled engine does not leak bindings") {
+    val bindings = new java.util.HashMap[String, Any]()
+    bindings.put("a", 1)
+    assertResult(2)(JsEngine.eval("a + 1", bindings))
+    assertResult("undefined")(JsEngine.eval("typeof a"))
+    assertResult("undefined")(JsEngine.eval("var b = 1; typeof c"))
+    assertResult("undefined")(JsEngine.eval("typeof b"))
+    assertResult(true)(JsEngine.poolStats().hits > 0)
+  }
+
+  test("pooled engine does not leak changed globals") {
+    assertResult(1)(JsEngine.eval("JSON = 1; print = 2; Array.prototype.x = 3; Object.prototype.y = 4; JSON"))
+    assertResult("object")(JsEngine.eval("typeof JSON"))
+    assertResult("function")(JsEngine.eval("typeof print"))
+    assertResult("undefined")(JsEngine.eval("typeof [].x"))
+    assertResult("undefined")(JsEngine.eval("typeof ({}).y"))
+    val discarded = JsEngine.poolStats().discarded
+    JsEngine.eval("String.prototype.trim = function () { return 'changed' }")
+    assertResult("a")(JsEngine.eval("' a '.trim()"))
+    assertResult(discarded + 1)(JsEngine.poolStats().discarded)
+  }
+
+  test("pooled engine does not keep destructured lexical bindings") {
+    assertResult(1)(JsEngine.eval("const{a}={a:1}; a"))
+    assertResult(2)(JsEngine.eval("const{a}={a:2}; a"))
+    assertResult(3)(JsEngine.eval("let[b,c]=[1,2]; b+c"))
+    assertResult(5)(JsEngine.eval("let[b,c]=[2,3]; b+c"))
+  }
+
+  test("pooled engine returns plain values") {
+    val value = JsEngine.eval("({ a : 1, b : [1, 'x', { c : true }] })")
+    assertResult(true)(value.isInstanceOf[java.util.LinkedHashMap[_, _]])
+    val map = value.asInstanceOf[java.util.Map[String, Object]]
+    assertResult(1)(map.get("a"))
+    val list = map.get("b").asInstanceOf[java.util.List[Object]]
+    assertResult(true)(list.isInstanceOf[java.util.ArrayList[_]])
+    assertResult("x")(list.get(1))
+    assertResult(true)(list.get(2).asInstanceOf[java.util.Map[String, Object]].get("c"))
+    assertResult("[object Object]")(JsEngine.eval("var o = {}; o.self = o; o").asInstanceOf[java.util.Map[String, Object]].get("self"))
+  }
 }
@@ -0,0 +1,108 @@
+package asura.core.sql
+
+import java.lang.reflect.{InvocationHandler, Method, Proxy}
+import java.sql.{Connection, Driver, DriverPropertyInfo}
+import java.util.Properties
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Logger
+
+import asura.common.ScalaTestBaseSpec
+import asura.core.CoreConfig
+import com.alibaba.druid.pool.DruidDataSource
+
+import scala.jdk.CollectionConverters._
+
+class MySqlDataSourcesSpec extends ScalaTestBaseSpec {
+
+  test("evict pools while borrowing") {
+    val created = new ConcurrentLinkedQueue[DruidDataSource]()
+    val failures = new AtomicInteger()
+    val keys = (0 until CoreConfig.sqlPoolConfig.maxPools * 3).map(i => s"stub-${i}")
+    val threads = (0 until 8).map(t => new Thread(() => {
+      for (i <- 0 until 200) {
+        try {
+          val conn = MySqlDataSources.getConnection(keys((t * 31 + i) % keys.size), {
+            val dataSource = newDataSource()
+            created.add(dataSource)
+            dataSource
+          })
+          conn.close()
+        } catch {
+          case e: Throwable =>
+            logger.warn(e.getMessage)
+            failures.incrementAndGet()
+        }
+      }
+    }))
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    assertResult(0)(failures.get())
+    MySqlDataSources.closeAll()
+    val deadline = System.currentTimeMillis() + 10000
+    while (!created.asScala.forall(_.isClosed) && System.currentTimeMillis() < deadline) Thread.sleep(100)
+    assert(created.asScala.forall(_.isClosed))
+  }
+
+  test("apply maxPools by init") {
+    val config = CoreConfig.sqlPoolConfig
+    try {
+      (0 until 3).foreach(i => MySqlDataSources.getConnection(s"init-${i}", newDataSource(s"init-${i}")).close())
+      assertResult(3)(MySqlDataSources.stats().size())
+      CoreConfig.sqlPoolConfig = config.copy(maxPools = 1)
+      MySqlDataSources.init()
+      assertResult(Set("init-2"))(MySqlDataSources.stats().keySet().asScala.toSet)
+    } finally {
+      CoreConfig.sqlPoolConfig = config
+      MySqlDataSources.init()
+      MySqlDataSources.closeAll()
+    }
+  }
+
+  def newDataSource(name: String = "stub"): DruidDataSource = {
+    val dataSource = new DruidDataSource()
+    dataSource.setName(name)
+    dataSource.setUrl("jdbc:stub:test")
+    dataSource.setDriver(new StubDriver())
+    dataSource.setInitialSize(0)
+    dataSource.setMaxActive(2)
+    dataSource
+  }
+
+  class StubDriver extends Driver {
+
+    override def connect(url: String, info: Properties): Connection = {
+      Proxy.newProxyInstance(getClass.getClassLoader, Array(classOf[Connection]), new InvocationHandler {
+        override def invoke(proxy: Any, method: Method, args: Array[AnyRef]): AnyRef = {
+          method.getName match {
+            case "getAutoCommit" | "isValid" => java.lang.Boolean.TRUE
+            case "hashCode" => Integer.valueOf(System.identityHashCode(proxy))
+            case "equals" => java.lang.Boolean.valueOf(proxy.asInstanceOf[AnyRef] eq args(0))
+            case "toString" => "stub"
+            case _ => defaultValue(method.getReturnType)
+          }
+        }
+      }).asInstanceOf[Connection]
+    }
+
+    override def acceptsURL(url: String): Boolean = true
+
+    override def getPropertyInfo(url: String, info: Properties): Array[DriverPropertyInfo] = Array.empty
+
+    override def getMajorVersion: Int = 1
+
+    override def getMinorVersion: Int = 0
+
+    override def jdbcCompliant(): Boolean = false
+
+    override def getParentLogger: Logger = null
+
+    private def defaultValue(clazz: Class[_]): AnyRef = {
+      if (clazz == java.lang.Boolean.TYPE) java.lang.Boolean.FALSE
+      else if (clazz == Integer.TYPE) Integer.valueOf(0)
+      else if (clazz == java.lang.Long.TYPE) java.lang.Long.valueOf(0L)
+      else null
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+package asura.core.sql
+
+import java.util
+
+import asura.common.ScalaTestBaseSpec
+
+class PreparedSqlTemplateSpec extends ScalaTestBaseSpec {
+
+  val ctx: util.Map[Any, Any] = {
+    val map = new util.HashMap[Any, Any]()
+    map.put("id", 1)
+    map.put("name", "a'b")
+    map.put("table", "user")
+    map
+  }
+
+  test("bind macros") {
+    val prepared = PreparedSqlTemplate.compile("select * from t where id = {{$.id}} and name = '{{$.name}}'").render(ctx)
+    assertResult("select * from t where id = ? and name = ?")(prepared.sql)
+    assertResult(util.Arrays.asList(1, "a'b"))(prepared.params)
+  }
+
+  test("macros in literals and identifiers") {
+    val prepared = PreparedSqlTemplate.compile("select * from `{{$.table}}` where name like '%{{$.table}}%' and id = {{$.id}}").render(ctx)
+    assertResult("select * from `user` where name like '%user%' and id = ?")(prepared.sql)
+    assertResult(util.Arrays.asList(1))(prepared.params)
+  }
+
+  test("escaped quotes") {
+    val prepared = PreparedSqlTemplate.compile("select 'it''s', '\\'' from t where id = {{$.id}}").render(ctx)
+    assertResult("select 'it''s', '\\'' from t where id = ?")(prepared.sql)
+  }
+
+  test("count placeholders") {
+    assertResult(2)(PreparedSqlTemplate.QuoteScanner.countPlaceholders("select '?', `?` from t where a = ? and b = ?"))
+  }
+}
@@ -0,0 +1,96 @@
+package asura.core.sql
+
+import java.lang.reflect.{InvocationHandler, Method, Proxy}
+import java.sql.{ResultSet, ResultSetMetaData}
+
+import asura.common.ScalaTestBaseSpec
+import asura.core.util.{JacksonSupport, JsonPathUtils}
+
+class SqlResultSetSpec extends ScalaTestBaseSpec {
+
+  val columns = Seq(("id", "java.lang.Long"), ("name", "java.lang.String"), ("ok", "java.lang.Boolean"), ("score", "java.lang.Double"))
+  val rows = Seq(
+    Seq[Any](1L, "a", true, 1.5),
+    Seq[Any](2L, null, false, 2.5),
+    Seq[Any](3L, "c", true, 3.5),
+  )
+
+  test("typed columns") {
+    val resultSet = SqlResultSet.read(newResultSet(), 10)
+    assertResult(3)(resultSet.size())
+    assertResult(java.lang.Long.valueOf(1L))(resultSet.get(0).get("id"))
+    assertResult(java.lang.Boolean.FALSE)(resultSet.get(1).get("ok"))
+    assertResult("3.5")(resultSet.get(2).get("score"))
+    assertResult("c")(resultSet.get(2).get("name"))
+    // null values are absent
+    assertResult(false)(resultSet.get(1).containsKey("name"))
+    assertResult(3)(resultSet.get(1).size())
+  }
+
+  test("max rows") {
+    val resultSet = SqlResultSet.read(newResultSet(), 2)
+    assertResult(2)(resultSet.size())
+  }
+
+  test("json path and json") {
+    val resultSet = SqlResultSet.read(newResultSet(), 10)
+    assertResult("a")(JsonPathUtils.read[String](resultSet, "$[0].name"))
+    assertResult(3)(JsonPathUtils.read[Int](resultSet, "$.length()"))
+    assertResult("""[{"id":1,"name":"a","ok":true,"score":"1.5"},{"id":2,"ok":false,"score":"2.5"},{"id":3,"name":"c","ok":true,"score":"3.5"}]""")(
+      JacksonSupport.mapper.writeValueAsString(resultSet)
+    )
+  }
+
+  test("same values as the rows read by getObject before") {
+    val columns = Seq(
+      ("long", "java.lang.Long"), ("int", "java.lang.Integer"), ("short", "java.lang.Short"), ("byte", "java.lang.Byte"),
+      ("bool", "java.lang.Boolean"), ("double", "java.lang.Double"), ("decimal", "java.math.BigDecimal"),
+    )
+    val row = Seq[Any](1L, 2, 3.toShort, 4.toByte, true, 1.5, new java.math.BigDecimal("2.50"))
+    val resultSet = SqlResultSet.read(newResultSet(columns, Seq(row)), 10)
+    assertResult(java.lang.Long.valueOf(1L))(resultSet.get(0).get("long"))
+    assertResult(Integer.valueOf(2))(resultSet.get(0).get("int"))
+    assertResult(java.lang.Short.valueOf(3.toShort))(resultSet.get(0).get("short"))
+    assertResult(java.lang.Byte.valueOf(4.toByte))(resultSet.get(0).get("byte"))
+    assertResult(java.lang.Boolean.TRUE)(resultSet.get(0).get("bool"))
+    assertResult("1.5")(resultSet.get(0).get("double"))
+    assertResult("2.50")(resultSet.get(0).get("decimal"))
+    assertResult("""[{"long":1,"int":2,"short":3,"byte":4,"bool":true,"double":"1.5","decimal":"2.50"}]""")(
+      JacksonSupport.mapper.writeValueAsString(resultSet)
+    )
+  }
+
+  private def newResultSet(columns: Seq[(String, String)] = columns, rows: Seq[Seq[Any]] = rows): ResultSet = {
+    val metaData = proxy(classOf[ResultSetMetaData], (method, args) => method.getName match {
+      case "getColumnCount" => Integer.valueOf(columns.length)
+      case "getColumnName" => columns(args(0).asInstanceOf[Int] - 1)._1
+      case "getColumnClassName" => columns(args(0).asInstanceOf[Int] - 1)._2
+    })
+    var row = -1
+    var lastValue: Any = null
+    proxy(classOf[ResultSet], (method, args) => {
+      def value(): Any = {
+        lastValue = rows(row)(args(0).asInstanceOf[Int] - 1)
+        lastValue
+      }
+
+      method.getName match {
+        case "getMetaData" => metaData
+        case "next" =>
+          row += 1
+          java.lang.Boolean.valueOf(row < rows.length)
+        case "wasNull" => java.lang.Boolean.valueOf(null == lastValue)
+        case "getLong" => java.lang.Long.valueOf(Option(value()).getOrElse(0L).asInstanceOf[Long])
+        case "getInt" => Integer.valueOf(Option(value()).getOrElse(0).asInstanceOf[Int])
+        case "getBoolean" => java.lang.Boolean.valueOf(Option(value()).getOrElse(false).asInstanceOf[Boolean])
+        case "getObject" => value().asInstanceOf[AnyRef]
+      }
+    })
+  }
+
+  private def proxy[T](clazz: Class[T], handler: (Method, Array[AnyRef]) => AnyRef): T = {
+    Proxy.newProxyInstance(getClass.getClassLoader, Array(clazz), new InvocationHandler {
+      override def invoke(proxy: Any, method: Method, args: Array[AnyRef]): AnyRef = handler(method, args)
+    }).asInstanceOf[T]
+  }
+}
@@ -9,4 +9,12 @@ class JsonPathUtilsSpec extends ScalaTestBaseSpec {
     val ref = JsonPathUtils.parse(json)
     logger.info(ref.toString)
   }
+
+  test("read with cached path") {
+    val doc = JsonPathUtils.parse("""{"a":"a", "b": {"name" : "b"}}""")
+    assertResult("b")(JsonPathUtils.read[String](doc, "$.b.name"))
+    assertResult("b")(JsonPathUtils.read[String](doc, "$.b.name"))
+    assert(JsonPathUtils.compile("$.b.name") eq JsonPathUtils.compile("$.b.name"))
+    assert(JsonPathUtils.cacheMetrics().hits > 0)
+  }
 }
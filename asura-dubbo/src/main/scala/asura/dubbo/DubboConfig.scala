@@ -4,7 +4,7 @@ import java.util.concurrent.Executors
 
 import com.alibaba.dubbo.config.ApplicationConfig
 
-import scala.concurrent.ExecutionContext
+import scala.concurrent.{ExecutionContext, ExecutionContextExecutorService}
 import scala.concurrent.duration._
 
 case class DubboConfig(
@@ -21,10 +21,39 @@ object DubboConfig {
   val DEFAULT_ROOT_DUBBO_PATH = "/dubbo"
   val DEFAULT_PROMPT = "dubbo>"
   val DEFAULT_ZK_CLIENT_CACHE_SIZE = 10
-  val DEFAULT_DUBBO_REF_CACHE_SIZE = 20
+  val DEFAULT_ZK_PROVIDER_CACHE_SIZE = 500
+  val DEFAULT_DUBBO_REF_CACHE_SIZE = 200
   val DEFAULT_TIMEOUT = 10000
+  val DEFAULT_MAX_IN_FLIGHT_PER_PROVIDER = 64
+  val DEFAULT_MAX_PENDING_PER_PROVIDER = 1000
   var appName = "asura-dubbo"
   var appConfig = new ApplicationConfig(appName)
-
-  val DUBBO_EC = ExecutionContext.fromExecutorService(Executors.newFixedThreadPool(4))
+  // max watched interfaces of each zookeeper, it should be set before the first lookup
+  var zkProviderCacheSize = DEFAULT_ZK_PROVIDER_CACHE_SIZE
+  // max generic service references, it should be set before the first invocation
+  var referenceCacheSize = DEFAULT_DUBBO_REF_CACHE_SIZE
+  // milliseconds, it should be set before the references are created
+  var invokeTimeout = DEFAULT_TIMEOUT
+  // invoke without blocking a thread until the response
+  var asyncInvoke = true
+  // async invocations sent to one provider at the same time, others wait in the queue
+  var maxInFlightPerProvider = DEFAULT_MAX_IN_FLIGHT_PER_PROVIDER
+  // async invocations fail at once when the queue of the provider is full
+  var maxPendingPerProvider = DEFAULT_MAX_PENDING_PER_PROVIDER
+
+  private lazy val DEFAULT_EC: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(Executors.newFixedThreadPool(4))
+  @volatile private var executionContext: ExecutionContext = DEFAULT_EC
+
+  /** blocking calls of zookeeper and generic invocations, it is replaced by the pool of the core module */
+  def DUBBO_EC: ExecutionContext = executionContext
+
+  /** called once by the core module when it is initialized */
+  def init(ec: ExecutionContext): Unit = {
+    executionContext = ec
+  }
+
+  /** shutdown the default pool if it is used */
+  def shutdownExecutor(): Unit = {
+    if (executionContext eq DEFAULT_EC) DEFAULT_EC.shutdown()
+  }
 }
@@ -0,0 +1,289 @@
+package asura.dubbo
+
+import java.util.concurrent.atomic.{AtomicLong, LongAdder}
+import java.util.concurrent.{CompletableFuture, ConcurrentHashMap, Executor, TimeUnit}
+
+import asura.common.metrics.{CacheMetrics, MetricsRegistry}
+import asura.common.util.{LogUtils, StringUtils}
+import asura.dubbo.InFlightLimiter.InFlightStats
+import com.alibaba.dubbo.config.ReferenceConfig
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter
+import com.alibaba.dubbo.rpc.service.GenericService
+import com.alibaba.dubbo.rpc.{Result, RpcContext}
+import com.github.benmanes.caffeine.cache.{AsyncCache, Caffeine, RemovalCause}
+import com.typesafe.scalalogging.Logger
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.jdk.FutureConverters._
+import scala.util.Try
+
+/**
+ * Generic service references shared by all invocations. A reference is created once by the first
+ * request of the key on the dubbo pool, concurrent requests of the same key wait for the same
+ * creation, and the least recently used reference is removed when the cache is full. A removed
+ * reference is destroyed after the invocations which are using it are over.
+ */
+object DubboReferenceCache {
+
+  val logger = Logger("DubboReferenceCache")
+  private val ASYNC_KEY_SUFFIX = "#async"
+
+  private val cacheExecutor: Executor = runnable => DubboConfig.DUBBO_EC.execute(runnable)
+  private val references: AsyncCache[String, DubboReference] = Caffeine.newBuilder()
+    .maximumSize(DubboConfig.referenceCacheSize)
+    .executor(cacheExecutor)
+    .removalListener((key: String, reference: DubboReference, _: RemovalCause) => {
+      if (null != reference) {
+        logger.debug(s"retire reference: ${key}")
+        reference.retire()
+      }
+    })
+    .recordStats()
+    .buildAsync[String, DubboReference]()
+  private val interfaces = new ConcurrentHashMap[String, InterfaceCounters]()
+  private val providers = new ConcurrentHashMap[String, InFlightLimiter]()
+
+  MetricsRegistry.register("dubbo.references", () => CacheMetrics(references.synchronous()))
+  MetricsRegistry.register("dubbo.invocations", () => stats())
+  MetricsRegistry.register("dubbo.providers", () => providerStats())
+
+  /** apply `DubboConfig.referenceCacheSize`, which may be set after this object is initialized */
+  def init(): Unit = {
+    references.synchronous().policy().eviction().ifPresent(_.setMaximum(DubboConfig.referenceCacheSize))
+  }
+
+  /** the reference config is only built when the reference is not in the cache */
+  def get(request: GenericRequest, async: Boolean = false): Future[DubboReference] = {
+    val key = if (async) s"${request.generateCacheKey()}${ASYNC_KEY_SUFFIX}" else request.generateCacheKey()
+    references.get(key, (_: String, executor: Executor) => {
+      CompletableFuture.supplyAsync(() => create(request, async), executor)
+    }).asScala
+  }
+
+  def invoke(request: GenericRequest): Future[Object] = {
+    if (DubboConfig.asyncInvoke) invokeAsync(request) else invokeSync(request)
+  }
+
+  /** a thread of the dubbo pool is blocked until the response */
+  def invokeSync(request: GenericRequest): Future[Object] = {
+    implicit val ec: ExecutionContext = DubboConfig.DUBBO_EC
+    withReference(request, false)(reference => {
+      val counters = interfaces.computeIfAbsent(request.interface, _ => new InterfaceCounters())
+      val start = System.nanoTime()
+      try {
+        // https://github.com/apache/incubator-dubbo/issues/3163
+        val result = reference.service.$invoke(request.method, request.getParameterTypes(), request.getArgs())
+        counters.record(System.nanoTime() - start, false)
+        Future.successful(result)
+      } catch {
+        case t: Throwable =>
+          counters.record(System.nanoTime() - start, true)
+          throw t
+      }
+    })
+  }
+
+  /**
+   * No thread waits for the response, it completes the future by the callback of dubbo. At most
+   * `maxInFlightPerProvider` invocations are sent to one provider, others wait in a bounded queue
+   * for at most `invokeTimeout`, and the invocation fails when there is no response after `invokeTimeout`.
+   */
+  def invokeAsync(request: GenericRequest): Future[Object] = {
+    implicit val ec: ExecutionContext = DubboConfig.DUBBO_EC
+    val limiter = providers.computeIfAbsent(request.providerKey(), _ => {
+      new InFlightLimiter(DubboConfig.maxInFlightPerProvider, DubboConfig.maxPendingPerProvider, DubboConfig.invokeTimeout)
+    })
+    limiter.limit {
+      withReference(request, true)(reference => {
+        val counters = interfaces.computeIfAbsent(request.interface, _ => new InterfaceCounters())
+        val start = System.nanoTime()
+        sendAsync(reference, request).andThen(result => {
+          counters.record(System.nanoTime() - start, result.isFailure)
+        })(ExecutionContext.parasitic)
+      })
+    }
+  }
+
+  /** the reference is not destroyed until the future of `f` is completed */
+  private[dubbo] def withReference[T](request: GenericRequest, async: Boolean)(f: DubboReference => Future[T])
+                                     (implicit ec: ExecutionContext): Future[T] = {
+    get(request, async).flatMap(reference => {
+      if (reference.acquire()) {
+        Future.delegate(f(reference)).andThen(_ => reference.release())(ExecutionContext.parasitic)
+      } else {
+        // destroyed after it was got from the cache, the next get creates a new one
+        withReference(request, async)(f)
+      }
+    })
+  }
+
+  private def sendAsync(reference: DubboReference, request: GenericRequest): Future[Object] = {
+    val promise = Promise[Object]()
+    try {
+      reference.service.$invoke(request.method, request.getParameterTypes(), request.getArgs())
+      RpcContext.getContext.getFuture match {
+        case adapter: FutureAdapter[_] =>
+          adapter.getFuture.setCallback(new ResponseCallback {
+            override def done(response: Any): Unit = {
+              promise.complete(Try(response.asInstanceOf[Result].recreate()))
+            }
+
+            override def caught(t: Throwable): Unit = promise.failure(t)
+          })
+        case _ =>
+          promise.failure(new RuntimeException("No future of the async dubbo invocation"))
+      }
+    } catch {
+      case t: Throwable => promise.failure(t)
+    }
+    promise.future
+  }
+
+  /**
+   * Create the references before the first invocations.
+   *
+   * @param keys in the format of [[GenericRequest.generateCacheKey]], e.g. `group/com.foo.FooService:1.0.0@127.0.0.1:20880`
+   */
+  def warmup(keys: Seq[String]): Unit = {
+    implicit val ec: ExecutionContext = DubboConfig.DUBBO_EC
+    keys.foreach(key => {
+      val request = parseCacheKey(key)
+      if (null == request) {
+        logger.warn(s"invalid dubbo reference: ${key}")
+      } else {
+        get(request).failed.foreach(t => logger.warn(s"warm up ${key} failed: ${LogUtils.stackTraceToString(t)}"))
+      }
+    })
+  }
+
+  private[dubbo] def put(key: String, reference: DubboReference): Unit = {
+    references.put(key, CompletableFuture.completedFuture(reference))
+  }
+
+  /** destroy all the references */
+  def clear(): Unit = references.synchronous().invalidateAll()
+
+  /** @return null if the key is invalid */
+  def parseCacheKey(key: String): GenericRequest = {
+    if (StringUtils.isEmpty(key) || !key.contains("@")) {
+      null
+    } else {
+      val atIdx = key.lastIndexOf('@')
+      val target = key.substring(atIdx + 1)
+      val service = key.substring(0, atIdx)
+      val slashIdx = service.indexOf('/')
+      val group = if (slashIdx > 0) service.substring(0, slashIdx) else null
+      val interfaceAndVersion = service.substring(slashIdx + 1)
+      val colonIdx = interfaceAndVersion.indexOf(':')
+      val interface = if (colonIdx > 0) interfaceAndVersion.substring(0, colonIdx) else interfaceAndVersion
+      val version = if (colonIdx > 0) interfaceAndVersion.substring(colonIdx + 1) else null
+      val portIdx = target.lastIndexOf(':')
+      val (address, port) = if (portIdx > 0) {
+        (target.substring(0, portIdx), target.substring(portIdx + 1).toInt)
+      } else {
+        (target, DubboConfig.DEFAULT_PORT)
+      }
+      if (StringUtils.isEmpty(interface) || StringUtils.isEmpty(address)) {
+        null
+      } else {
+        GenericRequest(group, interface, null, null, null, address, port, version)
+      }
+    }
+  }
+
+  def stats(): java.util.Map[String, InterfaceStats] = {
+    val map = new java.util.TreeMap[String, InterfaceStats]()
+    interfaces.forEach((name, counters) => map.put(name, counters.stats()))
+    map
+  }
+
+  def providerStats(): java.util.Map[String, InFlightStats] = {
+    val map = new java.util.TreeMap[String, InFlightStats]()
+    providers.forEach((key, limiter) => map.put(key, limiter.stats()))
+    map
+  }
+
+  private def create(request: GenericRequest, async: Boolean): DubboReference = {
+    val config = request.toReferenceConfig(async)
+    val service = config.get()
+    if (null == service) {
+      config.destroy()
+      throw new RuntimeException("Null dubbo generic service from reference config")
+    }
+    DubboReference(config, service)
+  }
+
+  /** counts the invocations using it, so it is destroyed after they are over when it is retired */
+  case class DubboReference(config: ReferenceConfig[GenericService], service: GenericService) {
+
+    private var users = 0
+    private var retired = false
+    private var destroyed = false
+
+    /** @return false if it is destroyed */
+    def acquire(): Boolean = synchronized {
+      if (destroyed) {
+        false
+      } else {
+        users += 1
+        true
+      }
+    }
+
+    def release(): Unit = {
+      if (synchronized {
+        users -= 1
+        shouldDestroy()
+      }) config.destroy()
+    }
+
+    def retire(): Unit = {
+      if (synchronized {
+        retired = true
+        shouldDestroy()
+      }) config.destroy()
+    }
+
+    def isDestroyed: Boolean = synchronized(destroyed)
+
+    def inUse: Int = synchronized(users)
+
+    private def shouldDestroy(): Boolean = {
+      if (retired && users == 0 && !destroyed) {
+        destroyed = true
+        true
+      } else {
+        false
+      }
+    }
+  }
+
+  class InterfaceCounters {
+
+    private val count = new LongAdder()
+    private val errors = new LongAdder()
+    private val totalNanos = new LongAdder()
+    private val maxNanos = new AtomicLong()
+
+    def record(elapsedNanos: Long, error: Boolean): Unit = {
+      count.increment()
+      if (error) errors.increment()
+      totalNanos.add(elapsedNanos)
+      maxNanos.accumulateAndGet(elapsedNanos, (a, b) => Math.max(a, b))
+    }
+
+    def stats(): InterfaceStats = {
+      val total = count.sum()
+      InterfaceStats(
+        count = total,
+        errors = errors.sum(),
+        avgMillis = if (total > 0) totalNanos.sum().toDouble / total / TimeUnit.MILLISECONDS.toNanos(1) else 0.0,
+        maxMillis = maxNanos.get().toDouble / TimeUnit.MILLISECONDS.toNanos(1),
+      )
+    }
+  }
+
+  case class InterfaceStats(count: Long, errors: Long, avgMillis: Double, maxMillis: Double)
+
+}
@@ -29,7 +29,8 @@ case class GenericRequest(
     }
   }
 
-  def toReferenceConfig(): ReferenceConfig[GenericService] = {
+  /** @param async `$invoke` returns at once and the response is got from the future in `RpcContext` */
+  def toReferenceConfig(async: Boolean = false): ReferenceConfig[GenericService] = {
     val referenceConfig = new ReferenceConfig[GenericService]()
     if (StringUtils.isNotEmpty(dubboGroup)) {
       referenceConfig.setGroup(dubboGroup)
@@ -38,7 +39,10 @@ case class GenericRequest(
     referenceConfig.setUrl(toDubboUrl())
     referenceConfig.setInterface(interface)
     referenceConfig.setGeneric(true)
-    referenceConfig.setTimeout(DubboConfig.DEFAULT_TIMEOUT)
+    referenceConfig.setTimeout(DubboConfig.invokeTimeout)
+    if (async) {
+      referenceConfig.setAsync(true)
+    }
     if (StringUtils.isNotEmpty(version)) {
       referenceConfig.setVersion(version)
     }
@@ -66,6 +70,12 @@ case class GenericRequest(
     sb.toString()
   }
 
+  /** key of the in flight limit */
+  def providerKey(): String = {
+    val portStr = if (port > 0) port.toString else DubboConfig.DEFAULT_PORT.toString
+    s"${address}:${portStr}"
+  }
+
   def toDubboUrl() = {
     val portStr = if (port > 0) port.toString else DubboConfig.DEFAULT_PORT.toString
     s"${DubboConfig.DEFAULT_PROTOCOL}${address}:${portStr}"
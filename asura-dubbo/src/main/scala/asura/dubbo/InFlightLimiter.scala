@@ -0,0 +1,105 @@
+package asura.dubbo
+
+import java.util
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.{RejectedExecutionException, ScheduledFuture, ScheduledThreadPoolExecutor, TimeUnit, TimeoutException}
+
+import asura.dubbo.InFlightLimiter.{InFlightStats, Waiter}
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+
+/**
+ * A semaphore which does not block threads. A caller gets a future which is completed when a
+ * permit is available, and every acquired permit must be released once.
+ *
+ * @param maxInFlight   permits
+ * @param maxPending    waiting callers, others fail at once
+ * @param maxWaitMillis a waiting caller fails after this time, `0` means no limit
+ */
+class InFlightLimiter(val maxInFlight: Int, val maxPending: Int, val maxWaitMillis: Long = 0) {
+
+  private var inFlight = 0
+  private val waiters = new util.ArrayDeque[Waiter]()
+  private val rejected = new LongAdder()
+  private val timedOut = new LongAdder()
+
+  def acquire(): Future[Unit] = {
+    val waiter = synchronized {
+      if (inFlight < maxInFlight) {
+        inFlight += 1
+        null
+      } else if (waiters.size() >= maxPending) {
+        rejected.increment()
+        return Future.failed(new RejectedExecutionException(s"too many pending requests: ${waiters.size()}"))
+      } else {
+        val waiter = new Waiter()
+        waiters.add(waiter)
+        waiter
+      }
+    }
+    if (null == waiter) {
+      Future.unit
+    } else {
+      if (maxWaitMillis > 0) {
+        waiter.timeout = InFlightLimiter.timer.schedule(new Runnable {
+          override def run(): Unit = expire(waiter)
+        }, maxWaitMillis, TimeUnit.MILLISECONDS)
+      }
+      waiter.promise.future
+    }
+  }
+
+  /** the permit is passed to the first waiter if there is one */
+  def release(): Unit = {
+    val next = synchronized {
+      val waiter = waiters.poll()
+      if (null == waiter) inFlight -= 1
+      waiter
+    }
+    if (null != next) {
+      val timeout = next.timeout
+      if (null != timeout) timeout.cancel(false)
+      next.promise.success(())
+    }
+  }
+
+  /** run `f` with a permit, which is released when its future is completed or it throws */
+  def limit[T](f: => Future[T])(implicit ec: ExecutionContext): Future[T] = {
+    acquire().flatMap(_ => Future.delegate(f).andThen(_ => release())(ExecutionContext.parasitic))
+  }
+
+  def stats(): InFlightStats = synchronized {
+    InFlightStats(maxInFlight, inFlight, waiters.size(), rejected.sum(), timedOut.sum())
+  }
+
+  // a waiter which got the permit is not in the queue any more
+  private def expire(waiter: Waiter): Unit = {
+    val removed = synchronized(waiters.remove(waiter))
+    if (removed) {
+      timedOut.increment()
+      waiter.promise.failure(new TimeoutException(s"no permit after ${maxWaitMillis}ms"))
+    }
+  }
+}
+
+object InFlightLimiter {
+
+  private lazy val timer: ScheduledThreadPoolExecutor = {
+    val executor = new ScheduledThreadPoolExecutor(1, runnable => {
+      val thread = new Thread(runnable, "in-flight-limiter-timer")
+      thread.setDaemon(true)
+      thread
+    })
+    executor.setRemoveOnCancelPolicy(true)
+    executor
+  }
+
+  case class InFlightStats(maxInFlight: Int, inFlight: Int, pending: Int, rejected: Long, timedOut: Long)
+
+  private class Waiter {
+
+    val promise: Promise[Unit] = Promise[Unit]()
+    @volatile var timeout: ScheduledFuture[_] = _
+  }
+
+}
@@ -0,0 +1,179 @@
+package asura.dubbo
+
+import java.util.concurrent.{ConcurrentHashMap, Executors}
+import java.util.concurrent.atomic.{AtomicLong, LongAdder}
+
+import asura.common.cache.LRUCache
+import asura.common.metrics.MetricsRegistry
+import asura.dubbo.ZkProviderCache.ZkProviderCacheStats
+import asura.dubbo.model.DubboProvider
+import com.typesafe.scalalogging.Logger
+import org.apache.curator.framework.CuratorFramework
+import org.apache.curator.framework.recipes.cache.PathChildrenCache.StartMode
+import org.apache.curator.framework.recipes.cache.{ChildData, PathChildrenCache, PathChildrenCacheEvent, PathChildrenCacheListener}
+import org.apache.curator.utils.ZKPaths
+import org.apache.zookeeper.KeeperException
+
+import scala.jdk.CollectionConverters._
+
+/**
+ * Providers of the interfaces under a root path of a zookeeper. The providers of an interface are
+ * loaded by the first lookup, then the children of `{path}/{ref}/providers` are watched and the
+ * parsed list is rebuilt when they change, so later lookups do not read zookeeper. At most
+ * `maxInterfaces` interfaces are watched, the least recently used one is closed when it is full.
+ * The events of all the interfaces are handled by one thread. The lookup of an interface which is
+ * not registered fails with `NoNodeException` and nothing is watched or created for it.
+ */
+class ZkProviderCache(
+                       val client: CuratorFramework,
+                       val zkConnectString: String,
+                       val path: String,
+                       maxInterfaces: Int,
+                     ) {
+
+  private val interfaces = LRUCache[String, InterfaceProviders](maxInterfaces, (_, providers) => {
+    providers.close()
+  })
+  // shared by the caches of the interfaces, which would create a thread for each one otherwise
+  private val eventExecutor = Executors.newSingleThreadExecutor(runnable => {
+    val thread = new Thread(runnable, s"zk-providers-${zkConnectString}")
+    thread.setDaemon(true)
+    thread
+  })
+  private val events = new LongAdder()
+  private val lastEventLagMillis = new AtomicLong()
+  private val maxEventLagMillis = new AtomicLong()
+
+  ZkProviderCache.caches.put(this, this)
+
+  /** @return null if the interface is not watched yet */
+  def getIfPresent(ref: String): Seq[DubboProvider] = {
+    val providers = interfaces.synchronized(interfaces.get(ref))
+    if (null != providers) providers.providers else null
+  }
+
+  /** blocks on the first lookup of an interface */
+  def get(ref: String): Seq[DubboProvider] = {
+    val cached = getIfPresent(ref)
+    if (null != cached) {
+      cached
+    } else {
+      // the initial load is not in the lock, a concurrent duplicate is closed
+      val created = new InterfaceProviders(ref)
+      val existing = interfaces.synchronized {
+        val prev = interfaces.get(ref)
+        if (null == prev) interfaces.put(ref, created)
+        prev
+      }
+      if (null != existing) {
+        created.close()
+        existing.providers
+      } else {
+        created.providers
+      }
+    }
+  }
+
+  def close(): Unit = {
+    ZkProviderCache.caches.remove(this)
+    interfaces.synchronized {
+      interfaces.forEach((_, providers) => providers.close())
+      interfaces.clear()
+    }
+    eventExecutor.shutdown()
+  }
+
+  def stats(): ZkProviderCacheStats = {
+    val (interfaceCount, providerCount) = interfaces.synchronized {
+      var count = 0
+      interfaces.forEach((_, providers) => count += providers.providers.size)
+      (interfaces.size(), count)
+    }
+    ZkProviderCacheStats(
+      interfaces = interfaceCount,
+      providers = providerCount,
+      events = events.sum(),
+      lastEventLagMillis = lastEventLagMillis.get(),
+      maxEventLagMillis = maxEventLagMillis.get(),
+    )
+  }
+
+  /** the lag is from the modification of the node to the event, it includes the clock skew of the servers */
+  private def recordEvent(data: ChildData): Unit = {
+    events.increment()
+    if (null != data && null != data.getStat) {
+      val lag = Math.max(0L, System.currentTimeMillis() - data.getStat.getMtime)
+      lastEventLagMillis.set(lag)
+      maxEventLagMillis.accumulateAndGet(lag, (a, b) => Math.max(a, b))
+    }
+  }
+
+  private class InterfaceProviders(ref: String) extends PathChildrenCacheListener {
+
+    private val providersPath = s"${path}/${ref}/providers"
+    // the cache creates the missing parents when it starts, which should not be done in the registry
+    if (null == client.checkExists().forPath(providersPath)) throw new KeeperException.NoNodeException(providersPath)
+    private val cache = new PathChildrenCache(client, providersPath, false, false, eventExecutor)
+    @volatile var providers: Seq[DubboProvider] = Nil
+
+    cache.getListenable.addListener(this)
+    try {
+      cache.start(StartMode.BUILD_INITIAL_CACHE)
+      refresh()
+    } catch {
+      case t: Throwable =>
+        cache.close()
+        throw t
+    }
+
+    override def childEvent(client: CuratorFramework, event: PathChildrenCacheEvent): Unit = {
+      event.getType match {
+        case PathChildrenCacheEvent.Type.CHILD_ADDED | PathChildrenCacheEvent.Type.CHILD_UPDATED =>
+          recordEvent(event.getData)
+          refresh()
+        case PathChildrenCacheEvent.Type.CHILD_REMOVED =>
+          recordEvent(null)
+          refresh()
+        case PathChildrenCacheEvent.Type.CONNECTION_RECONNECTED =>
+          refresh()
+        case _ =>
+      }
+    }
+
+    def refresh(): Unit = synchronized {
+      providers = cache.getCurrentData.asScala
+        .map(data => DubboProvider.parse(zkConnectString, path, ref, ZKPaths.getNodeFromPath(data.getPath)))
+        .toSeq
+    }
+
+    def close(): Unit = {
+      try cache.close() catch {
+        case t: Throwable => ZkProviderCache.logger.warn(s"close provider cache of ${ref}: ${t.getMessage}")
+      }
+    }
+  }
+
+}
+
+object ZkProviderCache {
+
+  val logger = Logger("ZkProviderCache")
+  private val caches = new ConcurrentHashMap[ZkProviderCache, ZkProviderCache]()
+
+  MetricsRegistry.register("dubbo.zkProviders", () => stats())
+
+  def stats(): java.util.Map[String, ZkProviderCacheStats] = {
+    val map = new java.util.TreeMap[String, ZkProviderCacheStats]()
+    caches.forEach((cache, _) => map.put(s"${cache.zkConnectString}${cache.path}", cache.stats()))
+    map
+  }
+
+  case class ZkProviderCacheStats(
+                                   interfaces: Int,
+                                   providers: Int,
+                                   events: Long,
+                                   lastEventLagMillis: Long,
+                                   maxEventLagMillis: Long,
+                                 )
+
+}
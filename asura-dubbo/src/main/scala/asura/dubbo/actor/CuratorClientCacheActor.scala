@@ -1,7 +1,5 @@
 package asura.dubbo.actor
 
-import java.net.{URI, URLDecoder}
-import java.nio.charset.StandardCharsets
 import java.util
 
 import akka.actor.Props
@@ -9,23 +7,22 @@ import akka.pattern.pipe
 import asura.common.actor.BaseActor
 import asura.common.cache.LRUCache
 import asura.common.util.StringUtils
-import asura.dubbo.DubboConfig
 import asura.dubbo.actor.GenericServiceInvokerActor.{GetInterfacesMessage, GetProvidersMessage}
 import asura.dubbo.model.{DubboInterface, DubboProvider}
+import asura.dubbo.{DubboConfig, ZkProviderCache}
 import org.apache.curator.framework.api.ACLProvider
 import org.apache.curator.framework.{CuratorFramework, CuratorFrameworkFactory}
 import org.apache.curator.retry.RetryNTimes
 import org.apache.zookeeper.ZooDefs
 import org.apache.zookeeper.data.ACL
 
-import scala.collection.mutable
 import scala.concurrent.{ExecutionContext, Future}
 import scala.jdk.CollectionConverters._
 
 class CuratorClientCacheActor extends BaseActor {
 
-  private val lruCache = LRUCache[String, CuratorFramework](DubboConfig.DEFAULT_ZK_CLIENT_CACHE_SIZE, (_, client) => {
-    client.close()
+  private val lruCache = LRUCache[String, ZkProviderCache](DubboConfig.DEFAULT_ZK_CLIENT_CACHE_SIZE, (_, cache) => {
+    closeCache(cache)
   })
   implicit val actorEC: ExecutionContext = context.dispatcher
 
@@ -63,6 +60,7 @@ class CuratorClientCacheActor extends BaseActor {
       })
   }
 
+  /** an in-memory read if the providers of the interface are watched */
   def getInterfaceProviders(
                              zkConnectString: String,
                              ref: String,
@@ -70,33 +68,14 @@ class CuratorClientCacheActor extends BaseActor {
                              zkUsername: String = null,
                              zkPassword: String = null,
                            ): Future[Seq[DubboProvider]] = {
-    getClient(zkConnectString, path, zkUsername, zkPassword)
-      .map(client => {
-        client.getChildren().forPath(s"${path}/${ref}/providers")
-          .asScala
-          .map(item => URLDecoder.decode(item, StandardCharsets.UTF_8.name()))
-          .map(uriStr => {
-            val uri = URI.create(uriStr)
-            val queryMap = mutable.Map[String, String]()
-            uri.getQuery.split("&").foreach(paramStr => {
-              val param = paramStr.split("=")
-              if (param.length == 2) {
-                queryMap += (param(0) -> param(1))
-              }
-            })
-            DubboProvider(
-              zkConnectString = zkConnectString,
-              path = path,
-              ref = ref,
-              address = uri.getHost,
-              port = uri.getPort,
-              methods = queryMap.getOrElse("methods", StringUtils.EMPTY).split(",").toIndexedSeq,
-              application = queryMap.getOrElse("application", StringUtils.EMPTY),
-              dubbo = queryMap.getOrElse("dubbo", StringUtils.EMPTY)
-            )
-          })
-          .toSeq
-      })
+    val cache = lruCache.synchronized(lruCache.get(cacheKey(zkConnectString, path)))
+    val cached = if (null != cache) cache.getIfPresent(ref) else null
+    if (null != cached) {
+      Future.successful(cached)
+    } else {
+      getProviderCache(zkConnectString, path, zkUsername, zkPassword)
+        .map(_.get(ref))(DubboConfig.DUBBO_EC)
+    }
   }
 
   def getClient(
@@ -105,36 +84,56 @@ class CuratorClientCacheActor extends BaseActor {
                  zkUsername: String = null,
                  zkPassword: String = null,
                ): Future[CuratorFramework] = {
+    getProviderCache(connectString, path, zkUsername, zkPassword).map(_.client)
+  }
+
+  private def getProviderCache(
+                                connectString: String,
+                                path: String,
+                                zkUsername: String,
+                                zkPassword: String,
+                              ): Future[ZkProviderCache] = {
     Future {
-      val cacheKey = s"${connectString}/${path}"
-      val client = lruCache.get(cacheKey)
-      if (null == client) {
-        val builder = CuratorFrameworkFactory.builder()
-        builder.connectString(connectString)
-          .retryPolicy(new RetryNTimes(0, 0))
-        if (StringUtils.isNotEmpty(zkUsername) && StringUtils.isNotEmpty(zkPassword)) {
-          builder.authorization("digest", s"${zkUsername}:${zkPassword}".getBytes)
-            .aclProvider(new ACLProvider {
-              override def getDefaultAcl: util.List[ACL] = ZooDefs.Ids.CREATOR_ALL_ACL
+      val key = cacheKey(connectString, path)
+      lruCache.synchronized {
+        val cache = lruCache.get(key)
+        if (null == cache) {
+          val builder = CuratorFrameworkFactory.builder()
+          builder.connectString(connectString)
+            .retryPolicy(new RetryNTimes(0, 0))
+          if (StringUtils.isNotEmpty(zkUsername) && StringUtils.isNotEmpty(zkPassword)) {
+            builder.authorization("digest", s"${zkUsername}:${zkPassword}".getBytes)
+              .aclProvider(new ACLProvider {
+                override def getDefaultAcl: util.List[ACL] = ZooDefs.Ids.CREATOR_ALL_ACL
 
-              override def getAclForPath(path: String): util.List[ACL] = ZooDefs.Ids.CREATOR_ALL_ACL
-            })
+                override def getAclForPath(path: String): util.List[ACL] = ZooDefs.Ids.CREATOR_ALL_ACL
+              })
+          }
+          val newClient = builder.build()
+          newClient.start()
+          val newCache = new ZkProviderCache(newClient, connectString, path, DubboConfig.zkProviderCacheSize)
+          lruCache.put(key, newCache)
+          newCache
+        } else {
+          cache
         }
-        val newClient = builder.build()
-        newClient.start()
-        lruCache.put(cacheKey, newClient)
-        newClient
-      } else {
-        client
       }
     }(DubboConfig.DUBBO_EC)
   }
 
+  private def cacheKey(connectString: String, path: String): String = s"${connectString}/${path}"
+
   override def postStop(): Unit = {
-    log.debug(s"Close zookeeper clients size: ${lruCache.size()} ")
-    lruCache.forEach((_, client) => {
-      client.close()
-    })
+    lruCache.synchronized {
+      log.debug(s"Close zookeeper clients size: ${lruCache.size()} ")
+      lruCache.forEach((_, cache) => closeCache(cache))
+      lruCache.clear()
+    }
+  }
+
+  private def closeCache(cache: ZkProviderCache): Unit = {
+    cache.close()
+    cache.client.close()
   }
 }
 
@@ -6,7 +6,7 @@ import akka.util.Timeout
 import asura.common.actor.BaseActor
 import asura.common.util.LogUtils
 import asura.dubbo.actor.GenericServiceInvokerActor.{GetInterfaceMethodParams, GetInterfacesMessage, GetProvidersMessage}
-import asura.dubbo.{DubboConfig, GenericRequest}
+import asura.dubbo.{DubboConfig, DubboReferenceCache, GenericRequest}
 
 import scala.concurrent.{ExecutionContext, Future}
 
@@ -16,7 +16,6 @@ class GenericServiceInvokerActor extends BaseActor {
   implicit val timeout: Timeout = DubboConfig.DEFAULT_ACTOR_ASK_TIMEOUT
 
   val curatorClientCacheActor = context.actorOf(CuratorClientCacheActor.props())
-  val referenceActor = context.actorOf(DubboReferenceCacheActor.props())
 
   override def receive: Receive = {
     case msg: GetInterfacesMessage =>
@@ -24,7 +23,7 @@ class GenericServiceInvokerActor extends BaseActor {
     case msg: GetProvidersMessage =>
       curatorClientCacheActor ? msg pipeTo sender()
     case msg: GenericRequest =>
-      referenceActor ? msg pipeTo sender()
+      DubboReferenceCache.invoke(msg) pipeTo sender()
     case msg: GetInterfaceMethodParams =>
       context.actorOf(InterfaceMethodParamsActor.props(sender(), msg))
     case Status.Failure(t) =>
@@ -35,7 +34,8 @@ class GenericServiceInvokerActor extends BaseActor {
   }
 
   override def postStop(): Unit = {
-    DubboConfig.DUBBO_EC.shutdown()
+    DubboReferenceCache.clear()
+    DubboConfig.shutdownExecutor()
   }
 }
 
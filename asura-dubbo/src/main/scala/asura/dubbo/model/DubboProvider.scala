@@ -1,5 +1,12 @@
 package asura.dubbo.model
 
+import java.net.{URI, URLDecoder}
+import java.nio.charset.StandardCharsets
+
+import asura.common.util.StringUtils
+
+import scala.collection.mutable
+
 case class DubboProvider(
                           zkConnectString: String,
                           path: String,
@@ -10,3 +17,28 @@ case class DubboProvider(
                           application: String,
                           dubbo: String, // dubbo version
                         )
+
+object DubboProvider {
+
+  /** @param node encoded provider url, the name of the node under `providers` */
+  def parse(zkConnectString: String, path: String, ref: String, node: String): DubboProvider = {
+    val uri = URI.create(URLDecoder.decode(node, StandardCharsets.UTF_8.name()))
+    val queryMap = mutable.Map[String, String]()
+    uri.getQuery.split("&").foreach(paramStr => {
+      val param = paramStr.split("=")
+      if (param.length == 2) {
+        queryMap += (param(0) -> param(1))
+      }
+    })
+    DubboProvider(
+      zkConnectString = zkConnectString,
+      path = path,
+      ref = ref,
+      address = uri.getHost,
+      port = uri.getPort,
+      methods = queryMap.getOrElse("methods", StringUtils.EMPTY).split(",").toIndexedSeq,
+      application = queryMap.getOrElse("application", StringUtils.EMPTY),
+      dubbo = queryMap.getOrElse("dubbo", StringUtils.EMPTY)
+    )
+  }
+}
@@ -0,0 +1,81 @@
+package asura.dubbo
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+import asura.dubbo.DubboReferenceCache.DubboReference
+import com.alibaba.dubbo.config.ReferenceConfig
+import com.alibaba.dubbo.rpc.service.GenericService
+
+import scala.concurrent.{ExecutionContext, Promise}
+
+class DubboReferenceCacheSpec extends ScalaTestBaseSpec {
+
+  implicit val ec: ExecutionContext = ExecutionContext.global
+
+  test("parse cache keys") {
+    val request = DubboReferenceCache.parseCacheKey("group/com.foo.FooService:1.0.0@127.0.0.1:20881")
+    assertResult("group")(request.dubboGroup)
+    assertResult("com.foo.FooService")(request.interface)
+    assertResult("1.0.0")(request.version)
+    assertResult("127.0.0.1")(request.address)
+    assertResult(20881)(request.port)
+    assertResult("group/com.foo.FooService:1.0.0@127.0.0.1:20881")(request.generateCacheKey())
+    val simple = DubboReferenceCache.parseCacheKey("com.foo.FooService@127.0.0.1")
+    assertResult(null)(simple.dubboGroup)
+    assertResult(null)(simple.version)
+    assertResult(DubboConfig.DEFAULT_PORT)(simple.port)
+    assertResult(null)(DubboReferenceCache.parseCacheKey("com.foo.FooService"))
+    assertResult(null)(DubboReferenceCache.parseCacheKey("@127.0.0.1"))
+    assertResult(null)(DubboReferenceCache.parseCacheKey(null))
+  }
+
+  test("destroy evicted references") {
+    try {
+      DubboConfig.referenceCacheSize = 1
+      DubboReferenceCache.init()
+      val (first, firstDestroyed) = newReference()
+      val (second, secondDestroyed) = newReference()
+      DubboReferenceCache.put("a", first)
+      DubboReferenceCache.put("b", second)
+      waitFor(first.isDestroyed || second.isDestroyed)
+      assertResult(1)(firstDestroyed.get() + secondDestroyed.get())
+    } finally {
+      DubboReferenceCache.clear()
+      DubboConfig.referenceCacheSize = DubboConfig.DEFAULT_DUBBO_REF_CACHE_SIZE
+      DubboReferenceCache.init()
+    }
+  }
+
+  test("destroy removed references after they are used") {
+    val request = DubboReferenceCache.parseCacheKey("com.foo.FooService@127.0.0.1:20880")
+    val (reference, destroyed) = newReference()
+    DubboReferenceCache.put(request.generateCacheKey(), reference)
+    val promise = Promise[String]()
+    val invocation = DubboReferenceCache.withReference(request, false)(_ => promise.future)
+    waitFor(reference.inUse == 1)
+    DubboReferenceCache.clear()
+    Thread.sleep(100)
+    assertResult(0)(destroyed.get())
+    promise.success("ok")
+    assertResult("ok")(invocation.await)
+    waitFor(reference.isDestroyed)
+    assertResult(1)(destroyed.get())
+    assertResult(false)(reference.acquire())
+  }
+
+  private def newReference(): (DubboReference, AtomicInteger) = {
+    val destroyed = new AtomicInteger()
+    val config = new ReferenceConfig[GenericService]() {
+      override def destroy(): Unit = destroyed.incrementAndGet()
+    }
+    (DubboReference(config, null), destroyed)
+  }
+
+  private def waitFor(condition: => Boolean): Unit = {
+    val deadline = System.currentTimeMillis() + 5000
+    while (!condition && System.currentTimeMillis() < deadline) Thread.sleep(10)
+    assert(condition)
+  }
+}
@@ -0,0 +1,71 @@
+package asura.dubbo
+
+import java.util.concurrent.{RejectedExecutionException, TimeoutException}
+
+import asura.common.ScalaTestBaseSpec
+import asura.common.util.FutureUtils.RichFuture
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+
+class InFlightLimiterSpec extends ScalaTestBaseSpec {
+
+  implicit val ec: ExecutionContext = ExecutionContext.global
+
+  test("acquire and release") {
+    val limiter = new InFlightLimiter(2, 10)
+    limiter.acquire().await
+    limiter.acquire().await
+    assertResult(2)(limiter.stats().inFlight)
+    limiter.release()
+    limiter.release()
+    assertResult(0)(limiter.stats().inFlight)
+  }
+
+  test("queue the callers in order") {
+    val limiter = new InFlightLimiter(1, 2)
+    limiter.acquire().await
+    val first = limiter.acquire()
+    val second = limiter.acquire()
+    assertResult(2)(limiter.stats().pending)
+    assertThrows[RejectedExecutionException](limiter.acquire().await)
+    assertResult(1)(limiter.stats().rejected)
+    limiter.release()
+    first.await
+    assertResult(false)(second.isCompleted)
+    limiter.release()
+    second.await
+    limiter.release()
+    assertResult(0)(limiter.stats().inFlight)
+    assertResult(0)(limiter.stats().pending)
+  }
+
+  test("waiting callers time out") {
+    val limiter = new InFlightLimiter(1, 10, 100)
+    limiter.acquire().await
+    assertThrows[TimeoutException](limiter.acquire().await)
+    assertResult(1)(limiter.stats().timedOut)
+    assertResult(0)(limiter.stats().pending)
+    limiter.release()
+    assertResult(0)(limiter.stats().inFlight)
+  }
+
+  test("release on failure") {
+    val limiter = new InFlightLimiter(1, 10)
+    assertThrows[RuntimeException](limiter.limit[Int](throw new RuntimeException("sync")).await)
+    assertThrows[RuntimeException](limiter.limit(Future.failed[Int](new RuntimeException("async"))).await)
+    assertResult(1)(limiter.limit(Future.successful(1)).await)
+    assertResult(0)(limiter.stats().inFlight)
+  }
+
+  test("release after the future completes") {
+    val limiter = new InFlightLimiter(1, 10)
+    val promise = Promise[Int]()
+    val running = limiter.limit(promise.future)
+    val waiting = limiter.limit(Future.successful(2))
+    assertResult(false)(waiting.isCompleted)
+    promise.success(1)
+    assertResult(1)(running.await)
+    assertResult(2)(waiting.await)
+    assertResult(0)(limiter.stats().inFlight)
+  }
+}
@@ -5,7 +5,7 @@ import asura.core.auth.AuthManager
 import asura.core.assertion.Assertions
 import asura.core.notify.JobNotifyManager
 import com.example.asura.assertion.ExampleAssertion
-import com.example.asura.auth.ExampleAuth
+import com.example.asura.auth.{ExampleAuth, ExampleTokenAuth}
 import com.example.asura.notify.ExampleNotification
 import javax.inject.{Inject, Singleton}
 import play.api.Configuration
@@ -19,6 +19,7 @@ class ExampleBootstrap @Inject()(
                                 ) {
 
   AuthManager.register(new ExampleAuth(configuration))
+  AuthManager.register(new ExampleTokenAuth(configuration))
 
   JobNotifyManager.register(new ExampleNotification(configuration))
 
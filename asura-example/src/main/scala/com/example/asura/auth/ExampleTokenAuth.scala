@@ -0,0 +1,43 @@
+package com.example.asura.auth
+
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.headers.RawHeader
+import asura.core.auth.{AuthToken, TokenAuthorization}
+import asura.core.es.model.Authorization
+import play.api.Configuration
+
+import scala.concurrent.Future
+import scala.concurrent.duration._
+
+class ExampleTokenAuth(config: Configuration) extends TokenAuthorization {
+
+  override val `type`: String = "ExampleTokenAuth"
+  override val description: String =
+    """# ExampleTokenAuth
+      |An example of token authorizations. A token is fetched by the `appKey` and `appSecret` and is added
+      |as the header `X-Example-Token`. The token is cached and reused by the requests of the environment.
+    """.stripMargin
+  override val template: String =
+    """{
+      |    "appKey" : "",
+      |    "appSecret" : ""
+      |}
+    """.stripMargin
+
+  // a real one would call the login api of the service here
+  override def fetchToken(auth: Authorization): Future[AuthToken] = {
+    val appKey = auth.data.getOrElse("appKey", "")
+    val appSecret = auth.data.getOrElse("appSecret", "")
+    val bytes = Base64.getEncoder.encode(s"${appKey}:${appSecret}".getBytes(StandardCharsets.UTF_8))
+    Future.successful(AuthToken(new String(bytes, StandardCharsets.UTF_8), Some(1.hour)))
+  }
+
+  override def applyToken(request: HttpRequest, auth: Authorization, token: AuthToken): HttpRequest = {
+    request.withHeaders(request.headers :+ RawHeader("X-Example-Token", token.value))
+  }
+
+  override def validate(auth: Authorization): (Boolean, String) = (true, null)
+}
@@ -24,6 +24,7 @@ object Dependencies {
   private val elastic4s = "com.sksamuel.elastic4s" %% "elastic4s-http" % "6.7.8"
   private val joddCore = "org.jodd" % "jodd-core" % "3.9.1"
   private val jsonPath = "com.jayway.jsonpath" % "json-path" % "2.5.0"
+  private val hdrHistogram = "org.hdrhistogram" % "HdrHistogram" % "2.1.12"
 
   val caffeineLib = "com.github.ben-manes.caffeine" % "caffeine" % "2.8.4"
   val kryo = "com.esotericsoftware" % "kryo" % "5.1.1"
@@ -99,11 +100,11 @@ object Dependencies {
     "org.openjfx" % "javafx-graphics" % "16" classifier "mac"
   )
 
-  val commonDependencies = Seq(akkaTestKit, config, akkaActor, jackson, akkaActorTyped, akkaSlf4j, akkaJackson, kryo) ++ scalaTestDeps ++ loggingDeps
+  val commonDependencies = Seq(akkaTestKit, config, akkaActor, jackson, akkaActorTyped, akkaSlf4j, akkaJackson, kryo, caffeineLib) ++ scalaTestDeps ++ loggingDeps
   val clusterDependencies = Seq(akkaCluster, akkaMetrics, akkaClusterTools) ++ commonDependencies
   val coreDependencies = Seq(
     commonsLang3, jackson, elastic4s, druid,
-    joddCore, jsonPath, swaggerParser, quartz, redisson, graalvmJs, graalvmJsScriptengine
+    joddCore, jsonPath, hdrHistogram, swaggerParser, quartz, redisson, graalvmJs, graalvmJsScriptengine
   ) ++ commonDependencies ++ httpDeps ++ databaseDeps
   val appDependencies = Seq(caffeineLib)
   val namerdDependencies = Seq(akkaStream, akkaHttp) ++ commonDependencies